@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.solr;
+
+import java.io.IOException;
+import java.util.Map;
+import org.apache.lucene.analysis.TokenFilter;
+import org.apache.lucene.analysis.TokenFilterFactory;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+
+/** Fails the analysis of the values containing the configured term */
+public class FailingTermFilterFactory extends TokenFilterFactory {
+
+    private final String term;
+
+    public FailingTermFilterFactory(Map<String, String> args) {
+        super(args);
+        this.term = require(args, "term");
+        if (!args.isEmpty()) {
+            throw new IllegalArgumentException("Unknown parameters: " + args);
+        }
+    }
+
+    @Override
+    public TokenStream create(final TokenStream tokenStream) {
+        return new TokenFilter(tokenStream) {
+            private final CharTermAttribute termAtt = addAttribute(CharTermAttribute.class);
+
+            @Override
+            public boolean incrementToken() throws IOException {
+                if (!input.incrementToken()) {
+                    return false;
+                }
+                if (term.contentEquals(termAtt)) {
+                    throw new IllegalArgumentException("Failing term: " + term);
+                }
+                return true;
+            }
+        };
+    }
+}
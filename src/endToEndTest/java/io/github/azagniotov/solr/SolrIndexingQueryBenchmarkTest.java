@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.solr;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import org.apache.commons.io.FileUtils;
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.embedded.EmbeddedSolrServer;
+import org.apache.solr.client.solrj.request.QueryRequest;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Embedded Solr benchmark of the "text_ja" field type: bulk indexing docs/sec and query latency
+ * percentiles, with and without the SynonymGraphFilter (and the FlattenGraphFilter at index time).
+ * See resources/solr/collection1/conf/schema-benchmark.xml.
+ *
+ * <p>Each non-blank line of the 9mb.japanese.history.large.content.txt is indexed as a document.
+ * The queries are replayed from resources/solr/collection1/benchmark/queries_ja.txt.
+ *
+ * <p>The benchmark does not run as part of the regular end-to-end tests, run it with:
+ *
+ * <pre>
+ * ./gradlew endToEndTest -Pbenchmark=true --tests '*SolrIndexingQueryBenchmarkTest'
+ * </pre>
+ */
+public class SolrIndexingQueryBenchmarkTest extends SolrTestCaseJ4 {
+
+    private static final String COLLECTION_NAME = "collection1";
+    private static final String FIELD_WITH_SYNONYMS = "content_ja";
+    private static final String FIELD_WITHOUT_SYNONYMS = "content_ja_no_synonyms";
+    private static final int INDEXING_BATCH_SIZE = 500;
+    private static final int QUERY_WARMUP_ROUNDS = 5;
+    private static final int QUERY_MEASUREMENT_ROUNDS = Integer.getInteger("tests.benchmark.query.rounds", 50);
+
+    private static List<String> documents;
+    private static List<String> queries;
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        assumeTrue("Run with -Pbenchmark=true to enable the benchmark", Boolean.getBoolean("tests.benchmark"));
+
+        String tmpSolrHome = createTempDir().toFile().getAbsolutePath();
+        FileUtils.copyDirectory(new File(TEST_HOME()), new File(tmpSolrHome).getAbsoluteFile());
+        initCore("solrconfig.xml", "schema-benchmark.xml", new File(tmpSolrHome).getAbsolutePath());
+
+        documents = readLines("/9mb.japanese.history.large.content.txt");
+        queries = readLines("/solr/collection1/benchmark/queries_ja.txt");
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        documents = null;
+        queries = null;
+    }
+
+    @Test
+    public void testIndexingAndQueryLatencyWithAndWithoutSynonyms() throws Exception {
+        final double docsPerSecondWithoutSynonyms = index("no-synonyms-", FIELD_WITHOUT_SYNONYMS);
+        final double docsPerSecondWithSynonyms = index("synonyms-", FIELD_WITH_SYNONYMS);
+
+        final long[] latenciesWithoutSynonyms = replayQueries(FIELD_WITHOUT_SYNONYMS);
+        final long[] latenciesWithSynonyms = replayQueries(FIELD_WITH_SYNONYMS);
+
+        System.out.printf(
+                Locale.ROOT,
+                "%n%-26s %12s %10s %10s %10s %10s%n",
+                "Field", "Docs/sec", "p50 (us)", "p90 (us)", "p99 (us)", "p999 (us)");
+        print(FIELD_WITHOUT_SYNONYMS, docsPerSecondWithoutSynonyms, latenciesWithoutSynonyms);
+        print(FIELD_WITH_SYNONYMS, docsPerSecondWithSynonyms, latenciesWithSynonyms);
+        System.out.printf(
+                Locale.ROOT,
+                "Synonym graph overhead: indexing %.2f%%, query p50 %.2f%%, query p99 %.2f%%%n%n",
+                (docsPerSecondWithoutSynonyms - docsPerSecondWithSynonyms) * 100.0 / docsPerSecondWithoutSynonyms,
+                overhead(percentile(latenciesWithSynonyms, 50.0), percentile(latenciesWithoutSynonyms, 50.0)),
+                overhead(percentile(latenciesWithSynonyms, 99.0), percentile(latenciesWithoutSynonyms, 99.0)));
+
+        // Sanity check: the synonyms expand the matches, never narrow them down
+        final SolrQuery solrQuery = new SolrQuery(FIELD_WITH_SYNONYMS + ":大気");
+        final long withSynonymsFound =
+                new QueryRequest(solrQuery).process(getSolrCore()).getResults().getNumFound();
+        solrQuery.setQuery(FIELD_WITHOUT_SYNONYMS + ":大気");
+        final long withoutSynonymsFound =
+                new QueryRequest(solrQuery).process(getSolrCore()).getResults().getNumFound();
+        assertTrue(withSynonymsFound >= withoutSynonymsFound);
+    }
+
+    /** @return indexed docs/sec, including the final commit */
+    private static double index(final String idPrefix, final String field) throws SolrServerException, IOException {
+        final SolrClient solrClient = getSolrCore();
+        final long startNanos = System.nanoTime();
+
+        List<SolrInputDocument> batch = new ArrayList<>(INDEXING_BATCH_SIZE);
+        for (int idx = 0; idx < documents.size(); idx++) {
+            final SolrInputDocument solrInputDocument = new SolrInputDocument();
+            solrInputDocument.setField("id", idPrefix + idx);
+            solrInputDocument.setField(field, documents.get(idx));
+            batch.add(solrInputDocument);
+
+            if (batch.size() == INDEXING_BATCH_SIZE || idx == documents.size() - 1) {
+                final UpdateRequest updateRequest = new UpdateRequest();
+                updateRequest.add(batch);
+                assertEquals(0, updateRequest.process(solrClient).getStatus());
+                batch = new ArrayList<>(INDEXING_BATCH_SIZE);
+            }
+        }
+        assertEquals(0, solrClient.commit(COLLECTION_NAME, true, true).getStatus());
+
+        final double elapsedSeconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+        return documents.size() / elapsedSeconds;
+    }
+
+    /** @return sorted query latencies in nanoseconds */
+    private static long[] replayQueries(final String field) throws SolrServerException, IOException {
+        final SolrClient solrClient = getSolrCore();
+        final long[] latencies = new long[queries.size() * QUERY_MEASUREMENT_ROUNDS];
+        int current = 0;
+        for (int round = 0; round < QUERY_WARMUP_ROUNDS + QUERY_MEASUREMENT_ROUNDS; round++) {
+            for (final String query : queries) {
+                final SolrQuery solrQuery = new SolrQuery(field + ":" + query);
+                final long startNanos = System.nanoTime();
+                final QueryResponse queryResponse = new QueryRequest(solrQuery).process(solrClient);
+                final long elapsedNanos = System.nanoTime() - startNanos;
+
+                assertEquals(0, queryResponse.getStatus());
+                if (round >= QUERY_WARMUP_ROUNDS) {
+                    latencies[current++] = elapsedNanos;
+                }
+            }
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    private static void print(final String field, final double docsPerSecond, final long[] latencies) {
+        System.out.printf(
+                Locale.ROOT,
+                "%-26s %12.1f %10.1f %10.1f %10.1f %10.1f%n",
+                field,
+                docsPerSecond,
+                percentile(latencies, 50.0) / 1_000.0,
+                percentile(latencies, 90.0) / 1_000.0,
+                percentile(latencies, 99.0) / 1_000.0,
+                percentile(latencies, 99.9) / 1_000.0);
+    }
+
+    /** Nearest-rank percentile of the sorted values */
+    private static long percentile(final long[] sorted, final double percentile) {
+        final int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+
+    private static double overhead(final long withSynonyms, final long withoutSynonyms) {
+        return (withSynonyms - withoutSynonyms) * 100.0 / withoutSynonyms;
+    }
+
+    private static List<String> readLines(final String resource) throws IOException {
+        try (final InputStream inputStream = SolrIndexingQueryBenchmarkTest.class.getResourceAsStream(resource)) {
+            final String content =
+                    new String(Objects.requireNonNull(inputStream, resource).readAllBytes(), StandardCharsets.UTF_8);
+            return Arrays.stream(content.split("\\n"))
+                    .filter(line -> !line.trim().isEmpty() && !line.startsWith("#"))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static SolrClient getSolrCore() {
+        return new EmbeddedSolrServer(h.getCoreContainer(), COLLECTION_NAME);
+    }
+}
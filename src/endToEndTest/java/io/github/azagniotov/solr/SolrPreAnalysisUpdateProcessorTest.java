@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.solr;
+
+import java.io.File;
+import org.apache.commons.io.FileUtils;
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.common.SolrException;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class SolrPreAnalysisUpdateProcessorTest extends SolrTestCaseJ4 {
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        String tmpSolrHome = createTempDir().toFile().getAbsolutePath();
+        FileUtils.copyDirectory(new File(TEST_HOME()), new File(tmpSolrHome).getAbsoluteFile());
+        initCore("solrconfig.xml", "schema.xml", new File(tmpSolrHome).getAbsolutePath());
+    }
+
+    @Test
+    public void testBatchIsPreAnalyzedAndIndexed() throws Exception {
+        updateJ(
+                "[{\"id\":\"11\",\"terms_ja\":\"東京\",\"title_preanalyzed\":\"東京 タワー\"},"
+                        + "{\"id\":\"12\",\"terms_ja\":\"大阪\",\"title_preanalyzed\":\"大阪 城\"},"
+                        + "{\"id\":\"13\",\"terms_ja\":\"京都\",\"title_preanalyzed\":\"京都 寺\"}]",
+                params("update.chain", "sudachi-pre-analysis"));
+        assertU(commit());
+
+        assertQ(req("q", "title_preanalyzed:城"), "//result[@numFound='1']", "//str[@name='id'][.='12']");
+        assertQ(req("q", "id:(11 12 13)"), "//result[@numFound='3']");
+    }
+
+    @Test
+    public void testDocumentsFollowingTheFailedDocumentOfTheBatchAreNotPassedOn() throws Exception {
+        ignoreException("Error pre-analyzing");
+        try {
+            // The batch of 3 fails on its second document, and is flushed by the add of the third
+            final SolrException e = expectThrows(
+                    SolrException.class,
+                    () -> updateJ(
+                            "[{\"id\":\"21\",\"terms_ja\":\"東京\",\"title_preanalyzed\":\"東京 タワー\"},"
+                                    + "{\"id\":\"22\",\"terms_ja\":\"大阪\",\"title_preanalyzed\":\"大阪 失敗\"},"
+                                    + "{\"id\":\"23\",\"terms_ja\":\"京都\",\"title_preanalyzed\":\"京都 寺\"}]",
+                            params("update.chain", "sudachi-pre-analysis")));
+            assertEquals(SolrException.ErrorCode.BAD_REQUEST.code, e.code());
+            final String message = e.getMessage();
+            assertTrue(message, message.contains("[doc=22] Error pre-analyzing field 'title_preanalyzed'"));
+        } finally {
+            resetExceptionIgnores();
+        }
+        assertU(commit());
+
+        // The document preceding the failed one has been pre-analyzed and indexed
+        assertQ(req("q", "title_preanalyzed:タワー"), "//result[@numFound='1']", "//str[@name='id'][.='21']");
+        assertQ(req("q", "id:(21 22 23)"), "//result[@numFound='1']");
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.solr;
+
+import io.github.azagniotov.lucene.analysis.ja.sudachi.tokenizer.SentenceAnalysisPool;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.tokenizer.SudachiTokenizerFactory;
+import java.io.File;
+import org.apache.commons.io.FileUtils;
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.analysis.TokenizerChain;
+import org.apache.solr.core.SolrCore;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class SolrSentenceAnalysisPoolTest extends SolrTestCaseJ4 {
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        String tmpSolrHome = createTempDir().toFile().getAbsolutePath();
+        FileUtils.copyDirectory(new File(TEST_HOME()), new File(tmpSolrHome).getAbsoluteFile());
+        initCore("solrconfig.xml", "schema.xml", new File(tmpSolrHome).getAbsolutePath());
+    }
+
+    @Test
+    public void testPoolIsClosedTogetherWithTheCore() throws Exception {
+        final SentenceAnalysisPool pool = sentenceAnalysisPoolOf(h.getCore());
+        assertFalse(pool.isShutdown());
+
+        // The reload closes the previous core, thus its schema is not used anymore
+        h.getCoreContainer().reload(h.getCore().getName());
+        assertTrue(pool.isTerminated());
+
+        final SentenceAnalysisPool reloadedPool = sentenceAnalysisPoolOf(h.getCore());
+        assertNotSame(pool, reloadedPool);
+        assertFalse(reloadedPool.isShutdown());
+    }
+
+    private static SentenceAnalysisPool sentenceAnalysisPoolOf(final SolrCore core) {
+        final TokenizerChain tokenizerChain = (TokenizerChain)
+                core.getLatestSchema().getFieldTypeByName("text_ja_parallel").getIndexAnalyzer();
+        final SudachiTokenizerFactory factory = (SudachiTokenizerFactory) tokenizerChain.getTokenizerFactory();
+        return factory.getOptions().getSentenceAnalysisPool();
+    }
+}
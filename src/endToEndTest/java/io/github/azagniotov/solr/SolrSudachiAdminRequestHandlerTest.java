@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.solr;
+
+import java.io.File;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.response.SolrQueryResponse;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class SolrSudachiAdminRequestHandlerTest extends SolrTestCaseJ4 {
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        String tmpSolrHome = createTempDir().toFile().getAbsolutePath();
+        FileUtils.copyDirectory(new File(TEST_HOME()), new File(tmpSolrHome).getAbsoluteFile());
+        initCore("solrconfig.xml", "schema.xml", new File(tmpSolrHome).getAbsolutePath());
+
+        assertU(adoc("id", "1", "terms_ja", "すもももももももものうち。"));
+        assertU(commit());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testReportsDictionaryAndTokenizerFactories() throws Exception {
+        final SolrQueryResponse response = h.queryAndResponse("/admin/sudachi", req());
+        final NamedList<Object> values = response.getValues();
+
+        final List<NamedList<Object>> dictionaries = (List<NamedList<Object>>) values.get("dictionaries");
+        assertEquals(1, dictionaries.size());
+        assertTrue(dictionaries.get(0).get("systemDictionary").toString().endsWith("system.dict"));
+        assertTrue((Long) dictionaries.get(0).get("tokenizersCreated") > 0);
+
+        final List<NamedList<Object>> factories = (List<NamedList<Object>>) values.get("tokenizerFactories");
+        assertFalse(factories.isEmpty());
+        for (final NamedList<Object> factory : factories) {
+            assertEquals("collection1", factory.get("core"));
+            assertEquals("A", factory.get("mode"));
+            assertEquals(Boolean.TRUE, factory.get("discardPunctuation"));
+        }
+
+        final NamedList<Object> throughput = (NamedList<Object>) values.get("throughput");
+        assertTrue((Long) throughput.get("totalDocuments") > 0);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.solr;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.io.FileUtils;
+import org.apache.solr.SolrTestCaseJ4;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.noggit.ObjectBuilder;
+
+public class SolrSudachiBulkAnalysisRequestHandlerTest extends SolrTestCaseJ4 {
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        String tmpSolrHome = createTempDir().toFile().getAbsolutePath();
+        FileUtils.copyDirectory(new File(TEST_HOME()), new File(tmpSolrHome).getAbsoluteFile());
+        initCore("solrconfig.xml", "schema.xml", new File(tmpSolrHome).getAbsolutePath());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testWritesTheRequestedAttributesOfEachDocumentAsJsonLines() throws Exception {
+        final String response = h.query(
+                "/analysis/sudachi",
+                req(
+                        "fieldType", "text_ja",
+                        "doc", "すもももももももものうち。",
+                        "doc", "ももたろうは日本のおとぎ話の一つ。",
+                        "attributes", "term,startOffset,endOffset",
+                        "wt", "jsonl"));
+
+        final String[] lines = response.split("\n");
+        assertEquals(2, lines.length);
+
+        final Map<String, Object> second = (Map<String, Object>) ObjectBuilder.fromJSON(lines[1]);
+        assertEquals("1", second.get("id"));
+        final List<Map<String, Object>> tokens = (List<Map<String, Object>>) second.get("tokens");
+        assertFalse(tokens.isEmpty());
+        assertEquals("もも", tokens.get(0).get("term"));
+        assertEquals(0L, tokens.get(0).get("startOffset"));
+        assertEquals(2L, tokens.get(0).get("endOffset"));
+        assertFalse(tokens.get(0).containsKey("partOfSpeech"));
+    }
+
+    @Test
+    public void testRejectsUnknownAttributes() {
+        assertQEx(
+                "Unknown attribute",
+                req("qt", "/analysis/sudachi", "fieldType", "text_ja", "doc", "東京", "attributes", "romaji"),
+                400);
+    }
+}
@@ -67,6 +67,16 @@ public class SudachiAnalyzerTest extends BaseTokenStreamTestCase {
 
         final TokenStream tokenStream = defaultAnalyzer.tokenStream("any", japanese);
         assertNotNull(tokenStream);
+
+        int tokens = 0;
+        tokenStream.reset();
+        while (tokenStream.incrementToken()) {
+            tokens++;
+        }
+        tokenStream.end();
+        tokenStream.close();
+
+        assertTrue(tokens > 0);
     }
 
     @Test
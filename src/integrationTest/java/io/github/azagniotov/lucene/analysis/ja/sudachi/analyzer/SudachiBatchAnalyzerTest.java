@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.analyzer;
+
+import com.worksap.nlp.sudachi.Tokenizer.SplitMode;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.metrics.AnalysisMetrics;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.metrics.SudachiMetrics;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.apache.lucene.tests.analysis.BaseTokenStreamTestCase;
+import org.junit.Test;
+
+public class SudachiBatchAnalyzerTest extends BaseTokenStreamTestCase {
+
+    private static final List<String> DOCUMENTS = Arrays.asList(
+            "東京都に行った。",
+            "",
+            "「大阪府に行きます",
+            "京都の寺を見た。",
+            "ＳＵＤＡＣＨＩで形態素解析する。",
+            "北海道は広い。",
+            "名古屋に住んでいる。");
+
+    private Analyzer analyzer;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        analyzer = new SudachiAnalyzer();
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        analyzer.close();
+        super.tearDown();
+    }
+
+    @Test
+    public void testBatchAnalysisMatchesAnalysisOfEachDocument() throws Exception {
+        final List<SudachiTokens> analyzed;
+        try (SudachiBatchAnalyzer batchAnalyzer = new SudachiBatchAnalyzer(analyzer, "title", 2, 32)) {
+            analyzed = batchAnalyzer.analyze(DOCUMENTS);
+        }
+
+        assertAnalyzedOneByOne(analyzer, DOCUMENTS, analyzed);
+        for (int idx = 0; idx < DOCUMENTS.size(); idx++) {
+            assertEquals(DOCUMENTS.get(idx).length(), analyzed.get(idx).finalOffset());
+        }
+    }
+
+    @Test
+    public void testLimitsApplyToEachDocument() throws Exception {
+        final List<String> documents = Arrays.asList("東京都に行った。", "京都の寺を見た。", "北海道は広い。");
+        // Each document is cut after its own 2 tokens, the micro-batch is not cut after the first 2 tokens
+        try (Analyzer limitedAnalyzer = new SudachiAnalyzer(
+                        SudachiAnalyzer.getDefaultStopSet(),
+                        SudachiAnalyzer.getDefaultStopTags(),
+                        true,
+                        "search",
+                        "analysis",
+                        2,
+                        0);
+                SudachiBatchAnalyzer batchAnalyzer = new SudachiBatchAnalyzer(limitedAnalyzer, "title", 1, 64)) {
+            final List<SudachiTokens> analyzed = batchAnalyzer.analyze(documents);
+
+            assertAnalyzedOneByOne(limitedAnalyzer, documents, analyzed);
+            for (int idx = 0; idx < documents.size(); idx++) {
+                assertTrue(analyzed.get(idx).size() > 0);
+                assertTrue(analyzed.get(idx).finalOffset() < documents.get(idx).length());
+            }
+        }
+    }
+
+    @Test
+    public void testMicroBatchesAreLeftOutOfTheDocumentMetrics() throws Exception {
+        // The documents start and end with nouns, thus no positions are removed between them
+        final List<String> documents = Arrays.asList("東京都の寺", "京都の大学", "北海道の海");
+        final AnalysisMetrics metrics = SudachiMetrics.INSTANCE.forField("metrics_title", SplitMode.A);
+        final long documentsBefore = metrics.getDocuments();
+
+        try (SudachiBatchAnalyzer batchAnalyzer = new SudachiBatchAnalyzer(analyzer, "metrics_title", 1, 64)) {
+            assertAnalyzedOneByOne(analyzer, documents, batchAnalyzer.analyze(documents));
+        }
+        // Only the documents analyzed one by one by assertAnalyzedOneByOne() are counted
+        assertEquals(documentsBefore + documents.size(), metrics.getDocuments());
+        assertFalse(SudachiMetrics.INSTANCE.isDocumentMetricsSuspended());
+    }
+
+    private static void assertAnalyzedOneByOne(
+            final Analyzer analyzer, final List<String> documents, final List<SudachiTokens> analyzed)
+            throws Exception {
+        assertEquals(documents.size(), analyzed.size());
+        for (int idx = 0; idx < documents.size(); idx++) {
+            final SudachiTokens tokens = analyzed.get(idx);
+            final List<String> actual = new ArrayList<>();
+            for (int token = 0; token < tokens.size(); token++) {
+                actual.add(tokens.term(token) + "/" + tokens.startOffset(token) + "-" + tokens.endOffset(token) + "+"
+                        + tokens.positionIncrement(token));
+                assertTrue(tokens.partOfSpeechId(token) >= 0);
+            }
+            actual.add("end/" + tokens.finalOffset() + "+" + tokens.finalPositionIncrement());
+            assertEquals(documents.get(idx), analyzeOne(analyzer, documents.get(idx)), actual);
+        }
+    }
+
+    @Test
+    public void testEmptyBatch() {
+        try (SudachiBatchAnalyzer batchAnalyzer = new SudachiBatchAnalyzer(analyzer, "title", 2)) {
+            assertTrue(batchAnalyzer.analyze(new ArrayList<String>()).isEmpty());
+        }
+    }
+
+    private static List<String> analyzeOne(final Analyzer analyzer, final String document) throws Exception {
+        final List<String> expected = new ArrayList<>();
+        try (TokenStream stream = analyzer.tokenStream("title", document)) {
+            final CharTermAttribute termAtt = stream.addAttribute(CharTermAttribute.class);
+            final OffsetAttribute offsetAtt = stream.addAttribute(OffsetAttribute.class);
+            final PositionIncrementAttribute posIncAtt = stream.addAttribute(PositionIncrementAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                expected.add(termAtt + "/" + offsetAtt.startOffset() + "-" + offsetAtt.endOffset() + "+"
+                        + posIncAtt.getPositionIncrement());
+            }
+            stream.end();
+            expected.add("end/" + offsetAtt.endOffset() + "+" + posIncAtt.getPositionIncrement());
+        }
+        return expected;
+    }
+}
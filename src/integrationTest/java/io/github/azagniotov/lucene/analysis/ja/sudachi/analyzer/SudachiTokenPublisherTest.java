@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.analyzer;
+
+import com.worksap.nlp.sudachi.Dictionary;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.cache.DictionaryCache;
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.tests.analysis.BaseTokenStreamTestCase;
+import org.junit.Test;
+
+public class SudachiTokenPublisherTest extends BaseTokenStreamTestCase {
+
+    private static final String TEXT = "東京都に行った。京都の寺を見た。ＳＵＤＡＣＨＩで形態素解析する。";
+    // Runs the drain loop on the thread which requests the tokens, including the one calling onNext
+    private static final Executor SAME_THREAD = Runnable::run;
+
+    private Analyzer analyzer;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        analyzer = new SudachiAnalyzer();
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        analyzer.close();
+        super.tearDown();
+    }
+
+    @Test
+    public void testPublishedTokensMatchTheTokenStream() throws Exception {
+        final CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+        new SudachiTokenPublisher(analyzer, "text", new StringReader(TEXT), SAME_THREAD).subscribe(subscriber);
+
+        assertTrue(subscriber.completed);
+        assertNull(subscriber.error);
+        assertEquals(analyze(TEXT), subscriber.tokens);
+    }
+
+    @Test
+    public void testDefaultPublishersKeepTheCachedDictionary() throws Exception {
+        final CollectingSubscriber first = new CollectingSubscriber(Long.MAX_VALUE);
+        new SudachiTokenPublisher(new StringReader(TEXT), SAME_THREAD).subscribe(first);
+        assertTrue(first.completed);
+        final Dictionary dictionary = DictionaryCache.INSTANCE.get();
+        assertNotNull(dictionary);
+
+        final CollectingSubscriber second = new CollectingSubscriber(Long.MAX_VALUE);
+        new SudachiTokenPublisher(new StringReader(TEXT), SAME_THREAD).subscribe(second);
+        assertTrue(second.completed);
+        assertEquals(first.tokens, second.tokens);
+        assertSame(dictionary, DictionaryCache.INSTANCE.get());
+    }
+
+    @Test
+    public void testTokensArePublishedOnDemand() throws Exception {
+        final CollectingSubscriber subscriber = new CollectingSubscriber(2);
+        final SudachiTokenPublisher publisher = SudachiTokenPublisher.fromChannel(
+                analyzer,
+                "text",
+                Channels.newChannel(new ByteArrayInputStream(TEXT.getBytes(StandardCharsets.UTF_8))),
+                StandardCharsets.UTF_8,
+                SAME_THREAD);
+        publisher.subscribe(subscriber);
+
+        assertEquals(2, subscriber.tokens.size());
+        assertFalse(subscriber.completed);
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertTrue(subscriber.completed);
+        assertEquals(analyze(TEXT), subscriber.tokens);
+    }
+
+    @Test
+    public void testCancelledSubscriptionStopsPublishing() throws Exception {
+        final CollectingSubscriber subscriber = new CollectingSubscriber(1);
+        new SudachiTokenPublisher(analyzer, "text", new StringReader(TEXT), SAME_THREAD).subscribe(subscriber);
+        subscriber.subscription.cancel();
+        subscriber.subscription.request(10);
+
+        assertEquals(1, subscriber.tokens.size());
+        assertFalse(subscriber.completed);
+        assertNull(subscriber.error);
+    }
+
+    @Test
+    public void testOnlyOneSubscriber() throws Exception {
+        final SudachiTokenPublisher publisher =
+                new SudachiTokenPublisher(analyzer, "text", new StringReader(TEXT), SAME_THREAD);
+        publisher.subscribe(new CollectingSubscriber(Long.MAX_VALUE));
+
+        final CollectingSubscriber second = new CollectingSubscriber(Long.MAX_VALUE);
+        publisher.subscribe(second);
+        assertTrue(second.error instanceof IllegalStateException);
+        assertTrue(second.tokens.isEmpty());
+    }
+
+    @Test
+    public void testNonPositiveRequestIsAnError() throws Exception {
+        final CollectingSubscriber subscriber = new CollectingSubscriber(0);
+        new SudachiTokenPublisher(analyzer, "text", new StringReader(TEXT), SAME_THREAD).subscribe(subscriber);
+        subscriber.subscription.request(0);
+
+        assertTrue(subscriber.error instanceof IllegalArgumentException);
+    }
+
+    @Test
+    public void testExceptionOfOnNextCancelsTheSubscription() throws Exception {
+        final CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+        subscriber.onNextFailure = new IllegalStateException("broken subscriber");
+        final SudachiTokenPublisher publisher =
+                new SudachiTokenPublisher(analyzer, "text", new StringReader(TEXT), SAME_THREAD);
+
+        expectThrows(IllegalStateException.class, () -> publisher.subscribe(subscriber));
+        subscriber.subscription.request(10);
+
+        assertEquals(1, subscriber.tokens.size());
+        assertFalse(subscriber.completed);
+        assertNull(subscriber.error);
+    }
+
+    @Test
+    public void testRejectedExecutionIsAnError() throws Exception {
+        final CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+        final Executor rejecting = command -> {
+            throw new RejectedExecutionException("shut down");
+        };
+        new SudachiTokenPublisher(analyzer, "text", new StringReader(TEXT), rejecting).subscribe(subscriber);
+        subscriber.subscription.request(10);
+
+        assertTrue(subscriber.error instanceof RejectedExecutionException);
+        assertTrue(subscriber.tokens.isEmpty());
+        assertFalse(subscriber.completed);
+    }
+
+    private List<String> analyze(final String text) throws Exception {
+        final List<String> expected = new ArrayList<>();
+        try (TokenStream stream = analyzer.tokenStream("text", text)) {
+            final CharTermAttribute termAtt = stream.addAttribute(CharTermAttribute.class);
+            final OffsetAttribute offsetAtt = stream.addAttribute(OffsetAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                expected.add(termAtt + "/" + offsetAtt.startOffset() + "-" + offsetAtt.endOffset());
+            }
+            stream.end();
+        }
+        return expected;
+    }
+
+    private static final class CollectingSubscriber implements Flow.Subscriber<SudachiToken> {
+
+        private final long initialDemand;
+        private final List<String> tokens = new ArrayList<>();
+        private Flow.Subscription subscription;
+        private boolean completed;
+        private Throwable error;
+        private RuntimeException onNextFailure;
+
+        CollectingSubscriber(final long initialDemand) {
+            this.initialDemand = initialDemand;
+        }
+
+        @Override
+        public void onSubscribe(final Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (initialDemand > 0) {
+                subscription.request(initialDemand);
+            }
+        }
+
+        @Override
+        public void onNext(final SudachiToken token) {
+            tokens.add(token.toString());
+            if (onNextFailure != null) {
+                throw onNextFailure;
+            }
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            this.error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            this.completed = true;
+        }
+    }
+}
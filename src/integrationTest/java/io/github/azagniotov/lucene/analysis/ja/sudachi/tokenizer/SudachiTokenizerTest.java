@@ -22,10 +22,12 @@ import static com.worksap.nlp.sudachi.Tokenizer.SplitMode;
 import com.worksap.nlp.sudachi.Config;
 import io.github.azagniotov.lucene.analysis.ja.sudachi.cache.DictionaryCache;
 import io.github.azagniotov.lucene.analysis.ja.sudachi.test.TestUtils;
+import java.io.InputStream;
 import java.io.StringReader;
 import java.nio.charset.Charset;
 import java.util.Collections;
 import java.util.List;
+import java.util.Scanner;
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.Tokenizer;
 import org.apache.lucene.analysis.charfilter.MappingCharFilter;
@@ -304,4 +306,51 @@ public class SudachiTokenizerTest extends BaseTokenStreamTestCase {
         assertEquals(charLength, totalLength);
         assertEquals(charLength, prevEndOffset);
     }
+
+    @Test
+    public void testParallelAnalysisOfLargeTextMatchesSequentialAnalysis() throws Exception {
+        final InputStream textInputStream =
+                this.getClass().getResourceAsStream("/9mb.japanese.history.large.content.txt");
+        final String japanese = new Scanner(textInputStream).useDelimiter("\\A").next();
+
+        final Tokenizer sequential = this.testUtils.makeTokenizer(false, SplitMode.A);
+        final SentenceAnalysisPool pool = new SentenceAnalysisPool(4, () -> DictionaryCache.INSTANCE.get().create());
+        final Tokenizer parallel = new SudachiTokenizer(
+                TokenStream.DEFAULT_TOKEN_ATTRIBUTE_FACTORY,
+                DictionaryCache.INSTANCE.get().create(),
+                SudachiTokenizerOptions.builder()
+                        .discardPunctuation(false)
+                        .mode(SplitMode.A)
+                        .parallelAnalysis(pool, 1024)
+                        .build());
+
+        final CharTermAttribute sequentialTerm = sequential.getAttribute(CharTermAttribute.class);
+        final OffsetAttribute sequentialOffset = sequential.getAttribute(OffsetAttribute.class);
+        final CharTermAttribute parallelTerm = parallel.getAttribute(CharTermAttribute.class);
+        final OffsetAttribute parallelOffset = parallel.getAttribute(OffsetAttribute.class);
+
+        sequential.setReader(new StringReader(japanese));
+        parallel.setReader(new StringReader(japanese));
+        sequential.reset();
+        parallel.reset();
+
+        int tokens = 0;
+        while (sequential.incrementToken()) {
+            assertTrue("Parallel analysis ended after " + tokens + " tokens", parallel.incrementToken());
+            assertEquals(sequentialTerm.toString(), parallelTerm.toString());
+            assertEquals(sequentialOffset.startOffset(), parallelOffset.startOffset());
+            assertEquals(sequentialOffset.endOffset(), parallelOffset.endOffset());
+            tokens++;
+        }
+        assertFalse(parallel.incrementToken());
+
+        sequential.end();
+        parallel.end();
+        assertEquals(sequentialOffset.endOffset(), parallelOffset.endOffset());
+        sequential.close();
+        parallel.close();
+        pool.close();
+
+        assertTrue(tokens > 0);
+    }
 }
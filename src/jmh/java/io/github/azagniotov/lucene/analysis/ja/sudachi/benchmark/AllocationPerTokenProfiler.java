@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Collections;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+/**
+ * A JMH profiler which complements the built-in GC profiler ("-prof gc"). The GC profiler reports
+ * bytes allocated per benchmark operation, which is not comparable between corpora, because the
+ * number of tokens per operation differs. This profiler reports bytes allocated per emitted token.
+ *
+ * <p>Tokens are counted by {@link AnalysisCounters}, thus only benchmarks that consume their token
+ * streams through the counters will get the "alloc.bytes.per.token" secondary result.
+ *
+ * <p>Usage: -prof io.github.azagniotov.lucene.analysis.ja.sudachi.benchmark.AllocationPerTokenProfiler
+ */
+public class AllocationPerTokenProfiler implements InternalProfiler {
+
+    private final com.sun.management.ThreadMXBean threadMXBean;
+    private long allocatedBytesBefore;
+
+    public AllocationPerTokenProfiler() {
+        this.threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        this.threadMXBean.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @Override
+    public String getDescription() {
+        return "Sudachi: bytes allocated per emitted token";
+    }
+
+    @Override
+    public void beforeIteration(final BenchmarkParams benchmarkParams, final IterationParams iterationParams) {
+        AnalysisCounters.resetEmittedTokens();
+        this.allocatedBytesBefore = allocatedBytes();
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(
+            final BenchmarkParams benchmarkParams,
+            final IterationParams iterationParams,
+            final IterationResult iterationResult) {
+        final long allocatedBytes = allocatedBytes() - this.allocatedBytesBefore;
+        final long emittedTokens = AnalysisCounters.emittedTokens();
+        if (emittedTokens == 0) {
+            return Collections.emptyList();
+        }
+
+        return Collections.singletonList(new ScalarResult(
+                "alloc.bytes.per.token",
+                (double) allocatedBytes / emittedTokens,
+                "B/token",
+                AggregationPolicy.AVG));
+    }
+
+    private long allocatedBytes() {
+        long total = 0;
+        for (final long allocated : this.threadMXBean.getThreadAllocatedBytes(this.threadMXBean.getAllThreadIds())) {
+            // -1 is returned for threads that are no longer alive
+            if (allocated > 0) {
+                total += allocated;
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.lucene.analysis.TokenStream;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * JMH auxiliary counters. Because the counters are of type {@link AuxCounters.Type#OPERATIONS},
+ * JMH reports them as rates next to the primary result, i.e.: as chars/sec and tokens/sec.
+ *
+ * <p>The number of emitted tokens is also accumulated globally, so that {@link
+ * AllocationPerTokenProfiler} could compute bytes allocated per token.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class AnalysisCounters {
+
+    private static final LongAdder EMITTED_TOKENS = new LongAdder();
+
+    public long chars;
+    public long tokens;
+
+    @Setup(Level.Iteration)
+    public void clear() {
+        this.chars = 0;
+        this.tokens = 0;
+    }
+
+    /**
+     * Fully consumes the given token stream, following the TokenStream API workflow, and records the
+     * number of analyzed chars and emitted tokens.
+     *
+     * @return number of emitted tokens
+     */
+    public long consume(final TokenStream tokenStream, final int charsLength) throws IOException {
+        final long emitted = TokenStreams.consume(tokenStream);
+        this.chars += charsLength;
+        this.tokens += emitted;
+        EMITTED_TOKENS.add(emitted);
+
+        return emitted;
+    }
+
+    static long emittedTokens() {
+        return EMITTED_TOKENS.sum();
+    }
+
+    static void resetEmittedTokens() {
+        EMITTED_TOKENS.reset();
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.benchmark;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+
+/**
+ * Prints, per corpus, the number of tokens and the term dictionary size (i.e.: number of unique
+ * terms) produced by each {@link JapaneseAnalyzerType}, and the difference between Sudachi and
+ * Kuromoji. This complements the timings of {@link SudachiVsKuromojiBenchmark}.
+ *
+ * <p>Usage: ./gradlew analyzerComparisonReport
+ */
+public final class AnalyzerComparisonReport {
+
+    private AnalyzerComparisonReport() {}
+
+    public static void main(final String[] args) throws IOException {
+        System.out.printf(
+                Locale.ROOT,
+                "%-12s %-10s %10s %12s %14s %12s%n",
+                "Corpus", "Analyzer", "Documents", "Tokens", "Tokens/doc", "Terms");
+
+        for (final Corpus corpus : Corpus.values()) {
+            final List<String> documents = corpus.documents();
+            final Map<JapaneseAnalyzerType, Statistics> results = new EnumMap<>(JapaneseAnalyzerType.class);
+            for (final JapaneseAnalyzerType analyzerType : JapaneseAnalyzerType.values()) {
+                try (final Analyzer analyzer = analyzerType.create()) {
+                    final Statistics statistics = Statistics.of(analyzer, documents);
+                    results.put(analyzerType, statistics);
+                    System.out.printf(
+                            Locale.ROOT,
+                            "%-12s %-10s %10d %12d %14.2f %12d%n",
+                            corpus,
+                            analyzerType,
+                            documents.size(),
+                            statistics.tokens,
+                            (double) statistics.tokens / documents.size(),
+                            statistics.terms.size());
+                }
+            }
+
+            final Statistics sudachi = results.get(JapaneseAnalyzerType.SUDACHI);
+            final Statistics kuromoji = results.get(JapaneseAnalyzerType.KUROMOJI);
+            System.out.printf(
+                    Locale.ROOT,
+                    "%-12s %-10s %10s %11.2f%% %14s %11.2f%%%n",
+                    corpus,
+                    "diff",
+                    "",
+                    percentage(sudachi.tokens, kuromoji.tokens),
+                    "",
+                    percentage(sudachi.terms.size(), kuromoji.terms.size()));
+
+            final Set<String> onlySudachi = new HashSet<>(sudachi.terms);
+            onlySudachi.removeAll(kuromoji.terms);
+            final Set<String> onlyKuromoji = new HashSet<>(kuromoji.terms);
+            onlyKuromoji.removeAll(sudachi.terms);
+            System.out.printf(
+                    Locale.ROOT,
+                    "%-12s terms produced only by Sudachi: %d, only by Kuromoji: %d%n%n",
+                    corpus, onlySudachi.size(), onlyKuromoji.size());
+        }
+    }
+
+    /** @return relative difference of Sudachi from Kuromoji, in percents */
+    private static double percentage(final long sudachi, final long kuromoji) {
+        return kuromoji == 0 ? 0.0 : (sudachi - kuromoji) * 100.0 / kuromoji;
+    }
+
+    private static final class Statistics {
+        private final Set<String> terms = new HashSet<>();
+        private long tokens;
+
+        private static Statistics of(final Analyzer analyzer, final List<String> documents) throws IOException {
+            final Statistics statistics = new Statistics();
+            for (final String document : documents) {
+                try (final TokenStream tokenStream = analyzer.tokenStream("content", document)) {
+                    final CharTermAttribute termAtt = tokenStream.addAttribute(CharTermAttribute.class);
+                    tokenStream.reset();
+                    while (tokenStream.incrementToken()) {
+                        statistics.tokens++;
+                        statistics.terms.add(termAtt.toString());
+                    }
+                    tokenStream.end();
+                }
+            }
+            return statistics;
+        }
+    }
+}
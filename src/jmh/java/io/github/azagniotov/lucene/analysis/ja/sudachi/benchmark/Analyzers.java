@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.benchmark;
+
+import io.github.azagniotov.lucene.analysis.ja.sudachi.tokenizer.SudachiTokenizerFactory;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.util.NoOpResourceLoader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.util.AttributeFactory;
+
+final class Analyzers {
+
+    private Analyzers() {}
+
+    /**
+     * Creates an analyzer made of a {@link io.github.azagniotov.lucene.analysis.ja.sudachi.tokenizer.SudachiTokenizer}
+     * followed by the given filter chain. The analyzer re-uses its components per thread, the same way
+     * they are re-used during indexing.
+     */
+    static Analyzer sudachi(final String mode, final UnaryOperator<TokenStream> filters) {
+        return new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(final String fieldName) {
+                final Tokenizer tokenizer = tokenizer(mode);
+                return new TokenStreamComponents(tokenizer, filters.apply(tokenizer));
+            }
+        };
+    }
+
+    static Tokenizer tokenizer(final String mode) {
+        final Map<String, String> args = new HashMap<>();
+        args.put("mode", mode);
+        args.put("discardPunctuation", "true");
+        final SudachiTokenizerFactory factory = new SudachiTokenizerFactory(args);
+        try {
+            factory.inform(new NoOpResourceLoader());
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return factory.create(AttributeFactory.DEFAULT_ATTRIBUTE_FACTORY);
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Japanese text corpora shared by the benchmarks. The files are the same ones that are used by the
+ * integration tests, see src/integrationTest/resources.
+ */
+public enum Corpus {
+    HISTORY_9MB("/9mb.japanese.history.large.content.txt"),
+    LARGE_TEXT("/large.japanese.text.txt");
+
+    private final String resource;
+    private volatile String text;
+
+    Corpus(final String resource) {
+        this.resource = resource;
+    }
+
+    /** @return the whole corpus as a single document */
+    public String text() {
+        if (this.text == null) {
+            this.text = load(this.resource);
+        }
+        return this.text;
+    }
+
+    /** @return the corpus split by line, where each non-blank line is treated as a separate document */
+    public List<String> documents() {
+        final List<String> documents = Arrays.stream(text().split("\\n"))
+                .filter(line -> !line.trim().isEmpty())
+                .collect(Collectors.toList());
+        return Collections.unmodifiableList(documents);
+    }
+
+    private static String load(final String resource) {
+        try (final InputStream inputStream = Corpus.class.getResourceAsStream(resource)) {
+            return new String(Objects.requireNonNull(inputStream, resource).readAllBytes(), StandardCharsets.UTF_8);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
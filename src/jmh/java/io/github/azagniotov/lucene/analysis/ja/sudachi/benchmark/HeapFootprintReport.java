@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.benchmark;
+
+import io.github.azagniotov.lucene.analysis.ja.sudachi.analyzer.SudachiAnalyzer;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.cache.DictionaryCache;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+
+/**
+ * Measures the retained heap of the Sudachi components:
+ *
+ * <ol>
+ *   <li>the shared dictionary, and separately the off-heap memory mapped by it
+ *   <li>one idle tokenizer, i.e.: never used
+ *   <li>one tokenizer after it analyzed the 9MB corpus as a single document
+ *   <li>an analyzer used by N threads across M fields, since Lucene keeps one set of the
+ *       TokenStreamComponents per thread per field
+ * </ol>
+ *
+ * <p>The retained heap is measured as the difference of the used heap after a full GC, while the
+ * measured objects are strongly reachable. Where possible, many instances are measured at once and
+ * the result is divided by the number of instances, to reduce the noise.
+ *
+ * <p>The report is printed and written as markdown to build/reports/heap-footprint.md
+ *
+ * <p>Usage: ./gradlew heapFootprintReport -Pthreads=200 -Pfields=20
+ */
+public final class HeapFootprintReport {
+
+    private static final int IDLE_TOKENIZERS = 200;
+    private static final int USED_TOKENIZERS = 4;
+    private static final String SHORT_TEXT = "ももたろうは日本のおとぎ話の一つ。";
+
+    private final List<String> rows = new ArrayList<>();
+
+    private HeapFootprintReport() {}
+
+    public static void main(final String[] args) throws Exception {
+        final int threads = Integer.getInteger("threads", 200);
+        final int fields = Integer.getInteger("fields", 20);
+        final Path reportFile = Paths.get(System.getProperty("reportFile", "build/reports/heap-footprint.md"));
+
+        final HeapFootprintReport report = new HeapFootprintReport();
+        report.measure(threads, fields);
+        report.publish(reportFile);
+    }
+
+    private void measure(final int threads, final int fields) throws Exception {
+        DictionaryCache.INSTANCE.invalidate();
+
+        final long heapBeforeDictionary = usedHeapAfterGc();
+        final long mappedBeforeDictionary = mappedBytes();
+        // Creating the first tokenizer loads the dictionary into the DictionaryCache
+        final Tokenizer first = Analyzers.tokenizer("search");
+        final long dictionaryHeap = usedHeapAfterGc() - heapBeforeDictionary;
+        final long dictionaryMapped = mappedBytes() - mappedBeforeDictionary;
+        add("Dictionary (on-heap, shared)", dictionaryHeap);
+        add("Dictionary (off-heap, memory mapped, shared)", dictionaryMapped);
+
+        final List<Tokenizer> idle = new ArrayList<>(IDLE_TOKENIZERS);
+        final long heapBeforeIdle = usedHeapAfterGc();
+        for (int idx = 0; idx < IDLE_TOKENIZERS; idx++) {
+            idle.add(Analyzers.tokenizer("search"));
+        }
+        add("One idle tokenizer", (usedHeapAfterGc() - heapBeforeIdle) / IDLE_TOKENIZERS);
+        idle.clear();
+
+        final String text = Corpus.HISTORY_9MB.text();
+        final List<Tokenizer> used = new ArrayList<>(USED_TOKENIZERS);
+        final long heapBeforeUsed = usedHeapAfterGc();
+        for (int idx = 0; idx < USED_TOKENIZERS; idx++) {
+            final Tokenizer tokenizer = Analyzers.tokenizer("search");
+            tokenizer.setReader(new StringReader(text));
+            TokenStreams.consume(tokenizer);
+            used.add(tokenizer);
+        }
+        add(
+                String.format(Locale.ROOT, "One tokenizer after a %,d chars document", text.length()),
+                (usedHeapAfterGc() - heapBeforeUsed) / USED_TOKENIZERS);
+        used.clear();
+
+        try (final Analyzer analyzer = new SudachiAnalyzer()) {
+            final CountDownLatch analyzed = new CountDownLatch(threads);
+            final CountDownLatch release = new CountDownLatch(1);
+            final long heapBeforeAnalyzer = usedHeapAfterGc();
+            final List<Thread> workers = new ArrayList<>(threads);
+            for (int idx = 0; idx < threads; idx++) {
+                final Thread worker = new Thread(() -> {
+                    try {
+                        for (int field = 0; field < fields; field++) {
+                            try (final TokenStream tokenStream = analyzer.tokenStream("field_" + field, SHORT_TEXT)) {
+                                tokenStream.reset();
+                                while (tokenStream.incrementToken()) {
+                                    // Consuming the stream, the tokens are not needed
+                                }
+                                tokenStream.end();
+                            }
+                        }
+                        analyzed.countDown();
+                        // Keeps the thread, and thus its TokenStreamComponents, alive while measuring
+                        release.await();
+                    } catch (final IOException | InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+                worker.start();
+                workers.add(worker);
+            }
+            analyzed.await();
+            final long analyzerHeap = usedHeapAfterGc() - heapBeforeAnalyzer;
+            release.countDown();
+            for (final Thread worker : workers) {
+                worker.join();
+            }
+
+            add(
+                    String.format(Locale.ROOT, "SudachiAnalyzer used by %d threads across %d fields", threads, fields),
+                    analyzerHeap);
+            add("SudachiAnalyzer per thread per field", analyzerHeap / ((long) threads * fields));
+        }
+
+        // Keeps the first tokenizer strongly reachable until the end of the measurements
+        first.close();
+    }
+
+    private void add(final String component, final long bytes) {
+        final String row = String.format(
+                Locale.ROOT, "| %-60s | %,16d | %,12.2f |", component, bytes, bytes / (1024.0 * 1024.0));
+        this.rows.add(row);
+        System.out.println(row);
+    }
+
+    private void publish(final Path reportFile) throws IOException {
+        final List<String> lines = new ArrayList<>();
+        lines.add("# Sudachi heap footprint");
+        lines.add("");
+        lines.add(String.format(
+                Locale.ROOT,
+                "JVM: %s %s, max heap: %,d MB",
+                System.getProperty("java.vm.name"),
+                System.getProperty("java.version"),
+                Runtime.getRuntime().maxMemory() / (1024 * 1024)));
+        lines.add("");
+        lines.add(String.format(Locale.ROOT, "| %-60s | %16s | %12s |", "Component", "Bytes", "MB"));
+        lines.add("|" + "-".repeat(62) + "|" + "-".repeat(18) + ":|" + "-".repeat(13) + ":|");
+        lines.addAll(this.rows);
+
+        Files.createDirectories(reportFile.toAbsolutePath().getParent());
+        Files.write(reportFile, lines, StandardCharsets.UTF_8);
+        System.out.println("Report written to " + reportFile.toAbsolutePath());
+    }
+
+    private static long usedHeapAfterGc() throws InterruptedException {
+        long used = Long.MAX_VALUE;
+        // A few rounds, since a single System.gc() does not guarantee that everything is collected
+        for (int round = 0; round < 5; round++) {
+            System.gc();
+            Thread.sleep(100);
+            final Runtime runtime = Runtime.getRuntime();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+
+    private static long mappedBytes() {
+        return ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> pool.getName().equals("mapped"))
+                .mapToLong(BufferPoolMXBean::getTotalCapacity)
+                .sum();
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.benchmark;
+
+import io.github.azagniotov.lucene.analysis.ja.sudachi.analyzer.SudachiAnalyzer;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.util.IOUtils;
+
+/**
+ * Indexes the 9MB corpus (each non-blank line is a document) into an {@link MMapDirectory} with
+ * 1..N threads sharing a single {@link IndexWriter} and a single {@link SudachiAnalyzer}, and
+ * prints docs/sec per thread count together with the scaling efficiency, i.e.: the speed-up
+ * relative to a single thread divided by the number of threads.
+ *
+ * <p>All the Sudachi tokenizers share one {@link com.worksap.nlp.sudachi.Dictionary} through the
+ * {@link io.github.azagniotov.lucene.analysis.ja.sudachi.cache.DictionaryCache}. To surface contention
+ * on it (or on its grammar), the indexing threads are sampled while they run: time spent blocked
+ * or waiting is reported per thread count, and the most frequent frames where the indexing threads
+ * were blocked are printed, flagging the ones that belong to Sudachi.
+ *
+ * <p>Usage: ./gradlew indexingScalingReport -PmaxThreads=32 -Prounds=2
+ */
+public final class IndexingScalingReport {
+
+    private static final String SUDACHI_PACKAGE = "com.worksap.nlp.sudachi";
+    private static final double EFFICIENCY_WARNING_THRESHOLD = 0.75;
+    private static final int SAMPLING_INTERVAL_MILLIS = 5;
+    private static final int SAMPLED_STACK_DEPTH = 32;
+    private static final int TOP_FRAMES = 5;
+
+    private final SudachiAnalyzer analyzer;
+    private final List<String> documents;
+    private final int rounds;
+    private final ThreadMXBean threadMXBean;
+
+    private IndexingScalingReport(final SudachiAnalyzer analyzer, final List<String> documents, final int rounds) {
+        this.analyzer = analyzer;
+        this.documents = documents;
+        this.rounds = rounds;
+        this.threadMXBean = ManagementFactory.getThreadMXBean();
+        if (this.threadMXBean.isThreadContentionMonitoringSupported()) {
+            this.threadMXBean.setThreadContentionMonitoringEnabled(true);
+        }
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final int maxThreads = Integer.getInteger("maxThreads", Runtime.getRuntime().availableProcessors());
+        final int rounds = Integer.getInteger("rounds", 1);
+
+        // The analyzer is shared by all the runs, because closing it invalidates the DictionaryCache
+        try (final SudachiAnalyzer analyzer = new SudachiAnalyzer()) {
+            final IndexingScalingReport report =
+                    new IndexingScalingReport(analyzer, Corpus.HISTORY_9MB.documents(), rounds);
+
+            // Warm-up run, which also loads the dictionary into the DictionaryCache
+            report.run(Math.min(2, maxThreads));
+            report.print(maxThreads);
+        }
+    }
+
+    private void print(final int maxThreads) throws Exception {
+        System.out.printf(
+                Locale.ROOT,
+                "%-8s %12s %12s %12s %12s%n", "Threads", "Docs/sec", "Speed-up", "Efficiency", "Blocked %");
+        double singleThreadDocsPerSecond = 0;
+        final List<Run> runs = new ArrayList<>();
+        for (int threads = 1; threads <= maxThreads; threads = nextThreadCount(threads, maxThreads)) {
+            final Run run = run(threads);
+            runs.add(run);
+            if (threads == 1) {
+                singleThreadDocsPerSecond = run.docsPerSecond();
+            }
+            final double speedUp = run.docsPerSecond() / singleThreadDocsPerSecond;
+            final double efficiency = speedUp / threads;
+            System.out.printf(
+                    Locale.ROOT,
+                    "%-8d %12.1f %12.2f %12.2f %12.2f%s%n",
+                    threads,
+                    run.docsPerSecond(),
+                    speedUp,
+                    efficiency,
+                    run.blockedPercentage(),
+                    efficiency < EFFICIENCY_WARNING_THRESHOLD ? "  <-- sub-linear scaling" : "");
+        }
+
+        final Run widest = runs.get(runs.size() - 1);
+        System.out.printf(
+                Locale.ROOT,
+                "%nMost frequent frames where indexing threads were blocked (%d threads):%n",
+                widest.threads);
+        widest.blockedFrames.entrySet().stream()
+                .sorted(Map.Entry.<String, LongAdder>comparingByValue(Comparator.comparingLong(LongAdder::sum))
+                        .reversed())
+                .limit(TOP_FRAMES)
+                .forEach(entry -> System.out.printf(
+                        Locale.ROOT,
+                        "%8d  %s%s%n",
+                        entry.getValue().sum(),
+                        entry.getKey(),
+                        entry.getKey().startsWith(SUDACHI_PACKAGE) ? "  <-- shared Sudachi state" : ""));
+    }
+
+    private static int nextThreadCount(final int threads, final int maxThreads) {
+        final int next = threads * 2;
+        return threads < maxThreads && next > maxThreads ? maxThreads : next;
+    }
+
+    private Run run(final int threads) throws Exception {
+        final Path indexDirectory = Files.createTempDirectory("sudachi-indexing-scaling");
+        final Run run = new Run(threads);
+        final AtomicInteger nextDocument = new AtomicInteger();
+        final int totalDocuments = this.documents.size() * this.rounds;
+        final CountDownLatch done = new CountDownLatch(threads);
+        final List<Thread> workers = new ArrayList<>();
+
+        try (final MMapDirectory directory = new MMapDirectory(indexDirectory)) {
+            final IndexWriterConfig indexWriterConfig = new IndexWriterConfig(this.analyzer);
+            indexWriterConfig.setOpenMode(IndexWriterConfig.OpenMode.CREATE);
+            indexWriterConfig.setRAMBufferSizeMB(256);
+
+            try (final IndexWriter indexWriter = new IndexWriter(directory, indexWriterConfig)) {
+                for (int idx = 0; idx < threads; idx++) {
+                    final Thread worker = new Thread(
+                            () -> {
+                                try {
+                                    int current;
+                                    while ((current = nextDocument.getAndIncrement()) < totalDocuments) {
+                                        indexWriter.addDocument(createDocument(current));
+                                    }
+                                } catch (final IOException e) {
+                                    throw new UncheckedIOException(e);
+                                } finally {
+                                    run.recordBlockedTime(
+                                            this.threadMXBean.getThreadInfo(Thread.currentThread().getId()));
+                                    done.countDown();
+                                }
+                            },
+                            "sudachi-indexer-" + idx);
+                    workers.add(worker);
+                }
+
+                final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+                final long startNanos = System.nanoTime();
+                workers.forEach(Thread::start);
+                sampler.scheduleAtFixedRate(
+                        () -> sample(workers, run), 0, SAMPLING_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                done.await();
+                run.elapsedNanos = System.nanoTime() - startNanos;
+                sampler.shutdownNow();
+
+                for (final Thread worker : workers) {
+                    worker.join();
+                }
+                indexWriter.commit();
+            }
+            run.documents = totalDocuments;
+        } finally {
+            IOUtils.rm(indexDirectory);
+        }
+
+        return run;
+    }
+
+    private void sample(final List<Thread> workers, final Run run) {
+        for (final Thread worker : workers) {
+            final ThreadInfo threadInfo = this.threadMXBean.getThreadInfo(worker.getId(), SAMPLED_STACK_DEPTH);
+            if (threadInfo == null) {
+                continue;
+            }
+            final Thread.State state = threadInfo.getThreadState();
+            if (state == Thread.State.BLOCKED
+                    || state == Thread.State.WAITING
+                    || state == Thread.State.TIMED_WAITING) {
+                run.blockedFrames
+                        .computeIfAbsent(firstApplicationFrame(threadInfo), key -> new LongAdder())
+                        .increment();
+            }
+        }
+    }
+
+    /** @return the first stack frame that does not belong to the JDK, i.e.: the caller of a lock or a wait */
+    private static String firstApplicationFrame(final ThreadInfo threadInfo) {
+        for (final StackTraceElement frame : threadInfo.getStackTrace()) {
+            final String className = frame.getClassName();
+            if (!className.startsWith("java.") && !className.startsWith("jdk.") && !className.startsWith("sun.")) {
+                return className + "." + frame.getMethodName();
+            }
+        }
+        return "<jdk>";
+    }
+
+    private Document createDocument(final int current) {
+        final Document document = new Document();
+        document.add(new StringField("id", String.valueOf(current), Field.Store.YES));
+        document.add(new TextField("content", this.documents.get(current % this.documents.size()), Field.Store.NO));
+        return document;
+    }
+
+    private static final class Run {
+        private final int threads;
+        private final Map<String, LongAdder> blockedFrames = new ConcurrentHashMap<>();
+        private final LongAdder blockedMillis = new LongAdder();
+        private long elapsedNanos;
+        private int documents;
+
+        private Run(final int threads) {
+            this.threads = threads;
+        }
+
+        private void recordBlockedTime(final ThreadInfo threadInfo) {
+            // Blocked and waited times are -1 when thread contention monitoring is not supported
+            if (threadInfo != null && threadInfo.getBlockedTime() >= 0) {
+                this.blockedMillis.add(threadInfo.getBlockedTime() + threadInfo.getWaitedTime());
+            }
+        }
+
+        private double docsPerSecond() {
+            return this.documents / (this.elapsedNanos / 1_000_000_000.0);
+        }
+
+        private double blockedPercentage() {
+            final double elapsedMillis = this.elapsedNanos / 1_000_000.0;
+            return this.blockedMillis.sum() * 100.0 / (elapsedMillis * this.threads);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.benchmark;
+
+import io.github.azagniotov.lucene.analysis.ja.sudachi.analyzer.SudachiAnalyzer;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.ja.JapaneseAnalyzer;
+
+/**
+ * Japanese analyzers compared side-by-side. Both analyzers are created with their defaults, i.e.:
+ * search mode, default stop words and default stop tags.
+ */
+public enum JapaneseAnalyzerType {
+    SUDACHI {
+        @Override
+        public Analyzer create() {
+            return new SudachiAnalyzer();
+        }
+    },
+    KUROMOJI {
+        @Override
+        public Analyzer create() {
+            return new JapaneseAnalyzer();
+        }
+    };
+
+    public abstract Analyzer create();
+}
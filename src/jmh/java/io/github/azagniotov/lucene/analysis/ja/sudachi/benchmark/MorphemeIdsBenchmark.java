@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.benchmark;
+
+import com.worksap.nlp.sudachi.Morpheme;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.attributes.SudachiMorphemeAttribute;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.attributes.SudachiMorphemeIdsAttribute;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.FilteringTokenFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a filter which reads the part-of-speech id of every token, either from the ids that the
+ * {@link io.github.azagniotov.lucene.analysis.ja.sudachi.tokenizer.SudachiTokenizer} has buffered per
+ * sentence ({@code MORPHEME_IDS}), or from the {@link Morpheme} of the token ({@code MORPHEME}). Run
+ * it with {@link AllocationPerTokenProfiler} to compare "alloc.bytes.per.token" of both sources.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class MorphemeIdsBenchmark {
+
+    public enum Source {
+        MORPHEME_IDS(MorphemeIdsFilter::new),
+        MORPHEME(MorphemeFilter::new);
+
+        private final UnaryOperator<TokenStream> filter;
+
+        Source(final UnaryOperator<TokenStream> filter) {
+            this.filter = filter;
+        }
+    }
+
+    @Param
+    public Source source;
+
+    @Param({"HISTORY_9MB", "LARGE_TEXT"})
+    public Corpus corpus;
+
+    private Analyzer analyzer;
+    private String text;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.analyzer = Analyzers.sudachi("search", this.source.filter);
+        this.text = this.corpus.text();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.analyzer.close();
+    }
+
+    @Benchmark
+    public long readPartOfSpeechId(final AnalysisCounters counters) throws IOException {
+        return counters.consume(this.analyzer.tokenStream("content", this.text), this.text.length());
+    }
+
+    private static final class MorphemeIdsFilter extends FilteringTokenFilter {
+
+        private final SudachiMorphemeIdsAttribute morphemeIdsAtt = addAttribute(SudachiMorphemeIdsAttribute.class);
+
+        MorphemeIdsFilter(final TokenStream input) {
+            super(input);
+        }
+
+        @Override
+        protected boolean accept() {
+            return morphemeIdsAtt.getPartOfSpeechId() >= 0;
+        }
+    }
+
+    private static final class MorphemeFilter extends FilteringTokenFilter {
+
+        private final SudachiMorphemeAttribute morphemeAtt = addAttribute(SudachiMorphemeAttribute.class);
+
+        MorphemeFilter(final TokenStream input) {
+            super(input);
+        }
+
+        @Override
+        protected boolean accept() {
+            return morphemeAtt.getValue().map(Morpheme::partOfSpeechId).orElse((short) -1) >= 0;
+        }
+    }
+}
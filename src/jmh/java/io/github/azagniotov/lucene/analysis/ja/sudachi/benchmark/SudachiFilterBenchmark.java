@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.benchmark;
+
+import io.github.azagniotov.lucene.analysis.ja.sudachi.filters.SudachiBaseFormFilter;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.filters.SudachiJapaneseHiraganaUppercaseFilter;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.filters.SudachiJapaneseKatakanaUppercaseFilter;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.filters.SudachiKatakanaStemFilter;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.filters.SudachiNormalizedFormFilter;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.filters.SudachiPartOfSpeechStopFilterFactory;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures each Sudachi filter placed directly after a {@link
+ * io.github.azagniotov.lucene.analysis.ja.sudachi.tokenizer.SudachiTokenizer} in the "search" mode.
+ * The cost of a filter is the difference with the "search" mode result of {@link
+ * SudachiTokenizerBenchmark} on the same corpus.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class SudachiFilterBenchmark {
+
+    public enum Filter {
+        BASE_FORM(SudachiBaseFormFilter::new),
+        NORMALIZED_FORM(SudachiNormalizedFormFilter::new),
+        PART_OF_SPEECH_STOP(stream -> new SudachiPartOfSpeechStopFilterFactory(new HashMap<>()).create(stream)),
+        KATAKANA_STEM(SudachiKatakanaStemFilter::new),
+        HIRAGANA_UPPERCASE(SudachiJapaneseHiraganaUppercaseFilter::new),
+        KATAKANA_UPPERCASE(SudachiJapaneseKatakanaUppercaseFilter::new);
+
+        private final UnaryOperator<TokenStream> filter;
+
+        Filter(final UnaryOperator<TokenStream> filter) {
+            this.filter = filter;
+        }
+    }
+
+    @Param
+    public Filter filter;
+
+    @Param({"HISTORY_9MB", "LARGE_TEXT"})
+    public Corpus corpus;
+
+    private Analyzer analyzer;
+    private String text;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.analyzer = Analyzers.sudachi("search", this.filter.filter);
+        this.text = this.corpus.text();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.analyzer.close();
+    }
+
+    @Benchmark
+    public long filter(final AnalysisCounters counters) throws IOException {
+        return counters.consume(this.analyzer.tokenStream("content", this.text), this.text.length());
+    }
+}
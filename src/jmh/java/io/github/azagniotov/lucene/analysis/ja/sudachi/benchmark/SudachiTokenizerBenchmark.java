@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+import org.apache.lucene.analysis.Analyzer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the bare {@link io.github.azagniotov.lucene.analysis.ja.sudachi.tokenizer.SudachiTokenizer}
+ * throughput in each tokenizer mode. The results of this benchmark are the baseline for {@link
+ * SudachiFilterBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class SudachiTokenizerBenchmark {
+
+    @Param({"search", "normal", "extended"})
+    public String mode;
+
+    @Param({"HISTORY_9MB", "LARGE_TEXT"})
+    public Corpus corpus;
+
+    private Analyzer analyzer;
+    private String text;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.analyzer = Analyzers.sudachi(this.mode, UnaryOperator.identity());
+        this.text = this.corpus.text();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.analyzer.close();
+    }
+
+    @Benchmark
+    public long tokenize(final AnalysisCounters counters) throws IOException {
+        return counters.consume(this.analyzer.tokenStream("content", this.text), this.text.length());
+    }
+}
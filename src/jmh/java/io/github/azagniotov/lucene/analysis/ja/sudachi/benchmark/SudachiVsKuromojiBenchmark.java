@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.lucene.analysis.Analyzer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Runs {@link io.github.azagniotov.lucene.analysis.ja.sudachi.analyzer.SudachiAnalyzer} and Lucene
+ * Kuromoji {@link org.apache.lucene.analysis.ja.JapaneseAnalyzer} over the same documents, where
+ * each non-blank line of a corpus is a document.
+ *
+ * <p>The "throughput" benchmark reports documents/sec, chars/sec and tokens/sec. The "latency"
+ * benchmark samples per-document analysis time, for which JMH reports the p0.50, p0.99 and p0.999
+ * percentiles.
+ *
+ * <p>Token count and term dictionary size differences are deterministic, thus they are not measured
+ * here, see {@link AnalyzerComparisonReport}.
+ */
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Thread)
+public class SudachiVsKuromojiBenchmark {
+
+    @Param
+    public JapaneseAnalyzerType analyzerType;
+
+    @Param({"HISTORY_9MB", "LARGE_TEXT"})
+    public Corpus corpus;
+
+    private Analyzer analyzer;
+    private List<String> documents;
+    private int current;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.analyzer = this.analyzerType.create();
+        this.documents = this.corpus.documents();
+        this.current = 0;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.analyzer.close();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public long throughput(final AnalysisCounters counters) throws IOException {
+        final String document = nextDocument();
+        return counters.consume(this.analyzer.tokenStream("content", document), document.length());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long latency() throws IOException {
+        // Auxiliary counters are not supported in the SampleTime mode
+        return TokenStreams.consume(this.analyzer.tokenStream("content", nextDocument()));
+    }
+
+    private String nextDocument() {
+        final String document = this.documents.get(this.current);
+        this.current = (this.current + 1) % this.documents.size();
+        return document;
+    }
+}
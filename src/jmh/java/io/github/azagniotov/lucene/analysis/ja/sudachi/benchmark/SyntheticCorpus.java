@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.benchmark;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Generates arbitrarily large Japanese text by recombining the sentences of the test corpora in a
+ * random, but reproducible (i.e.: seeded), order. The text is generated lazily, so multi-GB inputs
+ * never have to be held in memory.
+ *
+ * <p>Writing a generated corpus to a file, one document per line:
+ *
+ * <pre>
+ * ./gradlew generateCorpus -Psize=2g -Poutput=/tmp/sudachi-corpus.txt
+ * </pre>
+ */
+public final class SyntheticCorpus {
+
+    // Splits after a sentence terminator, keeping the terminator with its sentence
+    private static final Pattern SENTENCE_BOUNDARY = Pattern.compile("(?<=[。！？!?])|\\n");
+
+    private final List<String> sentences;
+    private final SplittableRandom random;
+
+    public SyntheticCorpus(final List<String> sentences, final long seed) {
+        if (sentences.isEmpty()) {
+            throw new IllegalArgumentException("At least one sentence is required");
+        }
+        this.sentences = sentences;
+        this.random = new SplittableRandom(seed);
+    }
+
+    /** @return a corpus made of the sentences from all the {@link Corpus} test resources */
+    public static SyntheticCorpus fromTestResources(final long seed) {
+        final List<String> sentences = new ArrayList<>();
+        for (final Corpus corpus : Corpus.values()) {
+            for (final String sentence : SENTENCE_BOUNDARY.split(corpus.text())) {
+                final String trimmed = sentence.trim();
+                if (!trimmed.isEmpty()) {
+                    sentences.add(trimmed);
+                }
+            }
+        }
+        return new SyntheticCorpus(Collections.unmodifiableList(sentences), seed);
+    }
+
+    public String nextSentence() {
+        return this.sentences.get(this.random.nextInt(this.sentences.size()));
+    }
+
+    /** @return a document made of a random number of sentences, between the given bounds inclusive */
+    public String nextDocument(final int minSentences, final int maxSentences) {
+        final int count = minSentences + this.random.nextInt(maxSentences - minSentences + 1);
+        final StringBuilder document = new StringBuilder();
+        for (int idx = 0; idx < count; idx++) {
+            document.append(nextSentence());
+        }
+        return document.toString();
+    }
+
+    /** @return a reader which lazily generates exactly the given number of chars */
+    public Reader reader(final long totalChars) {
+        return new Reader() {
+            private long remaining = totalChars;
+            private String sentence = "";
+            private int position = 0;
+
+            @Override
+            public int read(final char[] buffer, final int offset, final int length) {
+                if (this.remaining == 0) {
+                    return -1;
+                }
+                if (length == 0) {
+                    return 0;
+                }
+                if (this.position == this.sentence.length()) {
+                    this.sentence = nextSentence();
+                    this.position = 0;
+                }
+                final int count = (int) Math.min(
+                        Math.min(length, this.sentence.length() - this.position), this.remaining);
+                this.sentence.getChars(this.position, this.position + count, buffer, offset);
+                this.position += count;
+                this.remaining -= count;
+                return count;
+            }
+
+            @Override
+            public void close() {
+                this.remaining = 0;
+            }
+        };
+    }
+
+    /**
+     * Writes documents (one per line) of 1 to 20 sentences to the given file, until at least the given
+     * number of UTF-8 bytes has been written.
+     *
+     * @return number of written documents
+     */
+    public long write(final Path path, final long totalBytes) throws IOException {
+        long documents = 0;
+        long written = 0;
+        try (final Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            while (written < totalBytes) {
+                final String document = nextDocument(1, 20);
+                writer.write(document);
+                writer.write('\n');
+                written += document.getBytes(StandardCharsets.UTF_8).length + 1;
+                documents++;
+            }
+        }
+        return documents;
+    }
+
+    public static void main(final String[] args) throws IOException {
+        final long totalBytes = parseSize(System.getProperty("size", "1m"));
+        final Path output = Paths.get(System.getProperty("output", "build/corpus/synthetic.japanese.txt"));
+        final long seed = Long.getLong("seed", 42L);
+
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        final long documents = fromTestResources(seed).write(output, totalBytes);
+        System.out.printf(
+                Locale.ROOT, "Wrote %,d documents (%,d bytes) to %s%n", documents, Files.size(output), output);
+    }
+
+    /** Parses sizes like 512k, 1m or 2g into bytes */
+    static long parseSize(final String size) {
+        final String value = size.trim().toLowerCase(Locale.ROOT);
+        final char unit = value.charAt(value.length() - 1);
+        switch (unit) {
+            case 'k':
+                return Long.parseLong(value.substring(0, value.length() - 1)) * 1024L;
+            case 'm':
+                return Long.parseLong(value.substring(0, value.length() - 1)) * 1024L * 1024L;
+            case 'g':
+                return Long.parseLong(value.substring(0, value.length() - 1)) * 1024L * 1024L * 1024L;
+            default:
+                return Long.parseLong(value);
+        }
+    }
+}
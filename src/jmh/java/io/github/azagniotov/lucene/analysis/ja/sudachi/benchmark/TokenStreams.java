@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.benchmark;
+
+import java.io.IOException;
+import org.apache.lucene.analysis.TokenStream;
+
+final class TokenStreams {
+
+    private TokenStreams() {}
+
+    /**
+     * Consumes the given token stream following the TokenStream API workflow: reset(),
+     * incrementToken() until it returns false, end() and close().
+     *
+     * @return number of emitted tokens
+     */
+    static long consume(final TokenStream tokenStream) throws IOException {
+        long tokens = 0;
+        try (final TokenStream stream = tokenStream) {
+            stream.reset();
+            while (stream.incrementToken()) {
+                tokens++;
+            }
+            stream.end();
+        }
+        return tokens;
+    }
+}
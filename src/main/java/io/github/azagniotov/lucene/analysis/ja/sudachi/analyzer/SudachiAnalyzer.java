@@ -25,6 +25,7 @@ import io.github.azagniotov.lucene.analysis.ja.sudachi.filters.SudachiKatakanaSt
 import io.github.azagniotov.lucene.analysis.ja.sudachi.filters.SudachiPartOfSpeechStopFilterFactory;
 import io.github.azagniotov.lucene.analysis.ja.sudachi.tokenizer.SudachiTokenizer;
 import io.github.azagniotov.lucene.analysis.ja.sudachi.tokenizer.SudachiTokenizerFactory;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.tokenizer.TokenizerProfile;
 import io.github.azagniotov.lucene.analysis.ja.sudachi.util.NoOpResourceLoader;
 import io.github.azagniotov.lucene.analysis.ja.sudachi.util.StopTags;
 import io.github.azagniotov.lucene.analysis.ja.sudachi.util.StopWords;
@@ -57,6 +58,9 @@ public class SudachiAnalyzer extends StopwordAnalyzerBase {
     private final String mode;
     private final List<PartialPOS> stoptags;
     private final boolean discardPunctuation;
+    private final String profile;
+    private final int maxTokens;
+    private final int maxChars;
 
     public SudachiAnalyzer() {
         this(getDefaultStopSet(), getDefaultStopTags(), true, "search");
@@ -67,10 +71,43 @@ public class SudachiAnalyzer extends StopwordAnalyzerBase {
             final List<PartialPOS> stoptags,
             final boolean discardPunctuation,
             final String mode) {
+        this(stopwords, stoptags, discardPunctuation, mode, TokenizerProfile.ANALYSIS.desc());
+    }
+
+    /**
+     * @param profile "indexing" to skip the morphological attributes, which only the Solr field
+     *     analysis screen/API needs, or "analysis" to always fill them
+     * @see TokenizerProfile
+     */
+    public SudachiAnalyzer(
+            final CharArraySet stopwords,
+            final List<PartialPOS> stoptags,
+            final boolean discardPunctuation,
+            final String mode,
+            final String profile) {
+        this(stopwords, stoptags, discardPunctuation, mode, profile, 0, 0);
+    }
+
+    /**
+     * @param maxTokens max number of tokens analyzed per document, or 0 to analyze all of them. Unlike
+     *     a {@code LimitTokenCountFilter}, the rest of the document is not analyzed at all
+     * @param maxChars max number of chars analyzed per document, or 0 to analyze all of them
+     */
+    public SudachiAnalyzer(
+            final CharArraySet stopwords,
+            final List<PartialPOS> stoptags,
+            final boolean discardPunctuation,
+            final String mode,
+            final String profile,
+            final int maxTokens,
+            final int maxChars) {
         super(stopwords);
         this.stoptags = stoptags;
         this.discardPunctuation = discardPunctuation;
         this.mode = mode;
+        this.profile = profile;
+        this.maxTokens = maxTokens;
+        this.maxChars = maxChars;
     }
 
     public static CharArraySet getDefaultStopSet() {
@@ -107,7 +144,7 @@ public class SudachiAnalyzer extends StopwordAnalyzerBase {
     protected TokenStreamComponents createComponents(final String fieldName) {
         try {
             final Map<String, String> emptyArgs = new HashMap<>();
-            Tokenizer tokenizer = createTokenizer(emptyArgs);
+            Tokenizer tokenizer = createTokenizer(fieldName);
             TokenStream stream = tokenizer;
 
             stream = new SudachiBaseFormFilterFactory(emptyArgs).create(stream);
@@ -143,11 +180,15 @@ public class SudachiAnalyzer extends StopwordAnalyzerBase {
         DictionaryCache.INSTANCE.invalidate();
     }
 
-    private Tokenizer createTokenizer(final Map<String, String> args) throws IOException {
+    private Tokenizer createTokenizer(final String fieldName) throws IOException {
 
-        final Map<String, String> map = new HashMap<>(args);
+        final Map<String, String> map = new HashMap<>();
         map.put("mode", this.mode);
         map.put("discardPunctuation", String.valueOf(this.discardPunctuation));
+        map.put("metricsField", fieldName);
+        map.put("profile", this.profile);
+        map.put("maxTokens", String.valueOf(this.maxTokens));
+        map.put("maxChars", String.valueOf(this.maxChars));
         final SudachiTokenizerFactory factory = new SudachiTokenizerFactory(map);
         factory.inform(new NoOpResourceLoader());
 
@@ -0,0 +1,339 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.analyzer;
+
+import io.github.azagniotov.lucene.analysis.ja.sudachi.attributes.SudachiMorphemeIdsAttribute;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.metrics.SudachiMetrics;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.FlagsAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.PayloadAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionLengthAttribute;
+import org.apache.lucene.analysis.tokenattributes.TypeAttribute;
+
+/**
+ * Analyzes many documents at once, e.g.: titles or reviews in an offline pipeline, into compact
+ * {@link SudachiTokens}, instead of one {@link TokenStream} per document driven by the caller.
+ *
+ * <p>The documents are analyzed in parallel on a bounded pool, each pool thread reusing its own
+ * token stream of the {@link Analyzer}. Short documents are micro-batched: consecutive documents of
+ * up to {@code microBatchChars} chars in total are joined by a paragraph break, at which Sudachi ends a
+ * sentence, and analyzed by one pass of the token stream. The tokens are then assigned to their
+ * documents by their offsets, and the tokens of the paragraph breaks are dropped. Thus {@code reset()},
+ * the sentence iterator and the sentence detection are paid once per micro-batch. A document is
+ * tokenized as if it were followed by a paragraph break, and one whose brackets are not closed is
+ * never micro-batched, since Sudachi does not end a sentence within brackets.
+ *
+ * <p>The tokens of a micro-batch are the same as those of its documents analyzed one by one, otherwise
+ * the documents of the micro-batch are analyzed one by one. That is the case when a token spans two
+ * documents, when the per-document limits of the tokenizer ({@code maxTokens}, {@code maxChars},
+ * {@code maxAnalysisMillis}) have cut the micro-batch, and when the position increment of the first
+ * token of a document is not known, i.e.: a filter has removed tokens at the end of the previous
+ * document, or at the start of this one. Thus micro-batching pays off for the documents, which are
+ * shorter than the limits. The tokenizer must detect the sentences, i.e.: its {@code shortInputLength}
+ * must not be set, unless micro-batching is disabled.
+ *
+ * <p>A micro-batch is analyzed as one input, thus it is left out of the per-document analysis metrics
+ * and JFR events of the tokenizer, see {@link SudachiMetrics#suspendDocumentMetrics()}. The documents
+ * analyzed one by one, including those of a micro-batch whose tokens differ, are recorded as usual.
+ */
+public final class SudachiBatchAnalyzer implements Closeable {
+
+    public static final int DEFAULT_MICRO_BATCH_CHARS = 4096;
+
+    static final String SEPARATOR = "\n\n";
+
+    private final Analyzer analyzer;
+    private final String fieldName;
+    private final int microBatchChars;
+    private final ForkJoinPool pool;
+    private final boolean ownsPool;
+
+    public SudachiBatchAnalyzer(final Analyzer analyzer, final String fieldName, final int parallelism) {
+        this(analyzer, fieldName, parallelism, DEFAULT_MICRO_BATCH_CHARS);
+    }
+
+    /**
+     * @param analyzer e.g.: {@link SudachiAnalyzer}, which is not closed by this batch analyzer
+     * @param fieldName the field name passed to the analyzer
+     * @param parallelism max number of the analysis threads
+     * @param microBatchChars max length in chars of a micro-batch, or 0 to analyze each document alone
+     */
+    public SudachiBatchAnalyzer(
+            final Analyzer analyzer, final String fieldName, final int parallelism, final int microBatchChars) {
+        this(analyzer, fieldName, newPool(parallelism), microBatchChars, true);
+    }
+
+    /**
+     * @param pool the pool shared with other batch analyzers, which is not shut down by {@link #close()}
+     */
+    public SudachiBatchAnalyzer(
+            final Analyzer analyzer, final String fieldName, final ForkJoinPool pool, final int microBatchChars) {
+        this(analyzer, fieldName, pool, microBatchChars, false);
+    }
+
+    private SudachiBatchAnalyzer(
+            final Analyzer analyzer,
+            final String fieldName,
+            final ForkJoinPool pool,
+            final int microBatchChars,
+            final boolean ownsPool) {
+        if (microBatchChars < 0) {
+            throw new IllegalArgumentException("microBatchChars must not be negative: " + microBatchChars);
+        }
+        this.analyzer = analyzer;
+        this.fieldName = fieldName;
+        this.microBatchChars = microBatchChars;
+        this.pool = pool;
+        this.ownsPool = ownsPool;
+    }
+
+    /** @return a bounded pool, whose threads are named after the batch analysis */
+    public static ForkJoinPool newPool(final int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        }
+        return new ForkJoinPool(parallelism, SudachiBatchAnalyzer::newWorkerThread, null, false);
+    }
+
+    private static ForkJoinWorkerThread newWorkerThread(final ForkJoinPool pool) {
+        final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("sudachi-batch-analysis-" + thread.getPoolIndex());
+        return thread;
+    }
+
+    /**
+     * @return the tokens of each document, in the order of the documents
+     * @throws UncheckedIOException when the analysis of a document has failed
+     */
+    public List<SudachiTokens> analyze(final List<? extends CharSequence> documents) {
+        final SudachiTokens[] analyzed = new SudachiTokens[documents.size()];
+        final List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        int from = 0;
+        while (from < documents.size()) {
+            final int batchFrom = from;
+            final int batchTo = microBatchEnd(documents, from);
+            tasks.add(this.pool.submit(() -> analyzeMicroBatch(documents, batchFrom, batchTo, analyzed)));
+            from = batchTo;
+        }
+        for (final ForkJoinTask<?> task : tasks) {
+            // Rethrows the exception, if the analysis has failed
+            task.join();
+        }
+        return Arrays.asList(analyzed);
+    }
+
+    /** @return the index after the last document of the micro-batch, which starts at the given index */
+    int microBatchEnd(final List<? extends CharSequence> documents, final int from) {
+        int length = documents.get(from).length();
+        int to = from + 1;
+        if (!canBeMicroBatched(documents.get(from))) {
+            return to;
+        }
+        while (to < documents.size() && canBeMicroBatched(documents.get(to))) {
+            length += SEPARATOR.length() + documents.get(to).length();
+            if (length > this.microBatchChars) {
+                break;
+            }
+            to++;
+        }
+        return to;
+    }
+
+    private boolean canBeMicroBatched(final CharSequence document) {
+        return document.length() < this.microBatchChars && closesItsBrackets(document);
+    }
+
+    static boolean closesItsBrackets(final CharSequence document) {
+        int depth = 0;
+        for (int idx = 0; idx < document.length(); idx++) {
+            final int type = Character.getType(document.charAt(idx));
+            if (type == Character.START_PUNCTUATION) {
+                depth++;
+            } else if (type == Character.END_PUNCTUATION) {
+                depth = Math.max(0, depth - 1);
+            }
+        }
+        return depth == 0;
+    }
+
+    private void analyzeMicroBatch(
+            final List<? extends CharSequence> documents,
+            final int from,
+            final int to,
+            final SudachiTokens[] analyzed) {
+        try {
+            if (to - from == 1 || !analyzeJoined(documents, from, to, analyzed)) {
+                for (int idx = from; idx < to; idx++) {
+                    analyzed[idx] = analyzeOne(documents.get(idx));
+                }
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return false when the tokens differ from those of the documents analyzed one by one, see the
+     *     class doc
+     */
+    private boolean analyzeJoined(
+            final List<? extends CharSequence> documents,
+            final int from,
+            final int to,
+            final SudachiTokens[] analyzed)
+            throws IOException {
+        final int count = to - from;
+        final int[] starts = new int[count];
+        final int[] ends = new int[count];
+        final StringBuilder text = new StringBuilder();
+        for (int idx = 0; idx < count; idx++) {
+            if (idx > 0) {
+                text.append(SEPARATOR);
+            }
+            starts[idx] = text.length();
+            text.append(documents.get(from + idx));
+            ends[idx] = text.length();
+        }
+
+        final SudachiTokens.Builder[] builders = new SudachiTokens.Builder[count];
+        for (int idx = 0; idx < count; idx++) {
+            builders[idx] = new SudachiTokens.Builder();
+        }
+        SudachiMetrics.INSTANCE.suspendDocumentMetrics();
+        try (TokenStream stream = this.analyzer.tokenStream(this.fieldName, text.toString())) {
+            final CharTermAttribute termAtt = stream.addAttribute(CharTermAttribute.class);
+            final OffsetAttribute offsetAtt = stream.addAttribute(OffsetAttribute.class);
+            final PositionIncrementAttribute posIncAtt = stream.addAttribute(PositionIncrementAttribute.class);
+            final PositionLengthAttribute posLenAtt = stream.addAttribute(PositionLengthAttribute.class);
+            final TypeAttribute typeAtt = stream.addAttribute(TypeAttribute.class);
+            final FlagsAttribute flagsAtt = stream.addAttribute(FlagsAttribute.class);
+            final PayloadAttribute payloadAtt = stream.addAttribute(PayloadAttribute.class);
+            final SudachiMorphemeIdsAttribute idsAtt = stream.addAttribute(SudachiMorphemeIdsAttribute.class);
+            stream.reset();
+            int document = 0;
+            // The document of the last token, which is not one of a paragraph break
+            int lastDocument = -1;
+            boolean differs = false;
+            while (!differs && stream.incrementToken()) {
+                final int startOffset = offsetAtt.startOffset();
+                final int endOffset = offsetAtt.endOffset();
+                final int positionIncrement = posIncAtt.getPositionIncrement();
+                while (document < count && startOffset >= ends[document]) {
+                    document++;
+                }
+                if (document == count || startOffset < starts[document]) {
+                    // A token of a paragraph break, which may carry the positions removed before it
+                    differs = positionIncrement > 1;
+                    continue;
+                }
+                final SudachiTokens.Builder builder = builders[document];
+                // The position increment of the first token of a document is the same as when the
+                // document is analyzed alone, only when no positions have been removed before it
+                if (endOffset > ends[document] || (document > 0 && builder.size() == 0 && positionIncrement > 1)) {
+                    differs = true;
+                } else {
+                    builder.add(
+                            termAtt,
+                            startOffset - starts[document],
+                            endOffset - starts[document],
+                            positionIncrement,
+                            posLenAtt.getPositionLength(),
+                            typeAtt.type(),
+                            flagsAtt.getFlags(),
+                            payloadAtt.getPayload(),
+                            idsAtt.getPartOfSpeechId());
+                    lastDocument = document;
+                }
+            }
+            stream.end();
+            final int finalPositionIncrement = posIncAtt.getPositionIncrement();
+            // The final offset is cut by the limits of the tokenizer, and the positions removed at the
+            // end belong to the last document only when it has a token
+            if (differs
+                    || offsetAtt.endOffset() < text.length()
+                    || (finalPositionIncrement > 0 && lastDocument < count - 1)) {
+                return false;
+            }
+            for (int idx = 0; idx < count - 1; idx++) {
+                analyzed[from + idx] = builders[idx].build(ends[idx] - starts[idx], 0);
+            }
+            analyzed[to - 1] = builders[count - 1].build(ends[count - 1] - starts[count - 1], finalPositionIncrement);
+        } finally {
+            SudachiMetrics.INSTANCE.resumeDocumentMetrics();
+        }
+        return true;
+    }
+
+    private SudachiTokens analyzeOne(final CharSequence document) throws IOException {
+        if (document.length() == 0) {
+            return SudachiTokens.EMPTY;
+        }
+        final SudachiTokens.Builder builder = new SudachiTokens.Builder();
+        try (TokenStream stream = this.analyzer.tokenStream(this.fieldName, document.toString())) {
+            final CharTermAttribute termAtt = stream.addAttribute(CharTermAttribute.class);
+            final OffsetAttribute offsetAtt = stream.addAttribute(OffsetAttribute.class);
+            final PositionIncrementAttribute posIncAtt = stream.addAttribute(PositionIncrementAttribute.class);
+            final PositionLengthAttribute posLenAtt = stream.addAttribute(PositionLengthAttribute.class);
+            final TypeAttribute typeAtt = stream.addAttribute(TypeAttribute.class);
+            final FlagsAttribute flagsAtt = stream.addAttribute(FlagsAttribute.class);
+            final PayloadAttribute payloadAtt = stream.addAttribute(PayloadAttribute.class);
+            final SudachiMorphemeIdsAttribute idsAtt = stream.addAttribute(SudachiMorphemeIdsAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                builder.add(
+                        termAtt,
+                        offsetAtt.startOffset(),
+                        offsetAtt.endOffset(),
+                        posIncAtt.getPositionIncrement(),
+                        posLenAtt.getPositionLength(),
+                        typeAtt.type(),
+                        flagsAtt.getFlags(),
+                        payloadAtt.getPayload(),
+                        idsAtt.getPartOfSpeechId());
+            }
+            stream.end();
+            return builder.build(offsetAtt.endOffset(), posIncAtt.getPositionIncrement());
+        }
+    }
+
+    /** Stops the analysis threads of its own pool, once the documents which have been submitted are analyzed */
+    @Override
+    public void close() {
+        if (!this.ownsPool) {
+            return;
+        }
+        this.pool.shutdown();
+        try {
+            this.pool.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.analyzer;
+
+import io.github.azagniotov.lucene.analysis.ja.sudachi.attributes.SudachiMorphemeIdsAttribute;
+
+/**
+ * A token, as published by the {@link SudachiTokenPublisher}, i.e.: the term after the filters of the
+ * analyzer, its offsets within the input and its position increment.
+ */
+public final class SudachiToken {
+
+    private final String term;
+    private final int startOffset;
+    private final int endOffset;
+    private final int positionIncrement;
+    private final int partOfSpeechId;
+
+    public SudachiToken(
+            final String term,
+            final int startOffset,
+            final int endOffset,
+            final int positionIncrement,
+            final int partOfSpeechId) {
+        this.term = term;
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+        this.positionIncrement = positionIncrement;
+        this.partOfSpeechId = partOfSpeechId;
+    }
+
+    public String getTerm() {
+        return term;
+    }
+
+    public int getStartOffset() {
+        return startOffset;
+    }
+
+    public int getEndOffset() {
+        return endOffset;
+    }
+
+    public int getPositionIncrement() {
+        return positionIncrement;
+    }
+
+    /** @return the Sudachi part-of-speech id, or {@link SudachiMorphemeIdsAttribute#NO_ID} */
+    public int getPartOfSpeechId() {
+        return partOfSpeechId;
+    }
+
+    @Override
+    public String toString() {
+        return term + "/" + startOffset + "-" + endOffset;
+    }
+}
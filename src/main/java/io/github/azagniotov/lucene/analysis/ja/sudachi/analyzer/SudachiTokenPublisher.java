@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.analyzer;
+
+import io.github.azagniotov.lucene.analysis.ja.sudachi.attributes.SudachiMorphemeIdsAttribute;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+
+/**
+ * Publishes the tokens of one input, e.g.: to a streaming pipeline which does not use Lucene, as
+ * {@link SudachiToken}s. The token stream of the analyzer is pulled only as far as the subscriber has
+ * requested, on the threads of the executor, and the tokenizer reads its input in windows. Thus, the
+ * input is never held in memory as a whole, unless the tokenizer analyzes it in parallel.
+ *
+ * <p>The input can be read once, thus there can be only one subscriber. The token stream is pulled by
+ * one executor thread at a time, but not always by the same one. Since an {@link Analyzer} reuses the
+ * token stream of a thread, the analyzer must not be shared with other publishers or used otherwise
+ * while the tokens are published, e.g.: {@link #SudachiTokenPublisher(Reader, Executor)} uses its own
+ * {@link SudachiAnalyzer}. The analyzers are never closed by the publisher, since closing a {@link
+ * SudachiAnalyzer} invalidates the dictionary cached for the whole JVM. The input is closed once the
+ * tokens are published, on an error or on cancel.
+ *
+ * <p>An exception thrown by {@link Flow.Subscriber#onNext(Object)} cancels the subscription, i.e.: it is
+ * not passed to {@link Flow.Subscriber#onError(Throwable)}, but rethrown to the executor.
+ *
+ * <pre>
+ * new SudachiTokenPublisher(Channels.newReader(channel, "UTF-8"), executor).subscribe(subscriber);
+ * </pre>
+ */
+public final class SudachiTokenPublisher implements Flow.Publisher<SudachiToken> {
+
+    private static final String DEFAULT_FIELD_NAME = "text";
+
+    private final Analyzer analyzer;
+    private final String fieldName;
+    private final Reader reader;
+    private final Executor executor;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    /**
+     * Publishes the tokens of a default {@link SudachiAnalyzer}, which is left to the garbage collector
+     * together with this publisher
+     */
+    public SudachiTokenPublisher(final Reader reader, final Executor executor) {
+        this(new SudachiAnalyzer(), DEFAULT_FIELD_NAME, reader, executor);
+    }
+
+    /** @param analyzer which is not closed by this publisher */
+    public SudachiTokenPublisher(
+            final Analyzer analyzer, final String fieldName, final Reader reader, final Executor executor) {
+        this.analyzer = analyzer;
+        this.fieldName = fieldName;
+        this.reader = reader;
+        this.executor = executor;
+    }
+
+    /** Publishes the tokens of the decoded channel, which is closed once the tokens are published */
+    public static SudachiTokenPublisher fromChannel(
+            final Analyzer analyzer,
+            final String fieldName,
+            final ReadableByteChannel channel,
+            final Charset charset,
+            final Executor executor) {
+        return new SudachiTokenPublisher(
+                analyzer, fieldName, Channels.newReader(channel, charset.newDecoder(), -1), executor);
+    }
+
+    @Override
+    public void subscribe(final Flow.Subscriber<? super SudachiToken> subscriber) {
+        if (!this.subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(final long n) {}
+
+                @Override
+                public void cancel() {}
+            });
+            subscriber.onError(new IllegalStateException("The tokens of the input have already been subscribed to"));
+            return;
+        }
+        final TokenSubscription subscription = new TokenSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    private final class TokenSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super SudachiToken> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        // Number of the requests, cancels included, which the drain loop has not seen yet
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile Throwable invalidRequest;
+        private volatile RejectedExecutionException rejected;
+
+        // Only accessed by the drain loop
+        private TokenStream stream;
+        private CharTermAttribute termAtt;
+        private OffsetAttribute offsetAtt;
+        private PositionIncrementAttribute posIncAtt;
+        private SudachiMorphemeIdsAttribute idsAtt;
+        private boolean done;
+
+        TokenSubscription(final Flow.Subscriber<? super SudachiToken> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(final long n) {
+            if (n <= 0) {
+                this.invalidRequest = new IllegalArgumentException("Requested tokens must be positive: " + n);
+            } else {
+                this.demand.getAndAccumulate(n, (current, added) -> {
+                    final long sum = current + added;
+                    return sum < 0 ? Long.MAX_VALUE : sum;
+                });
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            this.cancelled = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (this.pending.getAndIncrement() != 0) {
+                // The drain loop is running, and will see this request
+                return;
+            }
+            try {
+                executor.execute(this::drain);
+            } catch (final RejectedExecutionException e) {
+                // No drain loop runs, since it has not been scheduled, thus this thread runs the one that
+                // passes the error on, and the requests made meanwhile are counted by it as usual
+                this.rejected = e;
+                drain();
+            }
+        }
+
+        private void drain() {
+            int missed = 1;
+            while (true) {
+                if (!this.done) {
+                    publish();
+                }
+                missed = this.pending.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        private void publish() {
+            while (!this.cancelled) {
+                if (this.rejected != null) {
+                    finish(this.rejected);
+                    return;
+                }
+                if (this.invalidRequest != null) {
+                    finish(this.invalidRequest);
+                    return;
+                }
+                if (this.demand.get() == 0) {
+                    return;
+                }
+                final SudachiToken token;
+                try {
+                    token = nextToken();
+                } catch (final IOException | RuntimeException e) {
+                    finish(e);
+                    return;
+                }
+                if (token == null) {
+                    finish(null);
+                    return;
+                }
+                this.demand.decrementAndGet();
+                try {
+                    this.subscriber.onNext(token);
+                } catch (final RuntimeException e) {
+                    // The subscriber has broken the contract, thus the subscription is cancelled (rule 2.13)
+                    this.cancelled = true;
+                    this.done = true;
+                    closeStream();
+                    throw e;
+                }
+            }
+            this.done = true;
+            closeStream();
+        }
+
+        /** @return the next token, or null once the token stream has ended */
+        private SudachiToken nextToken() throws IOException {
+            if (this.stream == null) {
+                open();
+            }
+            if (!this.stream.incrementToken()) {
+                this.stream.end();
+                return null;
+            }
+            return new SudachiToken(
+                    this.termAtt.toString(),
+                    this.offsetAtt.startOffset(),
+                    this.offsetAtt.endOffset(),
+                    this.posIncAtt.getPositionIncrement(),
+                    this.idsAtt.getPartOfSpeechId());
+        }
+
+        private void open() throws IOException {
+            this.stream = analyzer.tokenStream(fieldName, reader);
+            this.termAtt = this.stream.addAttribute(CharTermAttribute.class);
+            this.offsetAtt = this.stream.addAttribute(OffsetAttribute.class);
+            this.posIncAtt = this.stream.addAttribute(PositionIncrementAttribute.class);
+            this.idsAtt = this.stream.addAttribute(SudachiMorphemeIdsAttribute.class);
+            this.stream.reset();
+        }
+
+        private void finish(final Throwable error) {
+            this.done = true;
+            closeStream();
+            if (error == null) {
+                this.subscriber.onComplete();
+            } else {
+                this.subscriber.onError(error);
+            }
+        }
+
+        private void closeStream() {
+            try {
+                if (this.stream == null) {
+                    reader.close();
+                } else {
+                    this.stream.close();
+                }
+            } catch (final IOException ignored) {
+                // The input has been consumed, or is not wanted anymore
+            }
+            this.stream = null;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.analyzer;
+
+import io.github.azagniotov.lucene.analysis.ja.sudachi.attributes.SudachiMorphemeIdsAttribute;
+import java.nio.CharBuffer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+
+/**
+ * Tokens of one document in a few flat arrays, i.e.: without an object per token: the terms, their
+ * start and end offsets, position increments and lengths, types, flags, payloads and part-of-speech ids,
+ * which are {@link SudachiMorphemeIdsAttribute#NO_ID} for the tokens that do not come from a Sudachi
+ * morpheme.
+ *
+ * @see SudachiBatchAnalyzer
+ */
+public final class SudachiTokens {
+
+    static final SudachiTokens EMPTY = new Builder().build(0, 0);
+
+    private final int size;
+    private final char[] termChars;
+    // Term i spans termChars[termEnds[i - 1], termEnds[i]), where termEnds[-1] is 0
+    private final int[] termEnds;
+    private final int[] startOffsets;
+    private final int[] endOffsets;
+    private final int[] positionIncrements;
+    private final int[] positionLengths;
+    private final String[] types;
+    private final int[] flags;
+    private final BytesRef[] payloads;
+    private final int[] partOfSpeechIds;
+    private final int finalOffset;
+    private final int finalPositionIncrement;
+
+    private SudachiTokens(final Builder builder, final int finalOffset, final int finalPositionIncrement) {
+        this.size = builder.size;
+        this.termChars = ArrayUtil.copyOfSubArray(builder.termChars, 0, builder.termLength);
+        this.termEnds = ArrayUtil.copyOfSubArray(builder.termEnds, 0, builder.size);
+        this.startOffsets = ArrayUtil.copyOfSubArray(builder.startOffsets, 0, builder.size);
+        this.endOffsets = ArrayUtil.copyOfSubArray(builder.endOffsets, 0, builder.size);
+        this.positionIncrements = ArrayUtil.copyOfSubArray(builder.positionIncrements, 0, builder.size);
+        this.positionLengths = ArrayUtil.copyOfSubArray(builder.positionLengths, 0, builder.size);
+        this.types = ArrayUtil.copyOfSubArray(builder.types, 0, builder.size);
+        this.flags = ArrayUtil.copyOfSubArray(builder.flags, 0, builder.size);
+        this.payloads = ArrayUtil.copyOfSubArray(builder.payloads, 0, builder.size);
+        this.partOfSpeechIds = ArrayUtil.copyOfSubArray(builder.partOfSpeechIds, 0, builder.size);
+        this.finalOffset = finalOffset;
+        this.finalPositionIncrement = finalPositionIncrement;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String term(final int index) {
+        return new String(this.termChars, termStart(index), termLength(index));
+    }
+
+    /**
+     * @return a read-only view of the chars of all the terms, see {@link #termStart(int)} and {@link
+     *     #termLength(int)}
+     */
+    public CharSequence terms() {
+        return CharBuffer.wrap(this.termChars).asReadOnlyBuffer();
+    }
+
+    public int termStart(final int index) {
+        return index == 0 ? 0 : this.termEnds[index - 1];
+    }
+
+    public int termLength(final int index) {
+        return this.termEnds[index] - termStart(index);
+    }
+
+    /** @return the start offset within the document */
+    public int startOffset(final int index) {
+        return this.startOffsets[index];
+    }
+
+    /** @return the end offset within the document */
+    public int endOffset(final int index) {
+        return this.endOffsets[index];
+    }
+
+    public int positionIncrement(final int index) {
+        return this.positionIncrements[index];
+    }
+
+    public int positionLength(final int index) {
+        return this.positionLengths[index];
+    }
+
+    public String type(final int index) {
+        return this.types[index];
+    }
+
+    public int flags(final int index) {
+        return this.flags[index];
+    }
+
+    /** @return the payload, or null if the token has none */
+    public BytesRef payload(final int index) {
+        return this.payloads[index];
+    }
+
+    /** @return the Sudachi part-of-speech id, or {@link SudachiMorphemeIdsAttribute#NO_ID} */
+    public int partOfSpeechId(final int index) {
+        return this.partOfSpeechIds[index];
+    }
+
+    /** @return the end offset of the document, as set by {@code TokenStream.end()} */
+    public int finalOffset() {
+        return finalOffset;
+    }
+
+    /** @return the position increment after the last token, as set by {@code TokenStream.end()} */
+    public int finalPositionIncrement() {
+        return finalPositionIncrement;
+    }
+
+    static final class Builder {
+
+        private int size;
+        private int termLength;
+        private char[] termChars = new char[0];
+        private int[] termEnds = new int[0];
+        private int[] startOffsets = new int[0];
+        private int[] endOffsets = new int[0];
+        private int[] positionIncrements = new int[0];
+        private int[] positionLengths = new int[0];
+        private String[] types = new String[0];
+        private int[] flags = new int[0];
+        private BytesRef[] payloads = new BytesRef[0];
+        private int[] partOfSpeechIds = new int[0];
+
+        /** @param payload copied, since the token stream reuses it, or null */
+        Builder add(
+                final CharTermAttribute termAtt,
+                final int startOffset,
+                final int endOffset,
+                final int positionIncrement,
+                final int positionLength,
+                final String type,
+                final int flags,
+                final BytesRef payload,
+                final int partOfSpeechId) {
+            this.termChars = ArrayUtil.grow(this.termChars, this.termLength + termAtt.length());
+            System.arraycopy(termAtt.buffer(), 0, this.termChars, this.termLength, termAtt.length());
+            this.termLength += termAtt.length();
+            if (this.size == this.termEnds.length) {
+                final int capacity = ArrayUtil.oversize(this.size + 1, Integer.BYTES);
+                this.termEnds = ArrayUtil.growExact(this.termEnds, capacity);
+                this.startOffsets = ArrayUtil.growExact(this.startOffsets, capacity);
+                this.endOffsets = ArrayUtil.growExact(this.endOffsets, capacity);
+                this.positionIncrements = ArrayUtil.growExact(this.positionIncrements, capacity);
+                this.positionLengths = ArrayUtil.growExact(this.positionLengths, capacity);
+                this.types = ArrayUtil.growExact(this.types, capacity);
+                this.flags = ArrayUtil.growExact(this.flags, capacity);
+                this.payloads = ArrayUtil.growExact(this.payloads, capacity);
+                this.partOfSpeechIds = ArrayUtil.growExact(this.partOfSpeechIds, capacity);
+            }
+            this.termEnds[this.size] = this.termLength;
+            this.startOffsets[this.size] = startOffset;
+            this.endOffsets[this.size] = endOffset;
+            this.positionIncrements[this.size] = positionIncrement;
+            this.positionLengths[this.size] = positionLength;
+            this.types[this.size] = type;
+            this.flags[this.size] = flags;
+            this.payloads[this.size] = payload == null ? null : BytesRef.deepCopyOf(payload);
+            this.partOfSpeechIds[this.size] = partOfSpeechId;
+            this.size++;
+            return this;
+        }
+
+        int size() {
+            return size;
+        }
+
+        SudachiTokens build(final int finalOffset, final int finalPositionIncrement) {
+            return new SudachiTokens(this, finalOffset, finalPositionIncrement);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.attributes;
+
+import org.apache.lucene.util.Attribute;
+
+/**
+ * Flags the tokens which were not analyzed by Sudachi, but segmented by the cheap fallback, after the
+ * analysis of the document ran out of its time budget. Such tokens have no {@link
+ * com.worksap.nlp.sudachi.Morpheme}.
+ */
+public interface SudachiFallbackAttribute extends Attribute {
+
+    boolean isFallback();
+
+    void setFallback(boolean fallback);
+}
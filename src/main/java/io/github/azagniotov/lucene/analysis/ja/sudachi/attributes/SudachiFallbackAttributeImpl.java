@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.attributes;
+
+import org.apache.lucene.util.AttributeImpl;
+import org.apache.lucene.util.AttributeReflector;
+
+public class SudachiFallbackAttributeImpl extends AttributeImpl implements SudachiFallbackAttribute {
+
+    private boolean fallback;
+
+    @Override
+    public boolean isFallback() {
+        return fallback;
+    }
+
+    @Override
+    public void setFallback(final boolean fallback) {
+        this.fallback = fallback;
+    }
+
+    @Override
+    public void clear() {
+        this.fallback = false;
+    }
+
+    @Override
+    public void reflectWith(AttributeReflector attributeReflector) {
+        // AttributeReflector is used by Solr and Elasticsearch to provide analysis output.
+        attributeReflector.reflect(SudachiFallbackAttribute.class, "fallback", fallback);
+    }
+
+    @Override
+    public void copyTo(AttributeImpl attribute) {
+        final SudachiFallbackAttribute at = (SudachiFallbackAttribute) attribute;
+        at.setFallback(fallback);
+    }
+}
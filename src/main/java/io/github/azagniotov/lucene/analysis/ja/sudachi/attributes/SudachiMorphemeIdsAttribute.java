@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.attributes;
+
+import org.apache.lucene.util.Attribute;
+
+/**
+ * Attribute for the dictionary word id, part-of-speech id and OOV flag of a token, which filters can
+ * use without materializing a {@link com.worksap.nlp.sudachi.Morpheme} or its word info.
+ */
+public interface SudachiMorphemeIdsAttribute extends Attribute {
+
+    int NO_ID = -1;
+
+    /** @return {@link com.worksap.nlp.sudachi.Morpheme#getWordId()}, or {@link #NO_ID} */
+    int getWordId();
+
+    /** @return {@link com.worksap.nlp.sudachi.Morpheme#partOfSpeechId()}, or {@link #NO_ID} */
+    int getPartOfSpeechId();
+
+    boolean isOOV();
+
+    void setIds(int wordId, int partOfSpeechId, boolean oov);
+}
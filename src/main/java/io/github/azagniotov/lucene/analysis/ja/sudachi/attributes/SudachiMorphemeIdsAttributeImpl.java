@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.attributes;
+
+import org.apache.lucene.util.AttributeImpl;
+import org.apache.lucene.util.AttributeReflector;
+
+public class SudachiMorphemeIdsAttributeImpl extends AttributeImpl implements SudachiMorphemeIdsAttribute {
+
+    private int wordId = NO_ID;
+    private int partOfSpeechId = NO_ID;
+    private boolean oov;
+
+    @Override
+    public int getWordId() {
+        return wordId;
+    }
+
+    @Override
+    public int getPartOfSpeechId() {
+        return partOfSpeechId;
+    }
+
+    @Override
+    public boolean isOOV() {
+        return oov;
+    }
+
+    @Override
+    public void setIds(final int wordId, final int partOfSpeechId, final boolean oov) {
+        this.wordId = wordId;
+        this.partOfSpeechId = partOfSpeechId;
+        this.oov = oov;
+    }
+
+    @Override
+    public void clear() {
+        this.wordId = NO_ID;
+        this.partOfSpeechId = NO_ID;
+        this.oov = false;
+    }
+
+    @Override
+    public void reflectWith(AttributeReflector attributeReflector) {
+        // AttributeReflector is used by Solr and Elasticsearch to provide analysis output.
+        attributeReflector.reflect(SudachiMorphemeIdsAttribute.class, "wordId", wordId);
+        attributeReflector.reflect(SudachiMorphemeIdsAttribute.class, "partOfSpeechId", partOfSpeechId);
+        attributeReflector.reflect(SudachiMorphemeIdsAttribute.class, "oov", oov);
+    }
+
+    @Override
+    public void copyTo(AttributeImpl attribute) {
+        final SudachiMorphemeIdsAttribute at = (SudachiMorphemeIdsAttribute) attribute;
+        at.setIds(wordId, partOfSpeechId, oov);
+    }
+}
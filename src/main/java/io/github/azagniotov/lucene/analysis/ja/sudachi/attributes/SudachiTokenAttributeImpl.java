@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.attributes;
+
+import com.worksap.nlp.sudachi.Morpheme;
+import java.util.Objects;
+import java.util.Optional;
+import org.apache.lucene.analysis.tokenattributes.PackedTokenAttributeImpl;
+import org.apache.lucene.util.AttributeImpl;
+import org.apache.lucene.util.AttributeReflector;
+
+/**
+ * Packs the per-token state of the {@link
+ * io.github.azagniotov.lucene.analysis.ja.sudachi.tokenizer.SudachiTokenizer} into a single {@link
+ * AttributeImpl}, in the spirit of Lucene's {@link PackedTokenAttributeImpl}: term, offsets, position
+ * increment/length, type, term frequency, the {@link Morpheme}, its ids and the fallback flag. Thus
+ * {@code clearAttributes()}, {@code captureState()} and {@code restoreState()} touch one object
+ * instead of one per attribute, which matters to graph filters such as {@code SynonymGraphFilter} that
+ * call them for every token.
+ *
+ * <p>The base form, normalized form, reading form and part-of-speech attributes cannot be packed in
+ * here, since they share the {@link MorphemeReliantAttribute} interface with {@link
+ * SudachiMorphemeAttribute} under different type arguments. They only hold a reference to the
+ * morpheme, and in the indexing profile they are not registered at all.
+ */
+public class SudachiTokenAttributeImpl extends PackedTokenAttributeImpl
+        implements SudachiMorphemeAttribute, SudachiMorphemeIdsAttribute, SudachiFallbackAttribute {
+
+    private Morpheme morpheme;
+    private int wordId = NO_ID;
+    private int partOfSpeechId = NO_ID;
+    private boolean oov;
+    private boolean fallback;
+
+    @Override
+    public Optional<Morpheme> getValue() {
+        return this.morpheme == null ? Optional.empty() : Optional.of(morpheme);
+    }
+
+    @Override
+    public void setMorpheme(final Morpheme morpheme) {
+        this.morpheme = morpheme;
+    }
+
+    @Override
+    public int getWordId() {
+        return wordId;
+    }
+
+    @Override
+    public int getPartOfSpeechId() {
+        return partOfSpeechId;
+    }
+
+    @Override
+    public boolean isOOV() {
+        return oov;
+    }
+
+    @Override
+    public void setIds(final int wordId, final int partOfSpeechId, final boolean oov) {
+        this.wordId = wordId;
+        this.partOfSpeechId = partOfSpeechId;
+        this.oov = oov;
+    }
+
+    @Override
+    public boolean isFallback() {
+        return fallback;
+    }
+
+    @Override
+    public void setFallback(final boolean fallback) {
+        this.fallback = fallback;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        this.morpheme = null;
+        this.wordId = NO_ID;
+        this.partOfSpeechId = NO_ID;
+        this.oov = false;
+        this.fallback = false;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (other == this) {
+            return true;
+        }
+        if (other instanceof SudachiTokenAttributeImpl) {
+            final SudachiTokenAttributeImpl that = (SudachiTokenAttributeImpl) other;
+            return super.equals(that)
+                    && wordId == that.wordId
+                    && partOfSpeechId == that.partOfSpeechId
+                    && oov == that.oov
+                    && fallback == that.fallback
+                    && Objects.equals(morpheme, that.morpheme);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * super.hashCode() + Objects.hash(morpheme, wordId, partOfSpeechId, oov, fallback);
+    }
+
+    @Override
+    public void reflectWith(AttributeReflector attributeReflector) {
+        // AttributeReflector is used by Solr and Elasticsearch to provide analysis output.
+        // The morpheme itself is not reflected, see SudachiMorphemeAttributeImpl
+        super.reflectWith(attributeReflector);
+        attributeReflector.reflect(SudachiMorphemeIdsAttribute.class, "wordId", wordId);
+        attributeReflector.reflect(SudachiMorphemeIdsAttribute.class, "partOfSpeechId", partOfSpeechId);
+        attributeReflector.reflect(SudachiMorphemeIdsAttribute.class, "oov", oov);
+        attributeReflector.reflect(SudachiFallbackAttribute.class, "fallback", fallback);
+    }
+
+    @Override
+    public void copyTo(AttributeImpl attribute) {
+        super.copyTo(attribute);
+        ((SudachiMorphemeAttribute) attribute).setMorpheme(morpheme);
+        ((SudachiMorphemeIdsAttribute) attribute).setIds(wordId, partOfSpeechId, oov);
+        ((SudachiFallbackAttribute) attribute).setFallback(fallback);
+    }
+}
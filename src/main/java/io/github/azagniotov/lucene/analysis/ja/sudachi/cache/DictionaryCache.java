@@ -16,27 +16,60 @@
 package io.github.azagniotov.lucene.analysis.ja.sudachi.cache;
 
 import com.worksap.nlp.sudachi.Dictionary;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.Accountables;
+import org.apache.lucene.util.RamUsageEstimator;
 
-public enum DictionaryCache {
+/**
+ * JVM-wide cache of the Sudachi dictionary, which is shared by all the tokenizers.
+ *
+ * <p>As an {@link Accountable}, it reports the on-heap part of the dictionary (i.e.: the
+ * part-of-speech table) in {@link #ramBytesUsed()}. The lexicons and the connection matrix are
+ * memory-mapped, thus they are off-heap and they are reported only as a separate child resource.
+ *
+ * <p>The dictionary is cached, and invalidated, while holding the monitor of the cache. A loader
+ * holds it from checking {@link #isEmpty()} until the dictionary is cached, so that the threads which
+ * need the dictionary at the same time wait for one load, rather than each loading one.
+ */
+public enum DictionaryCache implements Accountable {
     INSTANCE;
 
     private static final String CACHE_KEY = "dictionary";
 
     private final Map<String, Dictionary> dictionaryCache;
+    private final Map<String, DictionaryInfo> dictionaryInfoCache;
+    private final AtomicLong loads;
+    private final Map<Dictionary, Long> heapBytesCache;
 
     DictionaryCache() {
         dictionaryCache = new ConcurrentHashMap<>(1);
+        dictionaryInfoCache = new ConcurrentHashMap<>(1);
+        loads = new AtomicLong();
+        heapBytesCache = new ConcurrentHashMap<>(1);
     }
 
     public boolean isEmpty() {
         return !this.dictionaryCache.containsKey(CACHE_KEY);
     }
 
-    public void cache(final Dictionary dictionary) {
+    public synchronized void cache(final Dictionary dictionary) {
+        if (this.dictionaryCache.putIfAbsent(CACHE_KEY, dictionary) == null) {
+            this.loads.incrementAndGet();
+        }
+    }
+
+    public synchronized void cache(final Dictionary dictionary, final DictionaryInfo dictionaryInfo) {
         if (!this.dictionaryCache.containsKey(CACHE_KEY)) {
-            this.dictionaryCache.put(CACHE_KEY, dictionary);
+            this.dictionaryInfoCache.put(CACHE_KEY, dictionaryInfo);
+            cache(dictionary);
         }
     }
 
@@ -44,7 +77,52 @@ public enum DictionaryCache {
         return this.dictionaryCache.get(CACHE_KEY);
     }
 
-    public void invalidate() {
+    public Optional<DictionaryInfo> getInfo() {
+        return Optional.ofNullable(this.dictionaryInfoCache.get(CACHE_KEY));
+    }
+
+    /** @return how many times a dictionary has been loaded into the cache since the JVM start */
+    public long getLoads() {
+        return this.loads.get();
+    }
+
+    public synchronized void invalidate() {
         this.dictionaryCache.clear();
+        this.dictionaryInfoCache.clear();
+        this.heapBytesCache.clear();
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        final Dictionary dictionary = get();
+        if (dictionary == null) {
+            return 0L;
+        }
+        // The dictionary is immutable, thus its on-heap size is estimated only once
+        return this.heapBytesCache.computeIfAbsent(dictionary, DictionaryCache::estimateHeapBytes);
+    }
+
+    @Override
+    public Collection<Accountable> getChildResources() {
+        if (isEmpty()) {
+            return Collections.emptyList();
+        }
+        final List<Accountable> resources = new ArrayList<>();
+        resources.add(Accountables.namedAccountable("part-of-speech table", ramBytesUsed()));
+        getInfo().ifPresent(info -> resources.add(
+                Accountables.namedAccountable("mapped dictionary files (off-heap)", info.getMappedBytes())));
+        return Collections.unmodifiableList(resources);
+    }
+
+    private static long estimateHeapBytes(final Dictionary dictionary) {
+        long bytes = RamUsageEstimator.shallowSizeOf(dictionary);
+        final int partOfSpeechSize = dictionary.getPartOfSpeechSize();
+        bytes += RamUsageEstimator.alignObjectSize(
+                RamUsageEstimator.NUM_BYTES_ARRAY_HEADER
+                        + (long) partOfSpeechSize * RamUsageEstimator.NUM_BYTES_OBJECT_REF);
+        for (short posId = 0; posId < partOfSpeechSize; posId++) {
+            bytes += RamUsageEstimator.sizeOfObject(dictionary.getPartOfSpeechString(posId));
+        }
+        return bytes;
     }
 }
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.cache;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Describes where the cached Sudachi dictionary was loaded from, when and how it has been used since. */
+public final class DictionaryInfo {
+
+    private final Path systemDictionary;
+    private final Path userDictionary;
+    private final Instant loadedAt;
+    private final long loadTimeMillis;
+    private final long mappedBytes;
+    private final LongAdder tokenizersCreated;
+
+    public DictionaryInfo(
+            final Path systemDictionary,
+            final Path userDictionary,
+            final Instant loadedAt,
+            final long loadTimeMillis,
+            final long mappedBytes) {
+        this.systemDictionary = systemDictionary;
+        this.userDictionary = userDictionary;
+        this.loadedAt = loadedAt;
+        this.loadTimeMillis = loadTimeMillis;
+        this.mappedBytes = mappedBytes;
+        this.tokenizersCreated = new LongAdder();
+    }
+
+    public Path getSystemDictionary() {
+        return systemDictionary;
+    }
+
+    public Path getUserDictionary() {
+        return userDictionary;
+    }
+
+    public Instant getLoadedAt() {
+        return loadedAt;
+    }
+
+    public long getLoadTimeMillis() {
+        return loadTimeMillis;
+    }
+
+    /** @return size of the system and user dictionary files, which Sudachi maps into memory */
+    public long getMappedBytes() {
+        return mappedBytes;
+    }
+
+    public long getTokenizersCreated() {
+        return tokenizersCreated.sum();
+    }
+
+    public void onTokenizerCreated() {
+        this.tokenizersCreated.increment();
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event emitted when the Sudachi dictionary is loaded and cached. The event
+ * duration is the dictionary load time.
+ */
+@Name("io.github.azagniotov.sudachi.DictionaryLoad")
+@Label("Sudachi Dictionary Load")
+@Category({"Sudachi"})
+@Description("Creation of the Sudachi Dictionary from the system and user dictionaries")
+@StackTrace(false)
+public class DictionaryLoadEvent extends Event {
+
+    @Label("Config")
+    @Description("Sudachi config the dictionary was created from")
+    public String config;
+
+    @Label("System Dictionary")
+    public String systemDictionary;
+
+    @Label("User Dictionary")
+    public String userDictionary;
+
+    @Label("Mapped Bytes")
+    @Description("Size of the dictionary files, which Sudachi maps into memory")
+    @DataAmount
+    public long mappedBytes;
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder event of the analysis of one document by the SudachiTokenizer, i.e.: from
+ * {@code reset()} to {@code end()}. It is committed only when the analysis took longer than the
+ * threshold, which defaults to 100 ms and can be changed in the recording settings, e.g.:
+ * {@code jfr configure io.github.azagniotov.sudachi.DocumentAnalysis#threshold=20ms}.
+ */
+@Name("io.github.azagniotov.sudachi.DocumentAnalysis")
+@Label("Sudachi Slow Document Analysis")
+@Category({"Sudachi"})
+@Description("Analysis of a document by the SudachiTokenizer, which took longer than the threshold")
+@Threshold("100 ms")
+@StackTrace(false)
+public class DocumentAnalysisEvent extends Event {
+
+    @Label("Field")
+    public String field;
+
+    @Label("Split Mode")
+    public String mode;
+
+    @Label("Char Length")
+    public long charLength;
+
+    @Label("Sentence Count")
+    public long sentenceCount;
+
+    @Label("Longest Sentence Length")
+    @Description("Length (in chars) of the longest sentence, the Sudachi lattice grows with it")
+    public long longestSentenceLength;
+
+    @Label("Sudachi Analysis Time")
+    @Description("Time spent in Sudachi, excluding the downstream token filters")
+    @Timespan
+    public long analysisTime;
+
+    @Label("Deadline Exceeded")
+    @Description("Whether the rest of the document was segmented by the cheap fallback, after the time budget ran out")
+    public boolean deadlineExceeded;
+}
@@ -20,19 +20,30 @@ package io.github.azagniotov.lucene.analysis.ja.sudachi.filters;
 import com.worksap.nlp.sudachi.Morpheme;
 import com.worksap.nlp.sudachi.PosMatcher;
 import io.github.azagniotov.lucene.analysis.ja.sudachi.attributes.SudachiMorphemeAttribute;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.attributes.SudachiMorphemeIdsAttribute;
 import java.io.IOException;
 import java.util.Optional;
 import org.apache.lucene.analysis.FilteringTokenFilter;
 import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.util.FixedBitSet;
 
 public class SudachiPartOfSpeechStopFilter extends FilteringTokenFilter {
 
     private final PosMatcher posMatcher;
+    // Part-of-speech ids matched by the posMatcher, or null
+    private final FixedBitSet stopPartOfSpeechIds;
     private final SudachiMorphemeAttribute morphemeAtt = addAttribute(SudachiMorphemeAttribute.class);
+    private final SudachiMorphemeIdsAttribute morphemeIdsAtt = addAttribute(SudachiMorphemeIdsAttribute.class);
 
     public SudachiPartOfSpeechStopFilter(final TokenStream tokenStream, final PosMatcher posMatcher) {
+        this(tokenStream, posMatcher, null);
+    }
+
+    public SudachiPartOfSpeechStopFilter(
+            final TokenStream tokenStream, final PosMatcher posMatcher, final FixedBitSet stopPartOfSpeechIds) {
         super(tokenStream);
         this.posMatcher = posMatcher;
+        this.stopPartOfSpeechIds = stopPartOfSpeechIds;
     }
 
     @Override
@@ -42,6 +53,14 @@ public class SudachiPartOfSpeechStopFilter extends FilteringTokenFilter {
 
     @Override
     protected boolean accept() throws IOException {
+        final int partOfSpeechId = this.morphemeIdsAtt.getPartOfSpeechId();
+        if (this.stopPartOfSpeechIds != null
+                && partOfSpeechId >= 0
+                && partOfSpeechId < this.stopPartOfSpeechIds.length()) {
+            // The part-of-speech id is set by the SudachiTokenizer, thus the morpheme is not touched
+            return !this.stopPartOfSpeechIds.get(partOfSpeechId);
+        }
+
         final Optional<Morpheme> morpheme = this.morphemeAtt.getValue();
         if (morpheme.isPresent()) {
             // Any token with a part-of-speech tag that exactly matches those
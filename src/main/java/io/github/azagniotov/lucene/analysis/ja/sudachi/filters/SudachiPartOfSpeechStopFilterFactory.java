@@ -26,23 +26,35 @@ import io.github.azagniotov.lucene.analysis.ja.sudachi.tokenizer.SudachiTokenize
 import io.github.azagniotov.lucene.analysis.ja.sudachi.util.StopTags;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.apache.lucene.analysis.CharArraySet;
 import org.apache.lucene.analysis.TokenFilterFactory;
 import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.Accountables;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.RamUsageEstimator;
 import org.apache.lucene.util.ResourceLoader;
 import org.apache.lucene.util.ResourceLoaderAware;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class SudachiPartOfSpeechStopFilterFactory extends TokenFilterFactory implements ResourceLoaderAware {
+public class SudachiPartOfSpeechStopFilterFactory extends TokenFilterFactory
+        implements ResourceLoaderAware, Accountable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SudachiTokenizerFactory.class);
 
     private final String stopTagFiles;
     private List<PartialPOS> stopTags;
+    // PosMatcher is immutable, thus one matcher per dictionary is shared by all the filters
+    private volatile JapaneseDictionary posMatcherDictionary;
+    private volatile PosMatcher posMatcher;
+    private volatile FixedBitSet stopPartOfSpeechIds;
 
     public SudachiPartOfSpeechStopFilterFactory(final Map<String, String> args) {
         super(args);
@@ -64,13 +76,73 @@ public class SudachiPartOfSpeechStopFilterFactory extends TokenFilterFactory imp
             if (japaneseDictionary == null) {
                 throw new IllegalStateException("SudachiAttribute returned null JapaneseDictionary, how so??");
             }
-            final PosMatcher posMatcher = japaneseDictionary.posMatcher(this.stopTags);
-            return new SudachiPartOfSpeechStopFilter(tokenStream, posMatcher);
+            return createFilter(tokenStream, japaneseDictionary);
         }
 
         return tokenStream;
     }
 
+    private synchronized TokenStream createFilter(
+            final TokenStream tokenStream, final JapaneseDictionary japaneseDictionary) {
+        if (this.posMatcher == null || this.posMatcherDictionary != japaneseDictionary) {
+            this.posMatcher = japaneseDictionary.posMatcher(this.stopTags);
+            this.stopPartOfSpeechIds = toPartOfSpeechIds(japaneseDictionary, this.posMatcher);
+            this.posMatcherDictionary = japaneseDictionary;
+        }
+        return new SudachiPartOfSpeechStopFilter(tokenStream, this.posMatcher, this.stopPartOfSpeechIds);
+    }
+
+    private static FixedBitSet toPartOfSpeechIds(final JapaneseDictionary dictionary, final PosMatcher matcher) {
+        final Set<Object> matchingTags = new HashSet<>();
+        for (final Object partOfSpeech : matcher) {
+            matchingTags.add(partOfSpeech);
+        }
+        final int partOfSpeechSize = dictionary.getPartOfSpeechSize();
+        final FixedBitSet partOfSpeechIds = new FixedBitSet(partOfSpeechSize);
+        for (short posId = 0; posId < partOfSpeechSize; posId++) {
+            if (matchingTags.contains(dictionary.getPartOfSpeechString(posId))) {
+                partOfSpeechIds.set(posId);
+            }
+        }
+        return partOfSpeechIds;
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        return RamUsageEstimator.shallowSizeOfInstance(SudachiPartOfSpeechStopFilterFactory.class)
+                + stopTagsBytes()
+                + posMatcherBytes();
+    }
+
+    @Override
+    public Collection<Accountable> getChildResources() {
+        final List<Accountable> resources = new ArrayList<>();
+        resources.add(Accountables.namedAccountable("stop tags", stopTagsBytes()));
+        resources.add(Accountables.namedAccountable("part-of-speech matcher", posMatcherBytes()));
+        return resources;
+    }
+
+    private long stopTagsBytes() {
+        return this.stopTags == null ? 0L : RamUsageEstimator.sizeOfObject(this.stopTags);
+    }
+
+    private long posMatcherBytes() {
+        final PosMatcher matcher = this.posMatcher;
+        if (matcher == null) {
+            return 0L;
+        }
+        // The matcher keeps the ids of the matching part-of-speech tags in an int[]
+        long matchingTags = 0;
+        for (final Object ignored : matcher) {
+            matchingTags++;
+        }
+        final FixedBitSet partOfSpeechIds = this.stopPartOfSpeechIds;
+        return RamUsageEstimator.shallowSizeOf(matcher)
+                + RamUsageEstimator.alignObjectSize(
+                        RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + matchingTags * Integer.BYTES)
+                + (partOfSpeechIds == null ? 0L : partOfSpeechIds.ramBytesUsed());
+    }
+
     @Override
     public void inform(final ResourceLoader loader) throws IOException {
         if (this.stopTagFiles != null) {
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.handler;
+
+import io.github.azagniotov.lucene.analysis.ja.sudachi.cache.DictionaryCache;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.cache.DictionaryInfo;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.metrics.AnalysisMetrics;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.metrics.SudachiMetrics;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.tokenizer.SudachiTokenizerFactory;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.solr.analysis.TokenizerChain;
+import org.apache.solr.common.util.SimpleOrderedMap;
+import org.apache.solr.core.SolrCore;
+import org.apache.solr.handler.RequestHandlerBase;
+import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.response.SolrQueryResponse;
+import org.apache.solr.schema.FieldType;
+import org.apache.solr.security.AuthorizationContext;
+import org.apache.solr.security.PermissionNameProvider;
+
+/**
+ * Reports the runtime state of the Sudachi plugin, i.e.: the cached dictionary, the Sudachi
+ * tokenizer factories of every core and the analysis throughput. Operators can use it to confirm
+ * that all the cores share one dictionary, and that core reloads do not reload it.
+ *
+ * <pre>
+ * &lt;requestHandler name="/admin/sudachi"
+ *     class="io.github.azagniotov.lucene.analysis.ja.sudachi.handler.SudachiAdminRequestHandler" /&gt;
+ * </pre>
+ */
+public class SudachiAdminRequestHandler extends RequestHandlerBase implements PermissionNameProvider {
+
+    // Throughput is reported over the interval since the previous request to this handler
+    private long lastSampleNanos = System.nanoTime();
+    private long lastSampleDocuments = 0L;
+    private long lastSampleChars = 0L;
+
+    @Override
+    public void handleRequestBody(final SolrQueryRequest req, final SolrQueryResponse rsp) throws Exception {
+        rsp.add("dictionaries", dictionaries());
+        rsp.add("dictionaryLoads", DictionaryCache.INSTANCE.getLoads());
+        rsp.add("mappedBufferPoolBytes", mappedBufferPoolBytes());
+        rsp.add("tokenizerFactories", tokenizerFactories(req.getCore()));
+        rsp.add("throughput", throughput());
+        rsp.add("analysis", SudachiMetrics.INSTANCE.toMap());
+    }
+
+    private static List<SimpleOrderedMap<Object>> dictionaries() {
+        final List<SimpleOrderedMap<Object>> dictionaries = new ArrayList<>();
+        if (DictionaryCache.INSTANCE.isEmpty()) {
+            return dictionaries;
+        }
+
+        final SimpleOrderedMap<Object> dictionary = new SimpleOrderedMap<>();
+        final Optional<DictionaryInfo> dictionaryInfo = DictionaryCache.INSTANCE.getInfo();
+        if (dictionaryInfo.isPresent()) {
+            final DictionaryInfo info = dictionaryInfo.get();
+            dictionary.add("systemDictionary", info.getSystemDictionary().toString());
+            dictionary.add("userDictionary", info.getUserDictionary().toString());
+            dictionary.add("loadedAt", info.getLoadedAt().toString());
+            dictionary.add("loadTimeMs", info.getLoadTimeMillis());
+            dictionary.add("mappedBytes", info.getMappedBytes());
+            dictionary.add("heapBytes", DictionaryCache.INSTANCE.ramBytesUsed());
+            dictionary.add("tokenizersCreated", info.getTokenizersCreated());
+        } else {
+            // The dictionary was cached directly, i.e.: not by the SudachiTokenizerFactory
+            dictionary.add("class", DictionaryCache.INSTANCE.get().getClass().getName());
+        }
+        dictionaries.add(dictionary);
+
+        return dictionaries;
+    }
+
+    private static long mappedBufferPoolBytes() {
+        for (final BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if ("mapped".equals(pool.getName())) {
+                return pool.getMemoryUsed();
+            }
+        }
+        return 0L;
+    }
+
+    private static List<SimpleOrderedMap<Object>> tokenizerFactories(final SolrCore requestCore) {
+        final List<SimpleOrderedMap<Object>> factories = new ArrayList<>();
+        for (final SolrCore core : requestCore.getCoreContainer().getCores()) {
+            for (final FieldType fieldType : core.getLatestSchema().getFieldTypes().values()) {
+                addTokenizerFactory(factories, core, fieldType, "index", fieldType.getIndexAnalyzer());
+                addTokenizerFactory(factories, core, fieldType, "query", fieldType.getQueryAnalyzer());
+            }
+        }
+        return factories;
+    }
+
+    private static void addTokenizerFactory(
+            final List<SimpleOrderedMap<Object>> factories,
+            final SolrCore core,
+            final FieldType fieldType,
+            final String analyzerType,
+            final Analyzer analyzer) {
+        if (!(analyzer instanceof TokenizerChain)) {
+            return;
+        }
+        final TokenizerChain tokenizerChain = (TokenizerChain) analyzer;
+        if (!(tokenizerChain.getTokenizerFactory() instanceof SudachiTokenizerFactory)) {
+            return;
+        }
+
+        final SudachiTokenizerFactory factory = (SudachiTokenizerFactory) tokenizerChain.getTokenizerFactory();
+        final SimpleOrderedMap<Object> entry = new SimpleOrderedMap<>();
+        entry.add("core", core.getName());
+        entry.add("fieldType", fieldType.getTypeName());
+        entry.add("analyzer", analyzerType);
+        entry.add("mode", factory.getMode().name());
+        entry.add("discardPunctuation", factory.isDiscardPunctuation());
+        entry.add("profile", factory.getProfile().desc());
+        entry.add("packedAttributes", factory.isPackedAttributes());
+        entry.add("shortInputLength", factory.getShortInputLength());
+        entry.add("maxSentenceLength", factory.getMaxSentenceLength());
+        entry.add("shrinkThreshold", factory.getShrinkThreshold());
+        entry.add("maxAnalysisMillis", factory.getMaxAnalysisMillis());
+        entry.add("maxTokens", factory.getMaxTokens());
+        entry.add("maxChars", factory.getMaxChars());
+        entry.add("minLatinRunLength", factory.getMinLatinRunLength());
+        entry.add("parallelThreshold", factory.getParallelThreshold());
+        entry.add("parallelism", factory.getParallelism());
+        entry.add("metricsField", factory.getMetricsField());
+        entry.add("liveTokenizers", factory.getChildResources().size());
+        entry.add("ramBytesUsed", factory.ramBytesUsed());
+        factories.add(entry);
+    }
+
+    private synchronized SimpleOrderedMap<Object> throughput() {
+        long documents = 0L;
+        long chars = 0L;
+        for (final AnalysisMetrics metrics : SudachiMetrics.INSTANCE.all()) {
+            documents += metrics.getDocuments();
+            chars += metrics.getChars();
+        }
+
+        final long nowNanos = System.nanoTime();
+        final double intervalSeconds = (nowNanos - lastSampleNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+        final SimpleOrderedMap<Object> throughput = new SimpleOrderedMap<>();
+        throughput.add("intervalSeconds", intervalSeconds);
+        throughput.add("docsPerSecond", (documents - lastSampleDocuments) / intervalSeconds);
+        throughput.add("charsPerSecond", (chars - lastSampleChars) / intervalSeconds);
+        throughput.add("totalDocuments", documents);
+        throughput.add("totalChars", chars);
+
+        this.lastSampleNanos = nowNanos;
+        this.lastSampleDocuments = documents;
+        this.lastSampleChars = chars;
+
+        return throughput;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Sudachi dictionary, tokenizer factories and analysis throughput";
+    }
+
+    @Override
+    public Category getCategory() {
+        return Category.ADMIN;
+    }
+
+    @Override
+    public Name getPermissionName(final AuthorizationContext request) {
+        return Name.METRICS_READ_PERM;
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.handler;
+
+import io.github.azagniotov.lucene.analysis.ja.sudachi.attributes.MorphemeReliantAttribute;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.attributes.SudachiBaseFormAttribute;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.attributes.SudachiNormalizedFormAttribute;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.attributes.SudachiPartOfSpeechAttribute;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.attributes.SudachiReadingFormAttribute;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.tokenizer.SudachiTokenizer;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.AnalyzerWrapper;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionLengthAttribute;
+import org.apache.lucene.analysis.tokenattributes.TypeAttribute;
+import org.apache.solr.analysis.TokenizerChain;
+import org.apache.solr.common.IteratorWriter;
+import org.apache.solr.common.MapWriter;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.common.util.ContentStream;
+import org.apache.solr.handler.RequestHandlerBase;
+import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.response.SolrQueryResponse;
+import org.apache.solr.schema.FieldType;
+import org.apache.solr.security.AuthorizationContext;
+import org.apache.solr.security.PermissionNameProvider;
+import org.noggit.ObjectBuilder;
+
+/**
+ * Analyzes many documents with the analyzer of a field type, e.g.: to produce the tokens for a system
+ * downstream of Solr. Unlike the {@code FieldAnalysisRequestHandler}, which reflects every attribute of
+ * every stage of the analysis, only the requested attributes of the final tokens are written, and the
+ * response is written while the documents are analyzed, i.e.: it is never held in memory as a whole.
+ * Thus, the response is streamed by the {@code javabin} and {@code json} response writers, and by the
+ * {@link SudachiJsonLinesResponseWriter} as one JSON line per document.
+ *
+ * <p>The documents are the {@code doc} params, followed by the lines of the request body. A line is
+ * either the text of a document, or a JSON object with its {@code id} and {@code text}.
+ *
+ * <p>Each request creates the char filters, tokenizer and token filters of the analyzer anew, like the
+ * field analysis does, since the requested attributes are added to the token stream. Thus, the token
+ * streams, which the analyzer of the schema reuses for indexing and querying, are never changed.
+ *
+ * <pre>
+ * &lt;requestHandler name="/analysis/sudachi"
+ *     class="io.github.azagniotov.lucene.analysis.ja.sudachi.handler.SudachiBulkAnalysisRequestHandler" /&gt;
+ * </pre>
+ */
+public class SudachiBulkAnalysisRequestHandler extends RequestHandlerBase implements PermissionNameProvider {
+
+    public static final String DOCUMENTS = "documents";
+
+    static final String TERM = "term";
+    static final String START_OFFSET = "startOffset";
+    static final String END_OFFSET = "endOffset";
+    static final String POSITION_INCREMENT = "positionIncrement";
+    static final String POSITION_LENGTH = "positionLength";
+    static final String TYPE = "type";
+    static final String PART_OF_SPEECH = "partOfSpeech";
+    static final String BASE_FORM = "baseForm";
+    static final String READING_FORM = "readingForm";
+    static final String NORMALIZED_FORM = "normalizedForm";
+
+    // Solr does not analyze a field here, and the metrics of a SudachiAnalyzer are reported by field name
+    private static final String FIELD_NAME = SudachiTokenizer.DEFAULT_METRICS_FIELD;
+
+    private static final List<String> ATTRIBUTES = Arrays.asList(
+            TERM,
+            START_OFFSET,
+            END_OFFSET,
+            POSITION_INCREMENT,
+            POSITION_LENGTH,
+            TYPE,
+            PART_OF_SPEECH,
+            BASE_FORM,
+            READING_FORM,
+            NORMALIZED_FORM);
+
+    @Override
+    public void handleRequestBody(final SolrQueryRequest req, final SolrQueryResponse rsp) throws Exception {
+        final SolrParams params = req.getParams();
+        final String fieldTypeName = params.required().get("fieldType");
+        final FieldType fieldType = req.getSchema().getFieldTypeByName(fieldTypeName);
+        if (fieldType == null) {
+            throw new SolrException(SolrException.ErrorCode.BAD_REQUEST, "Unknown fieldType: " + fieldTypeName);
+        }
+        final String analyzerType = params.get("analyzer", "index");
+        final Analyzer analyzer;
+        if ("index".equals(analyzerType)) {
+            analyzer = fieldType.getIndexAnalyzer();
+        } else if ("query".equals(analyzerType)) {
+            analyzer = fieldType.getQueryAnalyzer();
+        } else {
+            throw new SolrException(
+                    SolrException.ErrorCode.BAD_REQUEST, "analyzer must be index or query: " + analyzerType);
+        }
+        final List<String> attributes = parseAttributes(params.get("attributes", TERM));
+
+        // Written, and thus analyzed, by the response writer
+        rsp.add(DOCUMENTS, (IteratorWriter) documents -> {
+            try (Analyzer requestAnalyzer = newChainOf(analyzer)) {
+                int ordinal = 0;
+                final String[] docs = params.getParams("doc");
+                if (docs != null) {
+                    for (final String text : docs) {
+                        documents.add(analyze(requestAnalyzer, String.valueOf(ordinal++), text, attributes));
+                    }
+                }
+                final Iterable<ContentStream> streams = req.getContentStreams();
+                if (streams == null) {
+                    return;
+                }
+                for (final ContentStream stream : streams) {
+                    try (BufferedReader reader = new BufferedReader(stream.getReader())) {
+                        String line;
+                        while ((line = reader.readLine()) != null) {
+                            if (line.isEmpty()) {
+                                continue;
+                            }
+                            final String id = String.valueOf(ordinal++);
+                            documents.add(analyzeLine(requestAnalyzer, id, line, attributes));
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * @return an analyzer, whose token streams are created by the components of the given one, e.g.: by the
+     *     factories of a {@link TokenizerChain}, and are reused only by this analyzer
+     */
+    static Analyzer newChainOf(final Analyzer analyzer) {
+        return new AnalyzerWrapper(Analyzer.GLOBAL_REUSE_STRATEGY) {
+            @Override
+            protected Analyzer getWrappedAnalyzer(final String fieldName) {
+                return analyzer;
+            }
+        };
+    }
+
+    static List<String> parseAttributes(final String attributes) {
+        final List<String> parsed = new ArrayList<>();
+        for (final String attribute : attributes.split(",")) {
+            final String name = attribute.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!ATTRIBUTES.contains(name)) {
+                throw new SolrException(
+                        SolrException.ErrorCode.BAD_REQUEST,
+                        "Unknown attribute: " + name + ", must be one of " + ATTRIBUTES);
+            }
+            parsed.add(name);
+        }
+        return parsed;
+    }
+
+    private static MapWriter analyzeLine(
+            final Analyzer analyzer,
+            final String ordinal,
+            final String line,
+            final List<String> attributes)
+            throws IOException {
+        if (!line.startsWith("{")) {
+            return analyze(analyzer, ordinal, line, attributes);
+        }
+        final Object json = ObjectBuilder.fromJSON(line);
+        if (!(json instanceof Map)) {
+            throw new SolrException(SolrException.ErrorCode.BAD_REQUEST, "Not a JSON object: " + line);
+        }
+        final Map<?, ?> document = (Map<?, ?>) json;
+        final Object text = document.get("text");
+        if (text == null) {
+            throw new SolrException(SolrException.ErrorCode.BAD_REQUEST, "Document without text: " + line);
+        }
+        final Object id = document.get("id");
+        return analyze(analyzer, id == null ? ordinal : id.toString(), text.toString(), attributes);
+    }
+
+    private static MapWriter analyze(
+            final Analyzer analyzer, final String id, final String text, final List<String> attributes) {
+        return document -> {
+            document.put("id", id);
+            document.put("tokens", (IteratorWriter) tokens -> writeTokens(analyzer, text, attributes, tokens));
+        };
+    }
+
+    private static void writeTokens(
+            final Analyzer analyzer,
+            final String text,
+            final List<String> attributes,
+            final IteratorWriter.ItemWriter tokens)
+            throws IOException {
+        try (TokenStream stream = analyzer.tokenStream(FIELD_NAME, text)) {
+            // Only the requested attributes are registered, thus filled by a tokenizer of the indexing profile
+            final List<Supplier<Object>> values = new ArrayList<>(attributes.size());
+            for (final String attribute : attributes) {
+                values.add(addAttribute(stream, attribute));
+            }
+            stream.reset();
+            while (stream.incrementToken()) {
+                tokens.add((MapWriter) token -> {
+                    for (int idx = 0; idx < values.size(); idx++) {
+                        token.put(attributes.get(idx), values.get(idx).get());
+                    }
+                });
+            }
+            stream.end();
+        }
+    }
+
+    /**
+     * @return the value of the attribute for the current token. The values are not dispatched on the
+     *     type of the attribute, since a packed attribute implements several of them
+     */
+    private static Supplier<Object> addAttribute(final TokenStream stream, final String attribute) {
+        switch (attribute) {
+            case TERM:
+                final CharTermAttribute termAtt = stream.addAttribute(CharTermAttribute.class);
+                return termAtt::toString;
+            case START_OFFSET:
+                final OffsetAttribute startOffsetAtt = stream.addAttribute(OffsetAttribute.class);
+                return startOffsetAtt::startOffset;
+            case END_OFFSET:
+                final OffsetAttribute endOffsetAtt = stream.addAttribute(OffsetAttribute.class);
+                return endOffsetAtt::endOffset;
+            case POSITION_INCREMENT:
+                final PositionIncrementAttribute posIncAtt = stream.addAttribute(PositionIncrementAttribute.class);
+                return posIncAtt::getPositionIncrement;
+            case POSITION_LENGTH:
+                final PositionLengthAttribute posLengthAtt = stream.addAttribute(PositionLengthAttribute.class);
+                return posLengthAtt::getPositionLength;
+            case TYPE:
+                final TypeAttribute typeAtt = stream.addAttribute(TypeAttribute.class);
+                return typeAtt::type;
+            case PART_OF_SPEECH:
+                return valueOf(stream.addAttribute(SudachiPartOfSpeechAttribute.class));
+            case BASE_FORM:
+                return valueOf(stream.addAttribute(SudachiBaseFormAttribute.class));
+            case READING_FORM:
+                return valueOf(stream.addAttribute(SudachiReadingFormAttribute.class));
+            case NORMALIZED_FORM:
+                return valueOf(stream.addAttribute(SudachiNormalizedFormAttribute.class));
+            default:
+                throw new IllegalArgumentException(attribute);
+        }
+    }
+
+    private static Supplier<Object> valueOf(final MorphemeReliantAttribute<?> att) {
+        return () -> att.getValue().orElse(null);
+    }
+
+    @Override
+    public String getDescription() {
+        return "Streams the requested token attributes of many documents, as analyzed by a field type";
+    }
+
+    @Override
+    public Category getCategory() {
+        return Category.QUERY;
+    }
+
+    @Override
+    public Name getPermissionName(final AuthorizationContext request) {
+        return Name.READ_PERM;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.handler;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.apache.solr.common.IteratorWriter;
+import org.apache.solr.common.util.Utils;
+import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.response.QueryResponseWriter;
+import org.apache.solr.response.SolrQueryResponse;
+
+/**
+ * Writes the documents of the {@link SudachiBulkAnalysisRequestHandler} as JSON lines, i.e.: one JSON
+ * object per document, which is written as soon as the document is analyzed. A failed request is
+ * written as one line with its error.
+ *
+ * <pre>
+ * &lt;queryResponseWriter name="jsonl"
+ *     class="io.github.azagniotov.lucene.analysis.ja.sudachi.handler.SudachiJsonLinesResponseWriter" /&gt;
+ * </pre>
+ */
+public class SudachiJsonLinesResponseWriter implements QueryResponseWriter {
+
+    static final String CONTENT_TYPE = "application/x-ndjson; charset=UTF-8";
+
+    @Override
+    public void write(final Writer writer, final SolrQueryRequest request, final SolrQueryResponse response)
+            throws IOException {
+        final Object documents = response.getValues().get(SudachiBulkAnalysisRequestHandler.DOCUMENTS);
+        if (response.getException() != null || !(documents instanceof IteratorWriter)) {
+            final Map<String, Object> error = new LinkedHashMap<>();
+            error.put(
+                    "error",
+                    response.getException() == null
+                            ? "No " + SudachiBulkAnalysisRequestHandler.DOCUMENTS + " in the response"
+                            : response.getException().getMessage());
+            writeLine(writer, error);
+            return;
+        }
+
+        ((IteratorWriter) documents).writeIter(new IteratorWriter.ItemWriter() {
+            @Override
+            public IteratorWriter.ItemWriter add(final Object document) throws IOException {
+                writeLine(writer, document);
+                return this;
+            }
+        });
+    }
+
+    private static void writeLine(final Writer writer, final Object value) throws IOException {
+        Utils.writeJson(value, writer, false);
+        writer.write('\n');
+    }
+
+    @Override
+    public String getContentType(final SolrQueryRequest request, final SolrQueryResponse response) {
+        return CONTENT_TYPE;
+    }
+}
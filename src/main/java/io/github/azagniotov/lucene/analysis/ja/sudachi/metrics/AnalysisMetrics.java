@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.metrics;
+
+import static com.worksap.nlp.sudachi.Tokenizer.SplitMode;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Analysis metrics of one field in one {@link SplitMode}. The counters are {@link LongAdder}s, i.e.:
+ * striped per CPU, so that the many indexing threads sharing the same field do not contend when
+ * flushing their {@link DocumentStats}.
+ */
+public final class AnalysisMetrics {
+
+    private final String field;
+    private final SplitMode mode;
+    private final LongAdder documents;
+    private final LongAdder chars;
+    private final LongAdder sentences;
+    private final LongAdder morphemes;
+    private final LongAdder punctuationDropped;
+    private final LongAdder oovMorphemes;
+    private final LongAdder deadlineExceeded;
+    private final LongAdder fallbackTokens;
+    private final LongAdder latinTokens;
+    private final LatencyHistogram latency;
+
+    AnalysisMetrics(final String field, final SplitMode mode) {
+        this.field = field;
+        this.mode = mode;
+        this.documents = new LongAdder();
+        this.chars = new LongAdder();
+        this.sentences = new LongAdder();
+        this.morphemes = new LongAdder();
+        this.punctuationDropped = new LongAdder();
+        this.oovMorphemes = new LongAdder();
+        this.deadlineExceeded = new LongAdder();
+        this.fallbackTokens = new LongAdder();
+        this.latinTokens = new LongAdder();
+        this.latency = new LatencyHistogram();
+    }
+
+    public void record(final DocumentStats stats) {
+        this.documents.increment();
+        this.chars.add(stats.getChars());
+        this.sentences.add(stats.getSentences());
+        this.morphemes.add(stats.getMorphemes());
+        this.punctuationDropped.add(stats.getPunctuationDropped());
+        this.oovMorphemes.add(stats.getOovMorphemes());
+        if (stats.isDeadlineExceeded()) {
+            this.deadlineExceeded.increment();
+            this.fallbackTokens.add(stats.getFallbackTokens());
+        }
+        this.latinTokens.add(stats.getLatinTokens());
+        this.latency.record(stats.getAnalysisNanos());
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public SplitMode getMode() {
+        return mode;
+    }
+
+    public long getDocuments() {
+        return documents.sum();
+    }
+
+    public long getChars() {
+        return chars.sum();
+    }
+
+    public long getSentences() {
+        return sentences.sum();
+    }
+
+    public long getMorphemes() {
+        return morphemes.sum();
+    }
+
+    public long getPunctuationDropped() {
+        return punctuationDropped.sum();
+    }
+
+    public long getOovMorphemes() {
+        return oovMorphemes.sum();
+    }
+
+    /** @return the number of documents, whose analysis ran out of time and fell back to cheap segmentation */
+    public long getDeadlineExceeded() {
+        return deadlineExceeded.sum();
+    }
+
+    public long getFallbackTokens() {
+        return fallbackTokens.sum();
+    }
+
+    /** @return the number of tokens of the long Latin runs, which were not analyzed by Sudachi */
+    public long getLatinTokens() {
+        return latinTokens.sum();
+    }
+
+    /** @return share of OOV morphemes among all the analyzed morphemes, between 0.0 and 1.0 */
+    public double getOovRate() {
+        final long analyzed = getMorphemes() + getPunctuationDropped();
+        return analyzed == 0 ? 0.0 : (double) getOovMorphemes() / analyzed;
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public Map<String, Object> toMap() {
+        final Map<String, Object> map = new LinkedHashMap<>();
+        map.put("field", field);
+        map.put("mode", mode.name());
+        map.put("documents", getDocuments());
+        map.put("chars", getChars());
+        map.put("sentences", getSentences());
+        map.put("morphemes", getMorphemes());
+        map.put("punctuationDropped", getPunctuationDropped());
+        map.put("oovMorphemes", getOovMorphemes());
+        map.put("oovRate", getOovRate());
+        map.put("deadlineExceeded", getDeadlineExceeded());
+        map.put("fallbackTokens", getFallbackTokens());
+        map.put("latinTokens", getLatinTokens());
+        map.put("latency", latency.toMap());
+        return map;
+    }
+}
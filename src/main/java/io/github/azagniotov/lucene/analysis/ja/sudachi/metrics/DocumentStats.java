@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.metrics;
+
+/**
+ * Plain (i.e.: not thread-safe) tallies of the analysis of a single document. One instance is owned
+ * by each tokenizer, it is updated on the hot path without any synchronization and it is flushed
+ * into the shared {@link AnalysisMetrics} only once per document.
+ */
+public final class DocumentStats {
+
+    private long chars;
+    private long sentences;
+    private long longestSentence;
+    private long morphemes;
+    private long punctuationDropped;
+    private long oovMorphemes;
+    private long analysisNanos;
+    private boolean deadlineExceeded;
+    private long fallbackTokens;
+    private long latinTokens;
+
+    public void clear() {
+        this.chars = 0;
+        this.sentences = 0;
+        this.longestSentence = 0;
+        this.morphemes = 0;
+        this.punctuationDropped = 0;
+        this.oovMorphemes = 0;
+        this.analysisNanos = 0;
+        this.deadlineExceeded = false;
+        this.fallbackTokens = 0;
+        this.latinTokens = 0;
+    }
+
+    public void onSentence(final int length) {
+        this.sentences++;
+        if (length > this.longestSentence) {
+            this.longestSentence = length;
+        }
+    }
+
+    public void onMorpheme(final boolean oov) {
+        this.morphemes++;
+        if (oov) {
+            this.oovMorphemes++;
+        }
+    }
+
+    public void onPunctuationDropped() {
+        this.punctuationDropped++;
+    }
+
+    public void onDeadlineExceeded() {
+        this.deadlineExceeded = true;
+    }
+
+    public void onFallbackToken() {
+        this.fallbackTokens++;
+    }
+
+    public void onLatinToken() {
+        this.latinTokens++;
+    }
+
+    public void addAnalysisNanos(final long nanos) {
+        this.analysisNanos += nanos;
+    }
+
+    public void setChars(final long chars) {
+        this.chars = chars;
+    }
+
+    public long getChars() {
+        return chars;
+    }
+
+    public long getSentences() {
+        return sentences;
+    }
+
+    public long getLongestSentence() {
+        return longestSentence;
+    }
+
+    public long getMorphemes() {
+        return morphemes;
+    }
+
+    public long getPunctuationDropped() {
+        return punctuationDropped;
+    }
+
+    public long getOovMorphemes() {
+        return oovMorphemes;
+    }
+
+    public long getAnalysisNanos() {
+        return analysisNanos;
+    }
+
+    public boolean isDeadlineExceeded() {
+        return deadlineExceeded;
+    }
+
+    public long getFallbackTokens() {
+        return fallbackTokens;
+    }
+
+    public long getLatinTokens() {
+        return latinTokens;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of latencies with power-of-two microsecond buckets, i.e.: bucket N counts the
+ * latencies in the [2^(N-1), 2^N) microseconds range. Percentiles are therefore reported as the
+ * upper bound of the bucket they fall into, which is precise enough to tell 1ms documents from 1s
+ * documents, while recording a value is only a couple of {@link LongAdder} increments.
+ */
+public final class LatencyHistogram {
+
+    private static final int BUCKETS = 40;
+
+    private final LongAdder[] buckets;
+    private final LongAdder count;
+    private final LongAdder totalNanos;
+    private final LongAccumulator maxNanos;
+
+    public LatencyHistogram() {
+        this.buckets = new LongAdder[BUCKETS];
+        for (int idx = 0; idx < BUCKETS; idx++) {
+            this.buckets[idx] = new LongAdder();
+        }
+        this.count = new LongAdder();
+        this.totalNanos = new LongAdder();
+        this.maxNanos = new LongAccumulator(Math::max, 0L);
+    }
+
+    public void record(final long nanos) {
+        final long value = Math.max(0L, nanos);
+        final long micros = TimeUnit.NANOSECONDS.toMicros(value);
+        final int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        this.buckets[bucket].increment();
+        this.count.increment();
+        this.totalNanos.add(value);
+        this.maxNanos.accumulate(value);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    public double getMeanNanos() {
+        final long samples = getCount();
+        return samples == 0 ? 0.0 : (double) getTotalNanos() / samples;
+    }
+
+    /**
+     * @param quantile a value between 0.0 and 1.0, e.g.: 0.99
+     * @return the upper bound (in nanoseconds) of the bucket containing the given quantile, capped
+     *     by the max recorded value
+     */
+    public long getQuantileNanos(final double quantile) {
+        if (quantile < 0.0 || quantile > 1.0) {
+            throw new IllegalArgumentException("Quantile must be between 0.0 and 1.0, was given " + quantile);
+        }
+        final long[] counts = new long[BUCKETS];
+        long samples = 0;
+        for (int idx = 0; idx < BUCKETS; idx++) {
+            counts[idx] = this.buckets[idx].sum();
+            samples += counts[idx];
+        }
+        if (samples == 0) {
+            return 0L;
+        }
+
+        final long rank = Math.max(1L, (long) Math.ceil(quantile * samples));
+        long seen = 0;
+        for (int idx = 0; idx < BUCKETS; idx++) {
+            seen += counts[idx];
+            if (seen >= rank) {
+                final long upperBoundNanos = TimeUnit.MICROSECONDS.toNanos(1L << idx);
+                return Math.min(upperBoundNanos, getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+
+    public Map<String, Object> toMap() {
+        final Map<String, Object> map = new LinkedHashMap<>();
+        map.put("count", getCount());
+        map.put("meanMs", toMillis(getMeanNanos()));
+        map.put("p50Ms", toMillis(getQuantileNanos(0.50)));
+        map.put("p75Ms", toMillis(getQuantileNanos(0.75)));
+        map.put("p95Ms", toMillis(getQuantileNanos(0.95)));
+        map.put("p99Ms", toMillis(getQuantileNanos(0.99)));
+        map.put("p999Ms", toMillis(getQuantileNanos(0.999)));
+        map.put("maxMs", toMillis(getMaxNanos()));
+        return map;
+    }
+
+    private static double toMillis(final double nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
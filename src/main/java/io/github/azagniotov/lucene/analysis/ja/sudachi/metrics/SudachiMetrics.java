@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.metrics;
+
+import static com.worksap.nlp.sudachi.Tokenizer.SplitMode;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JVM-wide registry of the Sudachi analysis metrics, kept per field and per {@link SplitMode}.
+ *
+ * <p>The registry has no dependency on a metrics library. Solr can bridge it from a {@code
+ * SolrMetricProducer}, e.g.: by registering a {@code MetricsMap} gauge backed by {@link #toMap()}.
+ */
+public enum SudachiMetrics {
+    INSTANCE;
+
+    private final Map<String, AnalysisMetrics> metrics;
+    // Set on the threads, whose token streams currently run over many documents at once
+    private final ThreadLocal<Boolean> documentMetricsSuspended;
+
+    SudachiMetrics() {
+        metrics = new ConcurrentHashMap<>();
+        documentMetricsSuspended = new ThreadLocal<>();
+    }
+
+    public AnalysisMetrics forField(final String field, final SplitMode mode) {
+        return this.metrics.computeIfAbsent(
+                field + "/" + mode.name(), key -> new AnalysisMetrics(field, mode));
+    }
+
+    /**
+     * Leaves the token streams, which the current thread runs until {@link #resumeDocumentMetrics()},
+     * out of the per-document metrics and JFR events, e.g.: a micro-batch of many documents analyzed
+     * as one input, which is not one document.
+     */
+    public void suspendDocumentMetrics() {
+        this.documentMetricsSuspended.set(Boolean.TRUE);
+    }
+
+    public void resumeDocumentMetrics() {
+        this.documentMetricsSuspended.remove();
+    }
+
+    public boolean isDocumentMetricsSuspended() {
+        return this.documentMetricsSuspended.get() != null;
+    }
+
+    public List<AnalysisMetrics> all() {
+        final List<AnalysisMetrics> all = new ArrayList<>(this.metrics.values());
+        all.sort(Comparator.comparing(AnalysisMetrics::getField).thenComparing(AnalysisMetrics::getMode));
+        return all;
+    }
+
+    /** @return the metrics keyed by "field/mode", e.g.: "content_ja/A" */
+    public Map<String, Object> toMap() {
+        final Map<String, Object> map = new LinkedHashMap<>();
+        for (final AnalysisMetrics fieldMetrics : all()) {
+            map.put(fieldMetrics.getField() + "/" + fieldMetrics.getMode().name(), fieldMetrics.toMap());
+        }
+        return map;
+    }
+}
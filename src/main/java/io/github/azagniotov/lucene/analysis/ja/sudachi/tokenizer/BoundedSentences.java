@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.tokenizer;
+
+import com.worksap.nlp.sudachi.Morpheme;
+import com.worksap.nlp.sudachi.Tokenizer;
+import com.worksap.nlp.sudachi.Tokenizer.SplitMode;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.util.Strings;
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import org.apache.lucene.util.RamUsageEstimator;
+
+/**
+ * Sentences of an input, none of which is longer than {@code maxSentenceLength} chars, thus the
+ * Sudachi lattice cannot grow past that size, whatever the input looks like.
+ *
+ * <p>The input is handed to Sudachi in chunks of at most {@code maxSentenceLength} chars, and Sudachi
+ * detects the sentences within each chunk. A chunk is cut at the last safe boundary in its second
+ * half, in the order of preference: after a sentence ending or a newline, after punctuation or a
+ * space, before a change of script (e.g.: from katakana to Latin). Failing all of them, the chunk is
+ * cut at {@code maxSentenceLength}, but never between the chars of a surrogate pair.
+ *
+ * <p>The chunks are contiguous, thus the offsets of their sentences add up to the document offsets
+ * the same way as the sentences Sudachi detects in a whole document.
+ */
+final class BoundedSentences implements Iterator<List<Morpheme>> {
+
+    private final char[] chunk;
+    private Tokenizer tokenizer;
+    private SplitMode mode;
+    private Reader reader;
+    private Iterator<List<Morpheme>> sentences;
+    private int length;
+    private int chunkEnd;
+    private boolean eof;
+
+    BoundedSentences(final int maxSentenceLength) {
+        this.chunk = new char[maxSentenceLength];
+        this.sentences = Collections.emptyIterator();
+    }
+
+    BoundedSentences reset(final Tokenizer tokenizer, final SplitMode mode, final Reader reader) {
+        this.tokenizer = tokenizer;
+        this.mode = mode;
+        this.reader = reader;
+        this.sentences = Collections.emptyIterator();
+        this.length = 0;
+        this.chunkEnd = 0;
+        this.eof = false;
+        return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!this.sentences.hasNext()) {
+            if (!nextChunk()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public List<Morpheme> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return this.sentences.next();
+    }
+
+    long ramBytesUsed() {
+        return RamUsageEstimator.sizeOf(this.chunk);
+    }
+
+    private boolean nextChunk() {
+        // The chars after the previous cut start the next chunk
+        this.length -= this.chunkEnd;
+        System.arraycopy(this.chunk, this.chunkEnd, this.chunk, 0, this.length);
+        this.chunkEnd = 0;
+
+        try {
+            while (!this.eof && this.length < this.chunk.length) {
+                final int read = this.reader.read(this.chunk, this.length, this.chunk.length - this.length);
+                if (read == -1) {
+                    this.eof = true;
+                } else {
+                    this.length += read;
+                }
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (this.length == 0) {
+            return false;
+        }
+
+        this.chunkEnd = this.eof ? this.length : safeBoundary(this.chunk, this.length);
+        // Sudachi has read the whole chunk by the time its sentences are exhausted, thus the chunk
+        // buffer is not shifted under its reader
+        this.sentences =
+                this.tokenizer.lazyTokenizeSentences(this.mode, new CharArrayReader(this.chunk, 0, this.chunkEnd));
+        return true;
+    }
+
+    static int safeBoundary(final char[] text, final int length) {
+        final int lowest = Math.max(1, length / 2);
+
+        for (int idx = length; idx >= lowest; idx--) {
+            if (isSentenceEnd(text[idx - 1])) {
+                return idx;
+            }
+        }
+        for (int idx = length; idx >= lowest; idx--) {
+            final char previous = text[idx - 1];
+            if (!Character.isSurrogate(previous) && Strings.isPunctuation(previous)) {
+                return idx;
+            }
+        }
+        for (int idx = length - 1; idx >= lowest; idx--) {
+            if (isScriptChange(text[idx - 1], text[idx])) {
+                return idx;
+            }
+        }
+        return Character.isHighSurrogate(text[length - 1]) ? length - 1 : length;
+    }
+
+    private static boolean isSentenceEnd(final char ch) {
+        switch (ch) {
+            case '。':
+            case '．':
+            case '！':
+            case '？':
+            case '!':
+            case '?':
+            case '\n':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    // The okurigana and particles following a kanji or katakana word are not split off
+    private static boolean isScriptChange(final char previous, final char next) {
+        final Character.UnicodeScript previousScript = Character.UnicodeScript.of(previous);
+        final Character.UnicodeScript nextScript = Character.UnicodeScript.of(next);
+        return previousScript != nextScript
+                && isSplittable(previousScript)
+                && isSplittable(nextScript)
+                && nextScript != Character.UnicodeScript.HIRAGANA;
+    }
+
+    // The prolonged sound mark, iteration marks and the combining marks belong to the preceding char
+    private static boolean isSplittable(final Character.UnicodeScript script) {
+        return script != Character.UnicodeScript.COMMON
+                && script != Character.UnicodeScript.INHERITED
+                && script != Character.UnicodeScript.UNKNOWN;
+    }
+}
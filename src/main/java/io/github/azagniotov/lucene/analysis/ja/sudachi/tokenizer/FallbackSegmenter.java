@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.tokenizer;
+
+import io.github.azagniotov.lucene.analysis.ja.sudachi.util.Strings;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Cheap segmentation of the rest of a document, once its analysis by Sudachi has run out of time.
+ * The text is split into runs of the same character class (hiragana, katakana, Latin letters and
+ * digits, etc.), and the kanji runs are split into overlapping bigrams, the way Lucene's {@code
+ * CJKBigramFilter} does it. The prolonged sound mark and the combining marks stay in the run they
+ * follow. Punctuation and spaces are either dropped or emitted one char at a time.
+ *
+ * <p>The instance is reused across documents, the text is read through a small reusable buffer.
+ */
+final class FallbackSegmenter {
+
+    private static final int BUFFER_SIZE = 1024;
+
+    private static final int HAN = 1;
+    private static final int HIRAGANA = 2;
+    private static final int KATAKANA = 3;
+    private static final int LETTER_OR_DIGIT = 4;
+    private static final int PUNCTUATION = 5;
+    private static final int JOINER = 6;
+    private static final int OTHER = 7;
+
+    private final char[] buffer;
+    private Reader reader;
+    private boolean discardPunctuation;
+    // Absolute (i.e.: document) offset of buffer[0]
+    private int bufferStart;
+    private int length;
+    private int position;
+    private boolean eof;
+    private boolean previousBigram;
+    private int begin;
+    private int end;
+
+    FallbackSegmenter() {
+        this.buffer = new char[BUFFER_SIZE];
+    }
+
+    /** @param startOffset absolute offset of the first char the reader returns */
+    FallbackSegmenter reset(final Reader reader, final int startOffset, final boolean discardPunctuation) {
+        this.reader = reader;
+        this.discardPunctuation = discardPunctuation;
+        this.bufferStart = startOffset;
+        this.length = 0;
+        this.position = 0;
+        this.eof = false;
+        this.previousBigram = false;
+        return this;
+    }
+
+    /** @return absolute start offset of the current token */
+    int begin() {
+        return begin;
+    }
+
+    /** @return absolute end offset of the current token */
+    int end() {
+        return end;
+    }
+
+    /** @return absolute offset of the first char, which has not been segmented yet */
+    int offset() {
+        return this.bufferStart + this.position;
+    }
+
+    boolean next() throws IOException {
+        while (true) {
+            final int codePoint = peek(0);
+            if (codePoint == -1) {
+                return false;
+            }
+            final int charCount = Character.charCount(codePoint);
+            final int charClass = classOf(codePoint);
+
+            if (charClass == PUNCTUATION) {
+                this.previousBigram = false;
+                this.begin = offset();
+                this.position += charCount;
+                if (this.discardPunctuation) {
+                    continue;
+                }
+                this.end = offset();
+                return true;
+            }
+
+            if (charClass == HAN) {
+                final int nextCodePoint = peek(charCount);
+                this.begin = offset();
+                this.position += charCount;
+                if (nextCodePoint != -1 && classOf(nextCodePoint) == HAN) {
+                    // Overlapping bigram, the next one starts at its second char
+                    this.end = offset() + Character.charCount(nextCodePoint);
+                    this.previousBigram = true;
+                    return true;
+                }
+                if (this.previousBigram) {
+                    // The last char of the run is already in the previous bigram
+                    this.previousBigram = false;
+                    continue;
+                }
+                this.end = offset();
+                return true;
+            }
+
+            this.previousBigram = false;
+            this.begin = offset();
+            this.position += charCount;
+            while (true) {
+                final int nextCodePoint = peek(0);
+                if (nextCodePoint == -1) {
+                    break;
+                }
+                final int nextCharClass = classOf(nextCodePoint);
+                if (nextCharClass != charClass && (nextCharClass != JOINER || charClass == OTHER)) {
+                    break;
+                }
+                this.position += Character.charCount(nextCodePoint);
+            }
+            this.end = offset();
+            return true;
+        }
+    }
+
+    /** @return the code point at the given char distance from the current position, or -1 at the end */
+    private int peek(final int distance) throws IOException {
+        // A surrogate pair needs two chars
+        if (!fill(distance + 2) && this.position + distance >= this.length) {
+            return -1;
+        }
+        return Character.codePointAt(this.buffer, this.position + distance, this.length);
+    }
+
+    /** @return whether the given number of chars is available from the current position */
+    private boolean fill(final int needed) throws IOException {
+        if (this.position + needed <= this.length) {
+            return true;
+        }
+        if (this.position > 0) {
+            System.arraycopy(this.buffer, this.position, this.buffer, 0, this.length - this.position);
+            this.bufferStart += this.position;
+            this.length -= this.position;
+            this.position = 0;
+        }
+        while (!this.eof && this.length < needed) {
+            final int read = this.reader.read(this.buffer, this.length, this.buffer.length - this.length);
+            if (read == -1) {
+                this.eof = true;
+            } else {
+                this.length += read;
+            }
+        }
+        return this.length >= needed;
+    }
+
+    private static int classOf(final int codePoint) {
+        if (Strings.isPunctuation(codePoint)) {
+            return PUNCTUATION;
+        }
+        final Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        if (script == Character.UnicodeScript.HAN) {
+            return HAN;
+        } else if (script == Character.UnicodeScript.HIRAGANA) {
+            return HIRAGANA;
+        } else if (script == Character.UnicodeScript.KATAKANA) {
+            return KATAKANA;
+        }
+        final int type = Character.getType(codePoint);
+        if (type == Character.MODIFIER_LETTER
+                || type == Character.NON_SPACING_MARK
+                || type == Character.COMBINING_SPACING_MARK
+                || type == Character.ENCLOSING_MARK) {
+            // e.g.: the prolonged sound mark, the (semi-)voiced sound marks
+            return JOINER;
+        } else if (Character.isLetterOrDigit(codePoint)) {
+            return LETTER_OR_DIGIT;
+        }
+        return OTHER;
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.tokenizer;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Splits a document into the long runs of Latin letters, digits, ASCII symbols and spaces (English
+ * text, code, logs, URLs) and the spans in between, so that only the latter are analyzed by Sudachi.
+ * A Latin run is segmented by a cheap letter/digit tokenizer: a token is a run of letters and digits,
+ * everything else is a separator, which is either dropped or emitted one char at a time. Spaces are
+ * always dropped, as the tokenizers of the Latin languages do. Shorter
+ * Latin runs, e.g.: a product name within a Japanese sentence, stay in the span analyzed by Sudachi.
+ *
+ * <p>The instance is reused across documents, the text is read through a reusable buffer, which
+ * holds enough chars to tell whether a Latin run is long enough to be split off.
+ */
+final class LatinRunSplitter {
+
+    static final int END = 0;
+    static final int LATIN = 1;
+    static final int JAPANESE = 2;
+
+    private static final int BUFFER_SIZE = 1024;
+
+    private final int minRunLength;
+    private final char[] buffer;
+    private final Reader japaneseSpan;
+    private Reader reader;
+    private boolean discardPunctuation;
+    // Absolute (i.e.: document) offset of buffer[0]
+    private int bufferStart;
+    private int length;
+    private int position;
+    private boolean eof;
+    private boolean spanEnded;
+    private int spanStart;
+    private int begin;
+    private int end;
+
+    LatinRunSplitter(final int minRunLength) {
+        if (minRunLength < 1) {
+            throw new IllegalArgumentException("minRunLength must be positive: " + minRunLength);
+        }
+        this.minRunLength = minRunLength;
+        this.buffer = new char[Math.max(BUFFER_SIZE, 2 * minRunLength)];
+        this.japaneseSpan = new JapaneseSpanReader();
+    }
+
+    LatinRunSplitter reset(final Reader reader, final boolean discardPunctuation) {
+        this.reader = reader;
+        this.discardPunctuation = discardPunctuation;
+        this.bufferStart = 0;
+        this.length = 0;
+        this.position = 0;
+        this.eof = false;
+        this.spanEnded = true;
+        this.spanStart = 0;
+        return this;
+    }
+
+    /**
+     * Starts the next span, once the current one has been read to its end, i.e.: either the {@link
+     * #japaneseSpan()} reader has returned -1, or {@link #nextLatinToken()} has returned false.
+     *
+     * @return {@link #LATIN}, {@link #JAPANESE} or {@link #END}
+     */
+    int nextSpan() throws IOException {
+        if (!fill(1)) {
+            return END;
+        }
+        this.spanStart = offset();
+        if (latinRunLength() >= this.minRunLength) {
+            return LATIN;
+        }
+        this.spanEnded = false;
+        return JAPANESE;
+    }
+
+    /** @return absolute start offset of the current span */
+    int spanStart() {
+        return spanStart;
+    }
+
+    /** @return the chars of the current {@link #JAPANESE} span, up to the next long Latin run */
+    Reader japaneseSpan() {
+        return japaneseSpan;
+    }
+
+    /** @return whether there is one more token in the current {@link #LATIN} span */
+    boolean nextLatinToken() throws IOException {
+        while (fill(1)) {
+            final char c = this.buffer[this.position];
+            if (!isLatin(c)) {
+                return false;
+            }
+            this.begin = offset();
+            this.position++;
+            if (Character.isLetterOrDigit(c)) {
+                while (fill(1) && isLatinLetterOrDigit(this.buffer[this.position])) {
+                    this.position++;
+                }
+            } else if (this.discardPunctuation || isSpace(c)) {
+                continue;
+            }
+            this.end = offset();
+            return true;
+        }
+        return false;
+    }
+
+    /** @return absolute start offset of the current Latin token */
+    int begin() {
+        return begin;
+    }
+
+    /** @return absolute end offset of the current Latin token */
+    int end() {
+        return end;
+    }
+
+    /** @return absolute offset of the first char, which has not been split off yet */
+    int offset() {
+        return this.bufferStart + this.position;
+    }
+
+    /** @return the length of the Latin run at the current position, counted up to the min run length */
+    private int latinRunLength() throws IOException {
+        int runLength = 0;
+        while (runLength < this.minRunLength
+                && fill(runLength + 1)
+                && isLatin(this.buffer[this.position + runLength])) {
+            runLength++;
+        }
+        return runLength;
+    }
+
+    /** @return whether the given number of chars is available from the current position */
+    private boolean fill(final int needed) throws IOException {
+        if (this.position + needed <= this.length) {
+            return true;
+        }
+        if (this.position > 0) {
+            System.arraycopy(this.buffer, this.position, this.buffer, 0, this.length - this.position);
+            this.bufferStart += this.position;
+            this.length -= this.position;
+            this.position = 0;
+        }
+        while (!this.eof && this.length < needed) {
+            final int read = this.reader.read(this.buffer, this.length, this.buffer.length - this.length);
+            if (read == -1) {
+                this.eof = true;
+            } else {
+                this.length += read;
+            }
+        }
+        return this.length >= needed;
+    }
+
+    /**
+     * Latin letters, digits, ASCII symbols and spaces. The fullwidth forms are not, since Sudachi
+     * normalizes them.
+     */
+    static boolean isLatin(final char c) {
+        if (c < 0x80) {
+            return c >= 0x20 || c == '\t' || c == '\n' || c == '\r';
+        }
+        // Latin-1 Supplement, Latin Extended-A and B
+        return c >= 0xA0 && c <= 0x24F;
+    }
+
+    private static boolean isSpace(final char c) {
+        return Character.isWhitespace(c) || Character.isSpaceChar(c);
+    }
+
+    private static boolean isLatinLetterOrDigit(final char c) {
+        return isLatin(c) && Character.isLetterOrDigit(c);
+    }
+
+    private final class JapaneseSpanReader extends Reader {
+
+        @Override
+        public int read(final char[] chars, final int offset, final int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            int read = 0;
+            while (!spanEnded && read < len && fill(1)) {
+                if (!isLatin(buffer[position])) {
+                    chars[offset + read++] = buffer[position++];
+                    continue;
+                }
+                final int runLength = latinRunLength();
+                if (runLength >= minRunLength) {
+                    spanEnded = true;
+                    break;
+                }
+                // A short Latin run stays in the span
+                final int count = Math.min(runLength, len - read);
+                System.arraycopy(buffer, position, chars, offset + read, count);
+                position += count;
+                read += count;
+            }
+            if (read == 0) {
+                spanEnded = true;
+                return -1;
+            }
+            return read;
+        }
+
+        @Override
+        public void close() {
+            // The document reader is closed by the tokenizer
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.tokenizer;
+
+import com.worksap.nlp.sudachi.Morpheme;
+import java.util.List;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.RamUsageEstimator;
+
+/**
+ * Offsets, word ids, part-of-speech ids and OOV flags of the morphemes of the current sentence, which
+ * are kept in parallel arrays that are reused across sentences and documents.
+ *
+ * <p>Sudachi materializes a new {@link Morpheme} on every {@code MorphemeList.get()}, and the
+ * part-of-speech id decodes the word info of the morpheme. Thus, each morpheme is materialized once
+ * while the sentence is buffered, its ids are copied and the morpheme itself is not retained. Filters
+ * read the ids through the {@code SudachiMorphemeIdsAttribute}, without a {@link Morpheme} per token.
+ * Only the sentence list, which Sudachi holds anyway, is kept, so that a {@link Morpheme} can be
+ * materialized again when the token stream asks for it.
+ */
+final class MorphemeBuffer {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int FLAG_OOV = 1;
+
+    private int size;
+    private int[] begins;
+    private int[] ends;
+    private int[] wordIds;
+    private int[] partOfSpeechIds;
+    private int[] flags;
+    private List<Morpheme> sentence;
+
+    MorphemeBuffer() {
+        allocate();
+    }
+
+    private void allocate() {
+        this.begins = new int[INITIAL_CAPACITY];
+        this.ends = new int[INITIAL_CAPACITY];
+        this.wordIds = new int[INITIAL_CAPACITY];
+        this.partOfSpeechIds = new int[INITIAL_CAPACITY];
+        this.flags = new int[INITIAL_CAPACITY];
+    }
+
+    void fill(final List<Morpheme> sentence) {
+        clear();
+        final int sentenceSize = sentence.size();
+        ensureCapacity(sentenceSize);
+        for (int idx = 0; idx < sentenceSize; idx++) {
+            final Morpheme morpheme = sentence.get(idx);
+            this.begins[idx] = morpheme.begin();
+            this.ends[idx] = morpheme.end();
+            this.wordIds[idx] = morpheme.getWordId();
+            this.partOfSpeechIds[idx] = morpheme.partOfSpeechId();
+            this.flags[idx] = morpheme.isOOV() ? FLAG_OOV : 0;
+        }
+        this.sentence = sentence;
+        this.size = sentenceSize;
+    }
+
+    /** Releases the current sentence, the arrays are kept for reuse */
+    void clear() {
+        this.sentence = null;
+        this.size = 0;
+    }
+
+    /** Releases the arrays, when they have grown past their initial capacity */
+    void shrink() {
+        clear();
+        if (this.begins.length > INITIAL_CAPACITY) {
+            allocate();
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** @return the sentence length in chars, i.e.: the end offset of its last morpheme */
+    int sentenceLength() {
+        return size == 0 ? 0 : ends[size - 1];
+    }
+
+    int begin(final int index) {
+        return begins[index];
+    }
+
+    int end(final int index) {
+        return ends[index];
+    }
+
+    int wordId(final int index) {
+        return wordIds[index];
+    }
+
+    int partOfSpeechId(final int index) {
+        return partOfSpeechIds[index];
+    }
+
+    boolean isOOV(final int index) {
+        return (flags[index] & FLAG_OOV) != 0;
+    }
+
+    /** Materializes a new {@link Morpheme}, i.e.: the call is not free */
+    Morpheme morpheme(final int index) {
+        return sentence.get(index);
+    }
+
+    long ramBytesUsed() {
+        return RamUsageEstimator.sizeOf(begins)
+                + RamUsageEstimator.sizeOf(ends)
+                + RamUsageEstimator.sizeOf(wordIds)
+                + RamUsageEstimator.sizeOf(partOfSpeechIds)
+                + RamUsageEstimator.sizeOf(flags);
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (capacity <= this.begins.length) {
+            return;
+        }
+        this.begins = ArrayUtil.grow(this.begins, capacity);
+        final int newLength = this.begins.length;
+        this.ends = ArrayUtil.growExact(this.ends, newLength);
+        this.wordIds = ArrayUtil.growExact(this.wordIds, newLength);
+        this.partOfSpeechIds = ArrayUtil.growExact(this.partOfSpeechIds, newLength);
+        this.flags = ArrayUtil.growExact(this.flags, newLength);
+    }
+}
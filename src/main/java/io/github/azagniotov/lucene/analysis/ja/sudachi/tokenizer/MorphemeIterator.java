@@ -31,9 +31,17 @@ public interface MorphemeIterator {
         public int getBaseOffset() {
             return 0;
         }
+
+        @Override
+        public int position() {
+            return -1;
+        }
     };
 
     Morpheme next();
 
     int getBaseOffset();
+
+    /** @return index of the last returned morpheme in the current sentence, or -1 */
+    int position();
 }
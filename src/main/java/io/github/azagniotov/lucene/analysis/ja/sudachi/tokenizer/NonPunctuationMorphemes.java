@@ -17,13 +17,37 @@
 package io.github.azagniotov.lucene.analysis.ja.sudachi.tokenizer;
 
 import com.worksap.nlp.sudachi.Morpheme;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.metrics.DocumentStats;
 import io.github.azagniotov.lucene.analysis.ja.sudachi.util.Strings;
 
 class NonPunctuationMorphemes implements MorphemeIterator {
-    private MorphemeIterator inner;
+    private final MorphemeIterator inner;
+    private final DocumentStats documentStats;
+    // Set when the punctuation is decided by the part-of-speech id, otherwise by the normalized form
+    private final PunctuationClassifier punctuationClassifier;
+    private final MorphemeBuffer buffer;
+    private final TextWindowReader textWindowReader;
 
-    NonPunctuationMorphemes(final MorphemeIterator inner) {
+    NonPunctuationMorphemes(final MorphemeIterator inner, final DocumentStats documentStats) {
+        this(inner, documentStats, null, null);
+    }
+
+    /**
+     * Decides the punctuation by the part-of-speech id, see {@link PunctuationClassifier}.
+     *
+     * @param buffer the buffer of the sentence which the inner iterator walks
+     * @param textWindowReader the reader whose window holds the surface chars of the morphemes
+     */
+    NonPunctuationMorphemes(
+            final MorphemeIterator inner,
+            final DocumentStats documentStats,
+            final MorphemeBuffer buffer,
+            final TextWindowReader textWindowReader) {
         this.inner = inner;
+        this.documentStats = documentStats;
+        this.buffer = buffer;
+        this.textWindowReader = textWindowReader;
+        this.punctuationClassifier = buffer == null ? null : new PunctuationClassifier();
     }
 
     @Override
@@ -33,14 +57,34 @@ class NonPunctuationMorphemes implements MorphemeIterator {
             if (next == null) {
                 return null;
             }
-            if (!Strings.isPunctuation(next.normalizedForm())) {
+            if (!isPunctuation(next)) {
                 return next;
             }
+            this.documentStats.onPunctuationDropped();
         }
     }
 
+    private boolean isPunctuation(final Morpheme morpheme) {
+        if (this.punctuationClassifier == null) {
+            return Strings.isPunctuation(morpheme.normalizedForm());
+        }
+
+        final int position = inner.position();
+        final int begin = inner.getBaseOffset() + this.buffer.begin(position);
+        final int end = inner.getBaseOffset() + this.buffer.end(position);
+        final boolean surfaceIsPunctuation = this.textWindowReader.contains(begin, end)
+                ? this.textWindowReader.isPunctuation(begin, end)
+                : Strings.isPunctuation(morpheme.surface());
+        return this.punctuationClassifier.isPunctuation(this.buffer, position, morpheme, surfaceIsPunctuation);
+    }
+
     @Override
     public int getBaseOffset() {
         return inner.getBaseOffset();
     }
+
+    @Override
+    public int position() {
+        return inner.position();
+    }
 }
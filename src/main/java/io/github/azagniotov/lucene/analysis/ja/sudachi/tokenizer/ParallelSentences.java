@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.tokenizer;
+
+import com.worksap.nlp.sudachi.Morpheme;
+import com.worksap.nlp.sudachi.Tokenizer.SplitMode;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Sentences of a whole document, which are analyzed concurrently on a {@link SentenceAnalysisPool}
+ * and handed out in the document order, thus the offsets of the sentences add up the same way as when
+ * Sudachi analyzes the document sentence after sentence.
+ *
+ * <p>The document is cut into chunks of about {@link #CHUNK_LENGTH} chars after a sentence ending,
+ * which is followed by a newline and is not within brackets, i.e.: where Sudachi ends a sentence
+ * anyway. A document without such a place is analyzed as one chunk. At most two chunks per pool thread
+ * are analyzed or waiting to be handed out at a time, thus the morphemes of a document are not held in
+ * memory all at once.
+ */
+final class ParallelSentences implements Iterator<List<Morpheme>> {
+
+    static final int CHUNK_LENGTH = 16 * 1024;
+
+    private final SentenceAnalysisPool pool;
+    private final int maxInFlight;
+    private final ArrayDeque<ForkJoinTask<List<List<Morpheme>>>> inFlight;
+    private SplitMode mode;
+    private int maxSentenceLength;
+    private char[] text;
+    private int length;
+    private int nextChunkStart;
+    private Iterator<List<Morpheme>> sentences;
+
+    ParallelSentences(final SentenceAnalysisPool pool) {
+        this.pool = pool;
+        this.maxInFlight = 2 * pool.getParallelism();
+        this.inFlight = new ArrayDeque<>(this.maxInFlight);
+        this.sentences = Collections.emptyIterator();
+    }
+
+    /** @return false once the pool has been closed, e.g.: together with the Solr core */
+    boolean isAvailable() {
+        return !this.pool.isShutdown();
+    }
+
+    /** @param text the document, which is not modified until {@link #cancel()} */
+    ParallelSentences reset(final SplitMode mode, final int maxSentenceLength, final char[] text, final int length) {
+        cancel();
+        this.mode = mode;
+        this.maxSentenceLength = maxSentenceLength;
+        this.text = text;
+        this.length = length;
+        this.nextChunkStart = 0;
+        submitChunks();
+        return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!this.sentences.hasNext()) {
+            final ForkJoinTask<List<List<Morpheme>>> chunk = this.inFlight.poll();
+            if (chunk == null) {
+                return false;
+            }
+            // Rethrows the exception, if the analysis of the chunk has failed
+            this.sentences = chunk.join().iterator();
+            submitChunks();
+        }
+        return true;
+    }
+
+    @Override
+    public List<Morpheme> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return this.sentences.next();
+    }
+
+    /** Cancels the chunks which have not been analyzed yet, and lets go of the document */
+    void cancel() {
+        ForkJoinTask<List<List<Morpheme>>> chunk;
+        while ((chunk = this.inFlight.poll()) != null) {
+            chunk.cancel(false);
+        }
+        this.sentences = Collections.emptyIterator();
+        this.text = null;
+        this.length = 0;
+        this.nextChunkStart = 0;
+    }
+
+    private void submitChunks() {
+        while (this.inFlight.size() < this.maxInFlight && this.nextChunkStart < this.length) {
+            final int chunkEnd = chunkEnd(this.text, this.nextChunkStart, this.length);
+            final String chunk = new String(this.text, this.nextChunkStart, chunkEnd - this.nextChunkStart);
+            this.inFlight.add(this.pool.submit(this.mode, chunk, this.maxSentenceLength));
+            this.nextChunkStart = chunkEnd;
+        }
+    }
+
+    /** @return the end of the chunk, which starts at the given offset */
+    static int chunkEnd(final char[] text, final int chunkStart, final int length) {
+        if (length - chunkStart <= CHUNK_LENGTH) {
+            return length;
+        }
+        // Sudachi does not end a sentence within brackets
+        int depth = 0;
+        for (int idx = chunkStart; idx < length - 1; idx++) {
+            final int type = Character.getType(text[idx]);
+            if (type == Character.START_PUNCTUATION) {
+                depth++;
+            } else if (type == Character.END_PUNCTUATION) {
+                depth = Math.max(0, depth - 1);
+            } else if (depth == 0
+                    && idx >= chunkStart + CHUNK_LENGTH
+                    && isSentenceEnding(text[idx])
+                    && text[idx + 1] == '\n') {
+                return idx + 1;
+            }
+        }
+        return length;
+    }
+
+    private static boolean isSentenceEnding(final char c) {
+        return c == '。' || c == '！' || c == '？';
+    }
+}
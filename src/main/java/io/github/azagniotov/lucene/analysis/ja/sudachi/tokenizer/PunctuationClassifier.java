@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.tokenizer;
+
+import com.worksap.nlp.sudachi.Morpheme;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.util.Strings;
+import java.util.List;
+import org.apache.lucene.util.ArrayUtil;
+
+/**
+ * Decides whether a morpheme is punctuation from its part-of-speech id and the chars of its surface,
+ * so that the word info of a morpheme (i.e.: its normalized form) is decoded only when the two
+ * disagree, see {@link SudachiTokenizerOptions.Builder#punctuationByPartOfSpeech(boolean)}.
+ *
+ * <ul>
+ *   <li>a 補助記号 (supplementary symbol), 空白 (whitespace) or 記号 (symbol) morpheme, whose surface
+ *       is only punctuation, is punctuation
+ *   <li>a morpheme of any other part-of-speech, whose surface is not only punctuation, is not
+ *   <li>an OOV morpheme is punctuation when its surface is only punctuation, as its normalized form is
+ *       the surface
+ *   <li>otherwise, e.g.: "％" as a noun or "ー" as a supplementary symbol, the normalized form decides,
+ *       the same as without the option
+ * </ul>
+ *
+ * <p>The surface chars are looked up in the precomputed BMP bitset of {@link Strings}. The class of a
+ * part-of-speech id is looked up in the dictionary grammar the first time the id is seen, and is
+ * remembered by this instance (i.e.: per tokenizer) afterwards.
+ */
+final class PunctuationClassifier {
+
+    private static final byte UNKNOWN = 0;
+    private static final byte SYMBOL = 1;
+    private static final byte WORD = 2;
+
+    private static final String SUPPLEMENTARY_SYMBOL = "補助記号";
+    private static final String WHITESPACE = "空白";
+    private static final String SYMBOL_CATEGORY = "記号";
+
+    private byte[] partOfSpeechClasses = new byte[256];
+
+    /**
+     * @param morpheme the morpheme at the given index of the buffer
+     * @param surfaceIsPunctuation whether every char of the surface of the morpheme is punctuation
+     */
+    boolean isPunctuation(
+            final MorphemeBuffer buffer, final int index, final Morpheme morpheme, final boolean surfaceIsPunctuation) {
+        if (buffer.isOOV(index)) {
+            return surfaceIsPunctuation;
+        }
+
+        final byte partOfSpeechClass = classOf(buffer.partOfSpeechId(index), morpheme);
+        if (partOfSpeechClass == SYMBOL && surfaceIsPunctuation) {
+            return true;
+        } else if (partOfSpeechClass == WORD && !surfaceIsPunctuation) {
+            return false;
+        }
+        return Strings.isPunctuation(morpheme.normalizedForm());
+    }
+
+    private byte classOf(final int partOfSpeechId, final Morpheme morpheme) {
+        if (partOfSpeechId < 0) {
+            return UNKNOWN;
+        }
+        if (partOfSpeechId >= this.partOfSpeechClasses.length) {
+            this.partOfSpeechClasses = ArrayUtil.grow(this.partOfSpeechClasses, partOfSpeechId + 1);
+        }
+
+        byte partOfSpeechClass = this.partOfSpeechClasses[partOfSpeechId];
+        if (partOfSpeechClass == UNKNOWN) {
+            partOfSpeechClass = classify(morpheme.partOfSpeech());
+            this.partOfSpeechClasses[partOfSpeechId] = partOfSpeechClass;
+        }
+        return partOfSpeechClass;
+    }
+
+    private static byte classify(final List<String> partOfSpeech) {
+        final String category = partOfSpeech.isEmpty() ? "" : partOfSpeech.get(0);
+        if (SUPPLEMENTARY_SYMBOL.equals(category) || WHITESPACE.equals(category) || SYMBOL_CATEGORY.equals(category)) {
+            return SYMBOL;
+        }
+        return WORD;
+    }
+}
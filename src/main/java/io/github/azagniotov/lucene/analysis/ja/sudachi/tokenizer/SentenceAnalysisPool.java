@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.tokenizer;
+
+import com.worksap.nlp.sudachi.Morpheme;
+import com.worksap.nlp.sudachi.Tokenizer;
+import com.worksap.nlp.sudachi.Tokenizer.SplitMode;
+import java.io.Closeable;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Bounded {@link ForkJoinPool}, which analyzes chunks of sentences of large documents concurrently,
+ * see {@link SudachiTokenizerOptions.Builder#parallelAnalysis(SentenceAnalysisPool, int)}. Each
+ * worker thread has its own Sudachi {@link Tokenizer}, since these are not thread-safe, whereas the
+ * dictionary they are created from is shared.
+ *
+ * <p>One pool is meant to be shared by all the tokenizers of a field type, thus the number of the
+ * analysis threads does not grow with the number of the indexing threads. Idle workers, and with them
+ * their Sudachi tokenizers, are released by the pool after a while.
+ *
+ * <p>Each {@link SudachiTokenizerFactory} creates its own pool, since the workers analyze with the
+ * dictionary and the options of the factory. The factory closes the pool when the Solr core, whose
+ * schema has created the factory, is closed.
+ */
+public final class SentenceAnalysisPool implements Closeable {
+
+    private final ForkJoinPool pool;
+    private final ThreadLocal<Tokenizer> workerTokenizers;
+
+    /**
+     * @param parallelism max number of the analysis threads
+     * @param sudachiTokenizerSupplier creates the Sudachi tokenizer of a worker thread
+     */
+    public SentenceAnalysisPool(final int parallelism, final Supplier<Tokenizer> sudachiTokenizerSupplier) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        }
+        this.workerTokenizers = ThreadLocal.withInitial(sudachiTokenizerSupplier);
+        final ThreadLocal<Tokenizer> tokenizers = this.workerTokenizers;
+        this.pool = new ForkJoinPool(parallelism, pool -> new WorkerThread(pool, tokenizers), null, false);
+    }
+
+    public int getParallelism() {
+        return this.pool.getParallelism();
+    }
+
+    /**
+     * @param chunk text, which starts and ends at sentence boundaries
+     * @param maxSentenceLength caps the sentences the way {@link BoundedSentences} does, or 0
+     * @return the sentences of the chunk, in the order Sudachi detected them
+     */
+    ForkJoinTask<List<List<Morpheme>>> submit(final SplitMode mode, final String chunk, final int maxSentenceLength) {
+        return this.pool.submit(() -> {
+            final Tokenizer tokenizer = this.workerTokenizers.get();
+            final Reader reader = new StringReader(chunk);
+            final Iterator<List<Morpheme>> sentences = maxSentenceLength > 0
+                    ? new BoundedSentences(maxSentenceLength).reset(tokenizer, mode, reader)
+                    : tokenizer.lazyTokenizeSentences(mode, reader);
+            final List<List<Morpheme>> analyzed = new ArrayList<>();
+            while (sentences.hasNext()) {
+                analyzed.add(sentences.next());
+            }
+            return analyzed;
+        });
+    }
+
+    /** @return true once {@link #close()} has been called, i.e.: no more chunks are accepted */
+    public boolean isShutdown() {
+        return this.pool.isShutdown();
+    }
+
+    public boolean isTerminated() {
+        return this.pool.isTerminated();
+    }
+
+    /**
+     * Stops the worker threads, once the chunks which have been submitted are analyzed, and with them
+     * their Sudachi tokenizers
+     */
+    @Override
+    public void close() {
+        this.pool.shutdown();
+        try {
+            if (!this.pool.awaitTermination(1, TimeUnit.MINUTES)) {
+                this.pool.shutdownNow();
+            }
+        } catch (final InterruptedException e) {
+            this.pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Drops its Sudachi tokenizer when it terminates, rather than when the thread is collected */
+    private static final class WorkerThread extends ForkJoinWorkerThread {
+
+        private final ThreadLocal<Tokenizer> workerTokenizers;
+
+        WorkerThread(final ForkJoinPool pool, final ThreadLocal<Tokenizer> workerTokenizers) {
+            super(pool);
+            this.workerTokenizers = workerTokenizers;
+            setName("sudachi-sentence-analysis-" + getPoolIndex());
+        }
+
+        @Override
+        protected void onTermination(final Throwable exception) {
+            this.workerTokenizers.remove();
+            super.onTermination(exception);
+        }
+    }
+}
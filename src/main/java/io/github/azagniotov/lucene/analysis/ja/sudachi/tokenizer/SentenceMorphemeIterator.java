@@ -17,36 +17,109 @@
 package io.github.azagniotov.lucene.analysis.ja.sudachi.tokenizer;
 
 import com.worksap.nlp.sudachi.Morpheme;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.metrics.DocumentStats;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
+/**
+ * Walks the morphemes of the sentences, which Sudachi analyzes lazily. The instance is reused
+ * across documents through {@link #reset(Iterator)}, and the morphemes of the current sentence are
+ * held in a reusable {@link MorphemeBuffer}.
+ */
 class SentenceMorphemeIterator implements MorphemeIterator {
 
-    private Iterator<Morpheme> morphemeIterator;
-    private final Iterator<List<Morpheme>> sentenceIterator;
+    private final MorphemeBuffer buffer;
+    private final DocumentStats documentStats;
+    private Iterator<List<Morpheme>> sentenceIterator;
+    private int position;
     private int baseOffset = 0;
     private int sentencesTotalLength = 0;
+    // System.nanoTime() after which no further sentence is analyzed, valid when hasDeadline
+    private long deadlineNanos;
+    private boolean hasDeadline;
+    private boolean deadlineExceeded;
+
+    SentenceMorphemeIterator(final MorphemeBuffer buffer, final DocumentStats documentStats) {
+        this.buffer = buffer;
+        this.documentStats = documentStats;
+        this.sentenceIterator = Collections.emptyIterator();
+    }
 
-    SentenceMorphemeIterator(final Iterator<List<Morpheme>> sentenceIterator) {
-        this.morphemeIterator = new EmptyIterator();
+    SentenceMorphemeIterator reset(final Iterator<List<Morpheme>> sentenceIterator) {
+        return reset(sentenceIterator, 0);
+    }
+
+    /** @param startOffset absolute offset of the first char of the first sentence */
+    SentenceMorphemeIterator reset(final Iterator<List<Morpheme>> sentenceIterator, final int startOffset) {
         this.sentenceIterator = sentenceIterator;
+        this.buffer.clear();
+        this.position = -1;
+        this.baseOffset = startOffset;
+        this.sentencesTotalLength = 0;
+        this.hasDeadline = false;
+        this.deadlineExceeded = false;
+        return this;
+    }
+
+    /**
+     * The deadline is checked before each sentence is analyzed, i.e.: the analysis of a sentence is
+     * not interrupted. Once it has passed, {@link #next()} returns null as if there were no more
+     * sentences, and the rest of the input starts at {@link #getBaseOffset()}.
+     */
+    void setDeadline(final long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+        this.hasDeadline = true;
+    }
+
+    boolean isDeadlineExceeded() {
+        return deadlineExceeded;
+    }
+
+    /** Walks the morphemes of an input, which has been analyzed as a whole, i.e.: as one sentence */
+    SentenceMorphemeIterator reset(final List<Morpheme> sentence) {
+        reset(Collections.emptyIterator());
+        this.buffer.fill(sentence);
+        if (this.buffer.size() > 0) {
+            this.documentStats.onSentence(this.buffer.sentenceLength());
+        }
+        return this;
     }
 
     @Override
     public Morpheme next() {
-        if (this.morphemeIterator.hasNext()) {
-            final Morpheme morpheme = morphemeIterator.next();
-            this.sentencesTotalLength = morpheme.end();
-            return morpheme;
+        if (this.position + 1 < this.buffer.size()) {
+            this.position++;
+            this.sentencesTotalLength = this.buffer.end(this.position);
+            return this.buffer.morpheme(this.position);
         } else {
             // The base offset is incremented again for the last time, since we
             // need to add the length of the current sentence that we just processed.
             // This value is used as final offset by the Tokenizer.end() method
             this.baseOffset += this.sentencesTotalLength;
-            if (sentenceIterator.hasNext()) {
-                this.morphemeIterator = sentenceIterator.next().iterator();
+            this.sentencesTotalLength = 0;
+
+            if (this.hasDeadline && System.nanoTime() - this.deadlineNanos > 0) {
+                this.deadlineExceeded = true;
+                this.buffer.clear();
+                this.position = -1;
+                return null;
+            }
+
+            // Sudachi reads and analyzes the next sentence lazily, i.e.: this is where the lattice is built
+            final long startNanos = System.nanoTime();
+            final boolean hasNextSentence = sentenceIterator.hasNext();
+            final List<Morpheme> sentence = hasNextSentence ? sentenceIterator.next() : null;
+            this.documentStats.addAnalysisNanos(System.nanoTime() - startNanos);
+
+            if (hasNextSentence) {
+                this.buffer.fill(sentence);
+                this.position = -1;
+                this.documentStats.onSentence(this.buffer.sentenceLength());
                 return next();
             } else {
+                this.buffer.clear();
+                this.position = -1;
                 return null;
             }
         }
@@ -57,16 +130,8 @@ class SentenceMorphemeIterator implements MorphemeIterator {
         return baseOffset;
     }
 
-    private static class EmptyIterator implements Iterator<Morpheme> {
-
-        @Override
-        public boolean hasNext() {
-            return false;
-        }
-
-        @Override
-        public Morpheme next() {
-            throw new IllegalStateException("EmptyIterator is invoked");
-        }
+    @Override
+    public int position() {
+        return position;
     }
 }
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.tokenizer;
+
+import org.apache.lucene.util.ResourceLoader;
+import org.apache.solr.core.CloseHook;
+import org.apache.solr.core.SolrCore;
+import org.apache.solr.core.SolrResourceLoader;
+
+/**
+ * Runs a callback of a tokenizer factory when the Solr core, whose schema has created the factory, is
+ * closed, e.g.: on a core reload or unload. Solr neither closes the tokenizer factories, nor lets them
+ * be {@link org.apache.solr.util.plugin.SolrCoreAware}, thus the close hook is added through the {@link
+ * SolrResourceLoader} of the core, which informs the core aware instances once the core is created.
+ *
+ * <p>Only referenced when Solr is on the classpath, see {@link SudachiTokenizerFactory#inform(ResourceLoader)}.
+ */
+final class SolrCoreCloseHooks {
+
+    private SolrCoreCloseHooks() {}
+
+    /**
+     * @return false when the callback cannot be tied to a core, i.e.: when the loader is not the one of a
+     *     core being created, e.g.: when the schema alone is reloaded
+     */
+    static boolean onCoreClose(final ResourceLoader loader, final Runnable callback) {
+        if (!(loader instanceof SolrResourceLoader)) {
+            return false;
+        }
+        return ((SolrResourceLoader) loader).addToCoreAware(core -> core.addCloseHook(new CloseHook() {
+            @Override
+            public void preClose(final SolrCore core) {}
+
+            @Override
+            public void postClose(final SolrCore core) {
+                callback.run();
+            }
+        }));
+    }
+}
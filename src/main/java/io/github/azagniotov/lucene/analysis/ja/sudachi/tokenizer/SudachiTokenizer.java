@@ -21,35 +21,124 @@ import static com.worksap.nlp.sudachi.Tokenizer.SplitMode;
 import com.worksap.nlp.sudachi.Morpheme;
 import com.worksap.nlp.sudachi.Tokenizer;
 import io.github.azagniotov.lucene.analysis.ja.sudachi.attributes.SudachiBaseFormAttribute;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.attributes.SudachiFallbackAttribute;
 import io.github.azagniotov.lucene.analysis.ja.sudachi.attributes.SudachiMorphemeAttribute;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.attributes.SudachiMorphemeIdsAttribute;
 import io.github.azagniotov.lucene.analysis.ja.sudachi.attributes.SudachiNormalizedFormAttribute;
 import io.github.azagniotov.lucene.analysis.ja.sudachi.attributes.SudachiPartOfSpeechAttribute;
 import io.github.azagniotov.lucene.analysis.ja.sudachi.attributes.SudachiReadingFormAttribute;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.attributes.SudachiTokenAttributeImpl;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.events.DocumentAnalysisEvent;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.metrics.AnalysisMetrics;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.metrics.DocumentStats;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.metrics.SudachiMetrics;
 import java.io.IOException;
 import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import jdk.jfr.EventType;
 import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
 import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
 import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
 import org.apache.lucene.analysis.tokenattributes.PositionLengthAttribute;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.Accountables;
+import org.apache.lucene.util.Attribute;
 import org.apache.lucene.util.AttributeFactory;
+import org.apache.lucene.util.RamUsageEstimator;
 
-public final class SudachiTokenizer extends org.apache.lucene.analysis.Tokenizer {
+public final class SudachiTokenizer extends org.apache.lucene.analysis.Tokenizer implements Accountable {
+
+    public static final String DEFAULT_METRICS_FIELD = "default";
+
+    /**
+     * Creates a single {@link SudachiTokenAttributeImpl} for the term, offsets, positions, morpheme and
+     * morpheme ids attributes, instead of one instance per attribute.
+     */
+    public static final AttributeFactory PACKED_TOKEN_ATTRIBUTE_FACTORY = AttributeFactory.getStaticImplementation(
+            AttributeFactory.DEFAULT_ATTRIBUTE_FACTORY, SudachiTokenAttributeImpl.class);
+
+    // Registered by the Solr field analysis screen/API before it resets the tokenizer, null without Solr
+    private static final Class<? extends Attribute> SOLR_TOKEN_TRACKING_ATTRIBUTE =
+            attributeClass("org.apache.solr.handler.AnalysisRequestHandlerBase$TokenTrackingAttribute");
+
+    // Checked per document, so that no event is allocated unless JFR records it
+    private static final EventType ANALYSIS_EVENT_TYPE = EventType.getEventType(DocumentAnalysisEvent.class);
+
+    private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(SudachiTokenizer.class)
+            + RamUsageEstimator.shallowSizeOfInstance(DocumentStats.class);
+
+    // Sudachi indexes its lattice by UTF-8 byte position (up to 3 bytes per Japanese char) and keeps one
+    // list of nodes per position. The lists are cleared, but not shrunk, between sentences, thus the
+    // lattice stays as big as the longest sentence this tokenizer has ever analyzed.
+    private static final long LATTICE_BYTES_PER_CHAR = 3L
+            * (RamUsageEstimator.NUM_BYTES_OBJECT_REF
+                    + RamUsageEstimator.shallowSizeOfInstance(ArrayList.class)
+                    + RamUsageEstimator.alignObjectSize(
+                            RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + 10L * RamUsageEstimator.NUM_BYTES_OBJECT_REF));
 
     private MorphemeIterator morphemeIterator;
+    // Reused across documents, so that reset() does not allocate
+    private final MorphemeBuffer morphemeBuffer;
+    private final SentenceMorphemeIterator sentenceMorphemeIterator;
+    private final MorphemeIterator documentMorphemeIterator;
     private final CharTermAttribute termAtt;
     private final OffsetAttribute offsetAtt;
-    private final PositionLengthAttribute posLengthAtt;
-    private final PositionIncrementAttribute posIncAtt;
     private final SudachiMorphemeAttribute morphemeAtt;
-    private final SudachiPartOfSpeechAttribute posAtt;
-    private final SudachiBaseFormAttribute baseFormAtt;
-    private final SudachiNormalizedFormAttribute normalizedFormAtt;
-    private final SudachiReadingFormAttribute readingFormAtt;
+    // Null unless a downstream filter has registered it
+    private SudachiMorphemeIdsAttribute morphemeIdsAtt;
+    // Null unless a time budget is set
+    private final SudachiFallbackAttribute fallbackAtt;
+    // Analysis-only attributes, which are null in the INDEXING profile unless they were requested
+    private PositionLengthAttribute posLengthAtt;
+    private PositionIncrementAttribute posIncAtt;
+    private SudachiPartOfSpeechAttribute posAtt;
+    private SudachiBaseFormAttribute baseFormAtt;
+    private SudachiNormalizedFormAttribute normalizedFormAtt;
+    private SudachiReadingFormAttribute readingFormAtt;
     private Tokenizer sudachiTokenizer;
     private final boolean discardPunctuation;
     private final SplitMode mode;
+    private final TokenizerProfile profile;
+    private final String metricsField;
+    private final int shortInputLength;
+    private final int maxSentenceLength;
+    private final BoundedSentences boundedSentences;
+    private final int shrinkThreshold;
+    private final Supplier<Tokenizer> sudachiTokenizerSupplier;
+    private final long maxAnalysisNanos;
+    // System.nanoTime() after which the current document falls back, valid when maxAnalysisNanos > 0
+    private long deadlineNanos;
+    private final FallbackSegmenter fallbackSegmenter;
+    // Whether the rest of the current document is segmented by the fallback segmenter
+    private boolean fallback;
+    private final int maxTokens;
+    private int emittedTokens;
+    // Absolute end offset of the last emitted token
+    private int lastEndOffset;
+    private final LatinRunSplitter latinRunSplitter;
+    // Whether the tokens come from a long Latin run, rather than from Sudachi
+    private boolean latinSpan;
+    private final ParallelSentences parallelSentences;
+    private final int parallelThreshold;
+    // Whether the sentences of the current document are analyzed concurrently
+    private boolean parallel;
+    private final AnalysisMetrics metrics;
+    private final DocumentStats documentStats;
+    private DocumentAnalysisEvent analysisEvent;
+    private long longestSentenceEver;
+    // Published by end() for ramBytesUsed(), which is called from other threads than the one analyzing
+    private volatile long termBufferBytes;
+    private volatile long textWindowBytes;
+    private volatile long morphemeBufferBytes;
+    private volatile long sentenceChunkBytes;
+    private volatile long latticeBytes;
+    private final TextWindowReader textWindowReader;
 
     public SudachiTokenizer(final Tokenizer sudachiTokenizer, final boolean discardPunctuation, final SplitMode mode) {
         this(DEFAULT_TOKEN_ATTRIBUTE_FACTORY, sudachiTokenizer, discardPunctuation, mode);
@@ -60,15 +149,76 @@ public final class SudachiTokenizer extends org.apache.lucene.analysis.Tokenizer
             final Tokenizer sudachiTokenizer,
             final boolean discardPunctuation,
             final SplitMode mode) {
+        this(
+                factory,
+                sudachiTokenizer,
+                SudachiTokenizerOptions.builder()
+                        .discardPunctuation(discardPunctuation)
+                        .mode(mode)
+                        .build());
+    }
+
+    public SudachiTokenizer(
+            final AttributeFactory factory, final Tokenizer sudachiTokenizer, final SudachiTokenizerOptions options) {
         super(factory);
         this.sudachiTokenizer = sudachiTokenizer;
-        this.discardPunctuation = discardPunctuation;
-        this.mode = mode;
+        this.discardPunctuation = options.isDiscardPunctuation();
+        this.mode = options.getMode();
+        this.profile = options.getProfile();
+        this.metricsField = options.getMetricsField();
+        this.shortInputLength = options.getShortInputLength();
+        this.maxSentenceLength = options.getMaxSentenceLength();
+        this.boundedSentences = this.maxSentenceLength == 0 ? null : new BoundedSentences(this.maxSentenceLength);
+        this.shrinkThreshold = options.getShrinkThreshold();
+        this.sudachiTokenizerSupplier = options.getSudachiTokenizerSupplier();
+        this.maxAnalysisNanos = TimeUnit.MILLISECONDS.toNanos(options.getMaxAnalysisMillis());
+        this.fallbackSegmenter = this.maxAnalysisNanos == 0 ? null : new FallbackSegmenter();
+        this.maxTokens = options.getMaxTokens();
+        this.latinRunSplitter =
+                options.getMinLatinRunLength() == 0 ? null : new LatinRunSplitter(options.getMinLatinRunLength());
+        this.parallelThreshold = options.getParallelThreshold();
+        this.parallelSentences = options.getSentenceAnalysisPool() == null || this.parallelThreshold == 0
+                ? null
+                : new ParallelSentences(options.getSentenceAnalysisPool());
+        this.metrics = SudachiMetrics.INSTANCE.forField(this.metricsField, this.mode);
+        this.documentStats = new DocumentStats();
+        this.textWindowReader = new TextWindowReader();
+        this.textWindowReader.setMaxChars(options.getMaxChars());
+        this.morphemeBuffer = new MorphemeBuffer();
+        this.sentenceMorphemeIterator = new SentenceMorphemeIterator(this.morphemeBuffer, this.documentStats);
+        if (!this.discardPunctuation) {
+            this.documentMorphemeIterator = this.sentenceMorphemeIterator;
+        } else if (options.isPunctuationByPartOfSpeech()) {
+            this.documentMorphemeIterator = new NonPunctuationMorphemes(
+                    this.sentenceMorphemeIterator, this.documentStats, this.morphemeBuffer, this.textWindowReader);
+        } else {
+            this.documentMorphemeIterator =
+                    new NonPunctuationMorphemes(this.sentenceMorphemeIterator, this.documentStats);
+        }
 
         this.termAtt = addAttribute(CharTermAttribute.class);
         this.offsetAtt = addAttribute(OffsetAttribute.class);
         this.morphemeAtt = addAttribute(SudachiMorphemeAttribute.class);
+        this.fallbackAtt = this.fallbackSegmenter == null ? null : addAttribute(SudachiFallbackAttribute.class);
+
+        if (this.profile == TokenizerProfile.ANALYSIS) {
+            addAnalysisAttributes();
+        }
 
+        this.morphemeIterator = MorphemeIterator.EMPTY;
+        publishRamBytesUsed();
+    }
+
+    /** @return the attribute class, or null when it cannot be loaded, e.g.: when Solr is not present */
+    private static Class<? extends Attribute> attributeClass(final String name) {
+        try {
+            return Class.forName(name, false, SudachiTokenizer.class.getClassLoader()).asSubclass(Attribute.class);
+        } catch (final ClassNotFoundException | LinkageError | ClassCastException e) {
+            return null;
+        }
+    }
+
+    private void addAnalysisAttributes() {
         // Start: attributes holding the morphological values for the field analysis screen/API
         this.posIncAtt = addAttribute(PositionIncrementAttribute.class);
         this.posLengthAtt = addAttribute(PositionLengthAttribute.class);
@@ -77,31 +227,223 @@ public final class SudachiTokenizer extends org.apache.lucene.analysis.Tokenizer
         this.readingFormAtt = addAttribute(SudachiReadingFormAttribute.class);
         this.posAtt = addAttribute(SudachiPartOfSpeechAttribute.class);
         // End: attributes holding the morphological values for the field analysis screen/API
+    }
 
-        this.morphemeIterator = MorphemeIterator.EMPTY;
+    /**
+     * Picks up the morpheme ids attribute and, in the INDEXING profile, the analysis-only attributes,
+     * which the downstream filters have registered since this tokenizer was created. Attributes can
+     * only be added to a token stream, thus this is re-checked on every reset until all of them are
+     * present. Under the Solr field analysis screen/API, which creates a tokenizer of its own, all of
+     * the analysis-only attributes are added, as in the ANALYSIS profile.
+     */
+    private void resolveRequestedAttributes() {
+        if (this.morphemeIdsAtt == null && hasAttribute(SudachiMorphemeIdsAttribute.class)) {
+            this.morphemeIdsAtt = getAttribute(SudachiMorphemeIdsAttribute.class);
+        }
+        if (this.posAtt == null
+                && SOLR_TOKEN_TRACKING_ATTRIBUTE != null
+                && hasAttribute(SOLR_TOKEN_TRACKING_ATTRIBUTE)) {
+            addAnalysisAttributes();
+            return;
+        }
+        // Position increment and length default to 1 when cleared, thus they are never set here
+        if (this.baseFormAtt == null && hasAttribute(SudachiBaseFormAttribute.class)) {
+            this.baseFormAtt = getAttribute(SudachiBaseFormAttribute.class);
+        }
+        if (this.normalizedFormAtt == null && hasAttribute(SudachiNormalizedFormAttribute.class)) {
+            this.normalizedFormAtt = getAttribute(SudachiNormalizedFormAttribute.class);
+        }
+        if (this.readingFormAtt == null && hasAttribute(SudachiReadingFormAttribute.class)) {
+            this.readingFormAtt = getAttribute(SudachiReadingFormAttribute.class);
+        }
+        if (this.posAtt == null && hasAttribute(SudachiPartOfSpeechAttribute.class)) {
+            this.posAtt = getAttribute(SudachiPartOfSpeechAttribute.class);
+        }
     }
 
     @Override
     public void close() throws IOException {
         super.close();
+        cancelParallelAnalysis();
+        releaseMorphemes();
     }
 
     @Override
     public void reset() throws IOException {
         super.reset();
-        MorphemeIterator sentenceMorphemeIterator = new SentenceMorphemeIterator(tokenize(input));
-        if (discardPunctuation) {
-            sentenceMorphemeIterator = new NonPunctuationMorphemes(sentenceMorphemeIterator);
+        resolveRequestedAttributes();
+        this.documentStats.clear();
+        this.analysisEvent = ANALYSIS_EVENT_TYPE.isEnabled() ? new DocumentAnalysisEvent() : null;
+        if (this.analysisEvent != null) {
+            this.analysisEvent.begin();
+        }
+        this.fallback = false;
+        this.emittedTokens = 0;
+        this.lastEndOffset = 0;
+        this.latinSpan = false;
+        cancelParallelAnalysis();
+        final long startNanos = System.nanoTime();
+        this.deadlineNanos = startNanos + this.maxAnalysisNanos;
+        final TextWindowReader reader = this.textWindowReader.wrap(input);
+        if (this.latinRunSplitter != null) {
+            // The spans are started lazily by incrementToken()
+            this.latinRunSplitter.reset(reader, this.discardPunctuation);
+            this.sentenceMorphemeIterator.reset(Collections.emptyIterator());
+        } else if (this.shortInputLength > 0 && reader.prefetch(this.shortInputLength)) {
+            // Queries and short titles: a single lattice, without the sentence detection and the lazy iterator
+            this.sentenceMorphemeIterator.reset(this.sudachiTokenizer.tokenize(this.mode, reader.prefetched()));
+        } else if (this.parallelSentences != null
+                && this.parallelSentences.isAvailable()
+                && !reader.prefetch(this.parallelThreshold)) {
+            // Large documents: the sentences are analyzed concurrently, while their tokens are emitted in order
+            reader.readFully();
+            this.parallel = true;
+            this.sentenceMorphemeIterator.reset(this.parallelSentences.reset(
+                    this.mode, this.maxSentenceLength, reader.windowChars(), reader.windowLength()));
+            if (this.maxAnalysisNanos > 0) {
+                this.sentenceMorphemeIterator.setDeadline(this.deadlineNanos);
+            }
+        } else {
+            resetSentences(reader, 0);
+        }
+        this.morphemeIterator = this.documentMorphemeIterator;
+        this.documentStats.addAnalysisNanos(System.nanoTime() - startNanos);
+    }
+
+    /** @param startOffset absolute offset of the first char the reader returns */
+    private void resetSentences(final Reader reader, final int startOffset) {
+        if (this.boundedSentences != null) {
+            this.sentenceMorphemeIterator.reset(
+                    this.boundedSentences.reset(this.sudachiTokenizer, this.mode, reader), startOffset);
+        } else {
+            this.sentenceMorphemeIterator.reset(tokenize(reader), startOffset);
+        }
+        if (this.maxAnalysisNanos > 0) {
+            this.sentenceMorphemeIterator.setDeadline(this.deadlineNanos);
         }
-        this.morphemeIterator = sentenceMorphemeIterator;
     }
 
     @Override
     public void end() throws IOException {
         super.end();
-        final int lastOffset = correctOffset(morphemeIterator.getBaseOffset());
+        final int baseOffset;
+        if (this.maxTokens > 0 && this.emittedTokens >= this.maxTokens && nextToken(false)) {
+            // Tokens remained after the limit, and the rest of the document has not been analyzed
+            baseOffset = this.lastEndOffset;
+        } else if (this.fallback) {
+            baseOffset = this.fallbackSegmenter.offset();
+        } else if (this.latinRunSplitter != null) {
+            baseOffset = this.latinRunSplitter.offset();
+        } else {
+            baseOffset = morphemeIterator.getBaseOffset();
+        }
+        final int lastOffset = correctOffset(baseOffset);
         offsetAtt.setOffset(lastOffset, lastOffset);
         this.morphemeIterator = MorphemeIterator.EMPTY;
+        releaseMorphemes();
+        this.fallback = false;
+        this.latinSpan = false;
+        if (this.parallel) {
+            cancelParallelAnalysis();
+            // The window has held the whole document
+            this.textWindowReader.shrink();
+        }
+
+        // Flushed once per document, so that the metrics cost nothing per token
+        this.documentStats.setChars(baseOffset);
+        this.longestSentenceEver = Math.max(this.longestSentenceEver, this.documentStats.getLongestSentence());
+        if (SudachiMetrics.INSTANCE.isDocumentMetricsSuspended()) {
+            // E.g.: a micro-batch of many documents, which would be counted as one document
+            this.analysisEvent = null;
+        } else {
+            this.metrics.record(this.documentStats);
+            commitAnalysisEvent();
+        }
+
+        if (this.shrinkThreshold > 0 && this.documentStats.getLongestSentence() > this.shrinkThreshold) {
+            shrink();
+        }
+        publishRamBytesUsed();
+    }
+
+    /**
+     * Drops the morphemes of the current sentence and the Sudachi sentence iterator, which are left
+     * over when the consumer stops before the end of the document, thus this tokenizer does not keep
+     * them reachable until its next document.
+     */
+    private void releaseMorphemes() {
+        this.sentenceMorphemeIterator.reset(Collections.emptyIterator());
+    }
+
+    private void cancelParallelAnalysis() {
+        if (this.parallelSentences != null) {
+            this.parallelSentences.cancel();
+        }
+        this.parallel = false;
+    }
+
+    private void shrink() {
+        this.textWindowReader.shrink();
+        this.morphemeBuffer.shrink();
+        if (this.sudachiTokenizerSupplier != null) {
+            this.sudachiTokenizer = this.sudachiTokenizerSupplier.get();
+            this.longestSentenceEver = 0;
+        }
+    }
+
+    private void commitAnalysisEvent() {
+        final DocumentAnalysisEvent event = this.analysisEvent;
+        this.analysisEvent = null;
+        if (event == null) {
+            return;
+        }
+        // Committed only when JFR is recording and the document took longer than the event threshold
+        event.end();
+        if (event.shouldCommit()) {
+            event.field = this.metricsField;
+            event.mode = this.mode.name();
+            event.charLength = this.documentStats.getChars();
+            event.sentenceCount = this.documentStats.getSentences();
+            event.longestSentenceLength = this.documentStats.getLongestSentence();
+            event.analysisTime = this.documentStats.getAnalysisNanos();
+            event.deadlineExceeded = this.documentStats.isDeadlineExceeded();
+            event.commit();
+        }
+    }
+
+    /**
+     * Estimates the heap retained by this tokenizer between documents. The Sudachi lattice is
+     * estimated from the longest sentence analyzed so far, since Sudachi does not expose it. The
+     * estimate is taken by the analyzing thread after each document, see {@link #end()}.
+     */
+    @Override
+    public long ramBytesUsed() {
+        return BASE_RAM_BYTES_USED
+                + this.termBufferBytes
+                + this.textWindowBytes
+                + this.morphemeBufferBytes
+                + this.sentenceChunkBytes
+                + this.latticeBytes;
+    }
+
+    @Override
+    public Collection<Accountable> getChildResources() {
+        final List<Accountable> resources = new ArrayList<>();
+        resources.add(Accountables.namedAccountable("term buffer", this.termBufferBytes));
+        resources.add(Accountables.namedAccountable("text window", this.textWindowBytes));
+        resources.add(Accountables.namedAccountable("morpheme buffer", this.morphemeBufferBytes));
+        resources.add(Accountables.namedAccountable("sentence chunk buffer", this.sentenceChunkBytes));
+        resources.add(Accountables.namedAccountable("lattice buffers (estimated)", this.latticeBytes));
+        return resources;
+    }
+
+    /** The buffers are only touched by the analyzing thread, thus their sizes are published through volatiles */
+    private void publishRamBytesUsed() {
+        this.termBufferBytes = RamUsageEstimator.sizeOf(this.termAtt.buffer());
+        this.textWindowBytes = this.textWindowReader.ramBytesUsed();
+        this.morphemeBufferBytes = this.morphemeBuffer.ramBytesUsed();
+        this.sentenceChunkBytes = this.boundedSentences == null ? 0L : this.boundedSentences.ramBytesUsed();
+        this.latticeBytes = this.longestSentenceEver * LATTICE_BYTES_PER_CHAR;
     }
 
     Iterator<List<Morpheme>> tokenize(final Reader inputReader) {
@@ -111,31 +453,155 @@ public final class SudachiTokenizer extends org.apache.lucene.analysis.Tokenizer
     @Override
     public boolean incrementToken() throws IOException {
         clearAttributes();
-
-        final Morpheme morpheme = this.morphemeIterator.next();
-        if (morpheme == null) {
+        if (this.maxTokens > 0 && this.emittedTokens >= this.maxTokens) {
             return false;
         }
+        return nextToken(true);
+    }
+
+    /**
+     * @param emit whether to set the attributes of the next token, or only to find out whether there
+     *     is one, e.g.: to tell a document cut at {@code maxTokens} from one that had exactly as many
+     * @return false at the end of the document
+     */
+    private boolean nextToken(final boolean emit) throws IOException {
+        if (this.fallback) {
+            return emit ? incrementFallbackToken() : this.fallbackSegmenter.next();
+        }
 
+        while (true) {
+            if (this.latinSpan) {
+                if (emit ? incrementLatinToken() : this.latinRunSplitter.nextLatinToken()) {
+                    return true;
+                }
+                this.latinSpan = false;
+            }
+            final Morpheme morpheme = this.morphemeIterator.next();
+            if (morpheme != null) {
+                return !emit || incrementMorphemeToken(morpheme);
+            }
+            if (this.sentenceMorphemeIterator.isDeadlineExceeded()) {
+                // The rest of the document, starting after the last analyzed sentence
+                final int baseOffset = this.sentenceMorphemeIterator.getBaseOffset();
+                if (this.parallelSentences != null) {
+                    this.parallelSentences.cancel();
+                }
+                this.textWindowReader.rewind(baseOffset);
+                this.fallbackSegmenter.reset(this.textWindowReader, baseOffset, this.discardPunctuation);
+                this.fallback = true;
+                return emit ? incrementFallbackToken() : this.fallbackSegmenter.next();
+            }
+            if (this.latinRunSplitter == null || !nextSpan()) {
+                return false;
+            }
+        }
+    }
+
+    /** @return false at the end of the document */
+    private boolean nextSpan() throws IOException {
+        final long startNanos = System.nanoTime();
+        final int span = this.latinRunSplitter.nextSpan();
+        if (span == LatinRunSplitter.LATIN) {
+            // No sentences, thus no deadline, until the next Japanese span
+            this.sentenceMorphemeIterator.reset(Collections.emptyIterator(), this.latinRunSplitter.spanStart());
+            this.latinSpan = true;
+        } else if (span == LatinRunSplitter.JAPANESE) {
+            resetSentences(this.latinRunSplitter.japaneseSpan(), this.latinRunSplitter.spanStart());
+        }
+        this.documentStats.addAnalysisNanos(System.nanoTime() - startNanos);
+        return span != LatinRunSplitter.END;
+    }
+
+    private boolean incrementMorphemeToken(final Morpheme morpheme) {
         final int baseOffset = morphemeIterator.getBaseOffset();
-        final int morphemeCorrectedStartOffset = correctOffset(baseOffset + morpheme.begin());
-        final int morphemeCorrectedEndOffset = correctOffset(baseOffset + morpheme.end());
-        this.offsetAtt.setOffset(morphemeCorrectedStartOffset, morphemeCorrectedEndOffset);
+        final int position = this.morphemeIterator.position();
+        final int begin = baseOffset + this.morphemeBuffer.begin(position);
+        final int end = baseOffset + this.morphemeBuffer.end(position);
+        this.offsetAtt.setOffset(correctOffset(begin), correctOffset(end));
+
+        this.emittedTokens++;
+        this.lastEndOffset = end;
 
+        final boolean oov = this.morphemeBuffer.isOOV(position);
         this.morphemeAtt.setMorpheme(morpheme);
+        if (this.morphemeIdsAtt != null) {
+            this.morphemeIdsAtt.setIds(
+                    this.morphemeBuffer.wordId(position), this.morphemeBuffer.partOfSpeechId(position), oov);
+        }
+        this.documentStats.onMorpheme(oov);
 
         // Start: setting the values for the field analysis screen/API
-        this.posIncAtt.setPositionIncrement(1);
-        this.posLengthAtt.setPositionLength(1);
-        this.baseFormAtt.setMorpheme(morpheme);
-        this.normalizedFormAtt.setMorpheme(morpheme);
-        this.readingFormAtt.setMorpheme(morpheme);
-        this.posAtt.setMorpheme(morpheme);
+        if (this.posIncAtt != null) {
+            this.posIncAtt.setPositionIncrement(1);
+            this.posLengthAtt.setPositionLength(1);
+        }
+        if (this.baseFormAtt != null) {
+            this.baseFormAtt.setMorpheme(morpheme);
+        }
+        if (this.normalizedFormAtt != null) {
+            this.normalizedFormAtt.setMorpheme(morpheme);
+        }
+        if (this.readingFormAtt != null) {
+            this.readingFormAtt.setMorpheme(morpheme);
+        }
+        if (this.posAtt != null) {
+            this.posAtt.setMorpheme(morpheme);
+        }
         // End: setting the values for the field analysis screen/API
 
-        final String surface = morpheme.surface();
-        this.termAtt.copyBuffer(surface.toCharArray(), 0, surface.length());
+        // The term is copied straight from the chars Sudachi has read, thus no String per token
+        this.textWindowReader.keepFrom(baseOffset);
+        if (!this.textWindowReader.copyTo(this.termAtt, begin, end)) {
+            final String surface = morpheme.surface();
+            this.termAtt.setEmpty().append(surface);
+        }
+
+        return true;
+    }
+
+    private boolean incrementLatinToken() throws IOException {
+        if (!this.latinRunSplitter.nextLatinToken()) {
+            return false;
+        }
+        final int begin = this.latinRunSplitter.begin();
+        final int end = this.latinRunSplitter.end();
+        this.offsetAtt.setOffset(correctOffset(begin), correctOffset(end));
+        this.emittedTokens++;
+        this.lastEndOffset = end;
+        this.documentStats.onLatinToken();
+        if (this.posIncAtt != null) {
+            this.posIncAtt.setPositionIncrement(1);
+            this.posLengthAtt.setPositionLength(1);
+        }
 
+        // The splitter reads through the text window, thus the term is always in it
+        this.textWindowReader.keepFrom(begin);
+        if (!this.textWindowReader.copyTo(this.termAtt, begin, end)) {
+            throw new IllegalStateException("Latin token [" + begin + ", " + end + ") is not in the text window");
+        }
+        return true;
+    }
+
+    private boolean incrementFallbackToken() throws IOException {
+        if (!this.fallbackSegmenter.next()) {
+            return false;
+        }
+        final int begin = this.fallbackSegmenter.begin();
+        final int end = this.fallbackSegmenter.end();
+        this.offsetAtt.setOffset(correctOffset(begin), correctOffset(end));
+        this.emittedTokens++;
+        // The fallback bigrams overlap
+        this.lastEndOffset = Math.max(this.lastEndOffset, end);
+        this.fallbackAtt.setFallback(true);
+        // Counted with the first token, i.e.: not when only punctuation was left
+        this.documentStats.onDeadlineExceeded();
+        this.documentStats.onFallbackToken();
+
+        // The segmenter reads through the text window, thus the term is always in it
+        this.textWindowReader.keepFrom(begin);
+        if (!this.textWindowReader.copyTo(this.termAtt, begin, end)) {
+            throw new IllegalStateException("Fallback token [" + begin + ", " + end + ") is not in the text window");
+        }
         return true;
     }
 }
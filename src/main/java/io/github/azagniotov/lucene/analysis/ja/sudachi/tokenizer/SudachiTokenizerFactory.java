@@ -16,24 +16,39 @@
 package io.github.azagniotov.lucene.analysis.ja.sudachi.tokenizer;
 
 import static com.worksap.nlp.sudachi.Tokenizer.SplitMode;
+import static org.apache.lucene.analysis.TokenStream.DEFAULT_TOKEN_ATTRIBUTE_FACTORY;
 
 import com.worksap.nlp.sudachi.Config;
 import com.worksap.nlp.sudachi.Dictionary;
 import com.worksap.nlp.sudachi.DictionaryFactory;
 import io.github.azagniotov.lucene.analysis.ja.sudachi.cache.DictionaryCache;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.cache.DictionaryInfo;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.events.DictionaryLoadEvent;
+import java.io.Closeable;
 import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.apache.lucene.analysis.Tokenizer;
 import org.apache.lucene.analysis.TokenizerFactory;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.Accountables;
 import org.apache.lucene.util.AttributeFactory;
+import org.apache.lucene.util.RamUsageEstimator;
 import org.apache.lucene.util.ResourceLoader;
 import org.apache.lucene.util.ResourceLoaderAware;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class SudachiTokenizerFactory extends TokenizerFactory implements ResourceLoaderAware {
+public class SudachiTokenizerFactory extends TokenizerFactory implements ResourceLoaderAware, Accountable, Closeable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SudachiTokenizerFactory.class);
 
@@ -44,9 +59,34 @@ public class SudachiTokenizerFactory extends TokenizerFactory implements Resourc
 
     private static final String MODE = "mode";
     private static final String DISCARD_PUNCTUATION = "discardPunctuation";
-    private final SplitMode mode;
-    private final boolean discardPunctuation;
+    private static final String PUNCTUATION_BY_PART_OF_SPEECH = "punctuationByPartOfSpeech";
+    // Solr does not tell the tokenizer factories which field they analyze, thus the
+    // name under which the analysis metrics are reported is configurable per field type
+    private static final String METRICS_FIELD = "metricsField";
+    private static final String PROFILE = "profile";
+    private static final String PACKED_ATTRIBUTES = "packedAttributes";
+    private static final String SHORT_INPUT_LENGTH = "shortInputLength";
+    private static final String MAX_SENTENCE_LENGTH = "maxSentenceLength";
+    private static final String SHRINK_THRESHOLD = "shrinkThreshold";
+    private static final String MAX_ANALYSIS_MILLIS = "maxAnalysisMillis";
+    private static final String MAX_TOKENS = "maxTokens";
+    private static final String MAX_CHARS = "maxChars";
+    private static final String MIN_LATIN_RUN_LENGTH = "minLatinRunLength";
+    private static final String PARALLEL_THRESHOLD = "parallelThreshold";
+    private static final String PARALLELISM = "parallelism";
+    // The close hooks of the Solr cores are added only when Solr is on the classpath
+    private static final boolean SOLR_AVAILABLE = isClassAvailable("org.apache.solr.core.SolrResourceLoader");
+    private final boolean packedAttributes;
+    private final int parallelism;
+    // Shared by the tokenizers of this factory, null unless parallelThreshold is set. Closed together with
+    // the Solr core, since Solr does not close the tokenizer factories
+    private final SentenceAnalysisPool sentenceAnalysisPool;
+    private final AtomicBoolean closed;
+    private final SudachiTokenizerOptions options;
     private final Config config;
+    // Lucene keeps one tokenizer per thread (per field), which lives as long as the thread does. They are
+    // tracked by identity, since the equals() and hashCode() of an AttributeSource change with its state
+    private final List<WeakReference<SudachiTokenizer>> tokenizers;
 
     public SudachiTokenizerFactory(final Map<String, String> args) {
         // Config.defaultConfig() throws an IO exception
@@ -56,47 +96,269 @@ public class SudachiTokenizerFactory extends TokenizerFactory implements Resourc
 
     public SudachiTokenizerFactory(final Map<String, String> args, final Config config) {
         super(args);
-        this.mode = getMode(args.getOrDefault(MODE, "search"));
+        final SudachiTokenizerOptions.Builder builder = SudachiTokenizerOptions.builder();
+        builder.mode(getMode(args.getOrDefault(MODE, "search")));
         if (!args.isEmpty()) {
             args.remove(MODE);
         }
-        this.discardPunctuation = Boolean.parseBoolean(args.getOrDefault(DISCARD_PUNCTUATION, "true"));
+        builder.discardPunctuation(Boolean.parseBoolean(args.getOrDefault(DISCARD_PUNCTUATION, "true")));
         if (!args.isEmpty()) {
             args.remove(DISCARD_PUNCTUATION);
         }
+        builder.punctuationByPartOfSpeech(
+                Boolean.parseBoolean(args.getOrDefault(PUNCTUATION_BY_PART_OF_SPEECH, "false")));
+        if (!args.isEmpty()) {
+            args.remove(PUNCTUATION_BY_PART_OF_SPEECH);
+        }
+        builder.metricsField(args.getOrDefault(METRICS_FIELD, SudachiTokenizer.DEFAULT_METRICS_FIELD));
+        if (!args.isEmpty()) {
+            args.remove(METRICS_FIELD);
+        }
+        builder.profile(getProfile(args.getOrDefault(PROFILE, TokenizerProfile.ANALYSIS.desc())));
+        if (!args.isEmpty()) {
+            args.remove(PROFILE);
+        }
+        this.packedAttributes = Boolean.parseBoolean(args.getOrDefault(PACKED_ATTRIBUTES, "false"));
+        if (!args.isEmpty()) {
+            args.remove(PACKED_ATTRIBUTES);
+        }
+        builder.shortInputLength(getInt(args, SHORT_INPUT_LENGTH, 0));
+        builder.maxSentenceLength(getInt(args, MAX_SENTENCE_LENGTH, 0));
+        // The new Sudachi tokenizer is created from the dictionary cached at the time of the shrink
+        builder.shrinkThreshold(
+                getInt(args, SHRINK_THRESHOLD, 0), () -> newInternalTokenizer(DictionaryCache.INSTANCE.get()));
+        builder.maxAnalysisMillis(getInt(args, MAX_ANALYSIS_MILLIS, 0));
+        builder.maxTokens(getInt(args, MAX_TOKENS, 0));
+        builder.maxChars(getInt(args, MAX_CHARS, 0));
+        builder.minLatinRunLength(getInt(args, MIN_LATIN_RUN_LENGTH, 0));
+        final int parallelThreshold = getInt(args, PARALLEL_THRESHOLD, 0);
+        if (parallelThreshold < 0) {
+            throw new IllegalArgumentException(PARALLEL_THRESHOLD + " must not be negative: " + parallelThreshold);
+        }
+        this.parallelism = getInt(args, PARALLELISM, Runtime.getRuntime().availableProcessors());
+        if (this.parallelism < 1) {
+            throw new IllegalArgumentException(PARALLELISM + " must be positive: " + this.parallelism);
+        }
+        if (!args.isEmpty()) {
+            throw new IllegalArgumentException("Unknown parameters: " + args);
+        }
+        this.sentenceAnalysisPool = parallelThreshold == 0
+                ? null
+                : new SentenceAnalysisPool(
+                        this.parallelism, () -> newInternalTokenizer(DictionaryCache.INSTANCE.get()));
+        try {
+            this.options = builder.parallelAnalysis(this.sentenceAnalysisPool, parallelThreshold).build();
+        } catch (final IllegalArgumentException ex) {
+            if (this.sentenceAnalysisPool != null) {
+                this.sentenceAnalysisPool.close();
+            }
+            throw ex;
+        }
 
         this.config = config;
+        this.tokenizers = new ArrayList<>();
+        this.closed = new AtomicBoolean();
+    }
 
-        if (!args.isEmpty()) {
-            throw new IllegalArgumentException("Unknown parameters: " + args);
+    /**
+     * Shuts the sentence analysis pool down, together with the Sudachi tokenizers of its workers. Called
+     * when the Solr core, whose schema has created this factory, is closed. The tokenizers of this factory
+     * analyze every document on the calling thread afterwards.
+     */
+    @Override
+    public void close() {
+        if (this.sentenceAnalysisPool != null && this.closed.compareAndSet(false, true)) {
+            this.sentenceAnalysisPool.close();
         }
     }
 
     @Override
     public Tokenizer create(final AttributeFactory factory) {
-        final Dictionary dictionary = DictionaryCache.INSTANCE.get();
-        final com.worksap.nlp.sudachi.Tokenizer internalTokenizer = dictionary.create();
+        final com.worksap.nlp.sudachi.Tokenizer internalTokenizer =
+                newInternalTokenizer(DictionaryCache.INSTANCE.get());
+
+        final AttributeFactory attributeFactory =
+                packedAttributes ? SudachiTokenizer.PACKED_TOKEN_ATTRIBUTE_FACTORY : DEFAULT_TOKEN_ATTRIBUTE_FACTORY;
+        final SudachiTokenizer tokenizer = new SudachiTokenizer(attributeFactory, internalTokenizer, options);
+        synchronized (this.tokenizers) {
+            this.tokenizers.removeIf(reference -> reference.get() == null);
+            this.tokenizers.add(new WeakReference<>(tokenizer));
+        }
+
+        return tokenizer;
+    }
 
-        return new SudachiTokenizer(internalTokenizer, discardPunctuation, mode);
+    private static boolean isClassAvailable(final String className) {
+        try {
+            Class.forName(className, false, SudachiTokenizerFactory.class.getClassLoader());
+            return true;
+        } catch (final ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    private static com.worksap.nlp.sudachi.Tokenizer newInternalTokenizer(final Dictionary dictionary) {
+        DictionaryCache.INSTANCE.getInfo().ifPresent(DictionaryInfo::onTokenizerCreated);
+        return dictionary.create();
+    }
+
+    /**
+     * Reports the heap used by the live tokenizers this factory has created, i.e.: one per thread
+     * per field. The shared dictionary is accounted for by the {@link DictionaryCache}.
+     */
+    @Override
+    public long ramBytesUsed() {
+        long bytes = RamUsageEstimator.shallowSizeOfInstance(SudachiTokenizerFactory.class);
+        for (final SudachiTokenizer tokenizer : liveTokenizers()) {
+            bytes += tokenizer.ramBytesUsed();
+        }
+        return bytes;
+    }
+
+    @Override
+    public Collection<Accountable> getChildResources() {
+        final List<Accountable> resources = new ArrayList<>();
+        for (final SudachiTokenizer tokenizer : liveTokenizers()) {
+            resources.add(Accountables.namedAccountable("tokenizer", tokenizer));
+        }
+        return resources;
+    }
+
+    /** Prunes the tokenizers, which have been garbage collected with their threads */
+    private List<SudachiTokenizer> liveTokenizers() {
+        final List<SudachiTokenizer> live = new ArrayList<>();
+        synchronized (this.tokenizers) {
+            final Iterator<WeakReference<SudachiTokenizer>> references = this.tokenizers.iterator();
+            while (references.hasNext()) {
+                final SudachiTokenizer tokenizer = references.next().get();
+                if (tokenizer == null) {
+                    references.remove();
+                } else {
+                    live.add(tokenizer);
+                }
+            }
+        }
+        return live;
     }
 
     @Override
     public void inform(ResourceLoader loader) throws IOException {
-        if (DictionaryCache.INSTANCE.isEmpty()) {
-            LOGGER.info("Sudachi: Dictionary Cache is empty");
+        if (this.sentenceAnalysisPool != null
+                && SOLR_AVAILABLE
+                && !SolrCoreCloseHooks.onCoreClose(loader, this::close)) {
+            // E.g.: the schema alone has been reloaded. The idle workers of the pool are still released after a while
+            LOGGER.info("Sudachi: The sentence analysis pool is not closed together with a Solr core");
+        }
+        // Factories are informed concurrently, e.g.: when the cores are loaded in parallel
+        synchronized (DictionaryCache.INSTANCE) {
+            if (DictionaryCache.INSTANCE.isEmpty()) {
+                LOGGER.info("Sudachi: Dictionary Cache is empty");
+
+                final DictionaryLoadEvent loadEvent = new DictionaryLoadEvent();
+                loadEvent.begin();
+                final long startNanos = System.nanoTime();
 
-            final Config currentConfig = this.config == null ? Config.defaultConfig() : this.config;
-            final Config config = currentConfig
-                    .systemDictionary(getEnv(SYSTEM_DICT_ENV_VAR, SYSTEM_DICT_LOCAL_PATH))
-                    .addUserDictionary(getEnv(USER_DICT_ENV_VAR, USER_DICT_LOCAL_PATH));
-            LOGGER.info("Sudachi: Created config from system and user dictionaries");
+                final Path systemDictionary = getEnv(SYSTEM_DICT_ENV_VAR, SYSTEM_DICT_LOCAL_PATH);
+                final Path userDictionary = getEnv(USER_DICT_ENV_VAR, USER_DICT_LOCAL_PATH);
+                final Config currentConfig = this.config == null ? Config.defaultConfig() : this.config;
+                final Config config =
+                        currentConfig.systemDictionary(systemDictionary).addUserDictionary(userDictionary);
+                LOGGER.info("Sudachi: Created config from system and user dictionaries");
 
-            final Dictionary dictionary = new DictionaryFactory().create(config);
-            DictionaryCache.INSTANCE.cache(dictionary);
-            LOGGER.info("Sudachi: Created and cached Sudachi Dictionary instance");
+                final Dictionary dictionary = new DictionaryFactory().create(config);
+                final long mappedBytes = sizeOf(systemDictionary) + sizeOf(userDictionary);
+                final long loadTimeMillis = (System.nanoTime() - startNanos) / 1_000_000L;
+                DictionaryCache.INSTANCE.cache(
+                        dictionary,
+                        new DictionaryInfo(
+                                systemDictionary, userDictionary, Instant.now(), loadTimeMillis, mappedBytes));
+                LOGGER.info("Sudachi: Created and cached Sudachi Dictionary instance in {} ms", loadTimeMillis);
+
+                loadEvent.end();
+                if (loadEvent.shouldCommit()) {
+                    loadEvent.config = this.config == null ? "default" : "provided";
+                    loadEvent.systemDictionary = systemDictionary.toString();
+                    loadEvent.userDictionary = userDictionary.toString();
+                    loadEvent.mappedBytes = mappedBytes;
+                    loadEvent.commit();
+                }
+            }
         }
     }
 
+    public SplitMode getMode() {
+        return options.getMode();
+    }
+
+    public boolean isDiscardPunctuation() {
+        return options.isDiscardPunctuation();
+    }
+
+    public boolean isPunctuationByPartOfSpeech() {
+        return options.isPunctuationByPartOfSpeech();
+    }
+
+    public String getMetricsField() {
+        return options.getMetricsField();
+    }
+
+    public TokenizerProfile getProfile() {
+        return options.getProfile();
+    }
+
+    public SudachiTokenizerOptions getOptions() {
+        return options;
+    }
+
+    public boolean isPackedAttributes() {
+        return packedAttributes;
+    }
+
+    public int getShortInputLength() {
+        return options.getShortInputLength();
+    }
+
+    public int getMaxSentenceLength() {
+        return options.getMaxSentenceLength();
+    }
+
+    public int getShrinkThreshold() {
+        return options.getShrinkThreshold();
+    }
+
+    public int getMaxAnalysisMillis() {
+        return (int) options.getMaxAnalysisMillis();
+    }
+
+    public int getMaxTokens() {
+        return options.getMaxTokens();
+    }
+
+    public int getMaxChars() {
+        return options.getMaxChars();
+    }
+
+    public int getMinLatinRunLength() {
+        return options.getMinLatinRunLength();
+    }
+
+    public int getParallelThreshold() {
+        return options.getParallelThreshold();
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    private TokenizerProfile getProfile(final String input) {
+        if (TokenizerProfile.ANALYSIS.desc().equalsIgnoreCase(input)) {
+            return TokenizerProfile.ANALYSIS;
+        } else if (TokenizerProfile.INDEXING.desc().equalsIgnoreCase(input)) {
+            return TokenizerProfile.INDEXING;
+        }
+        throw new IllegalArgumentException("Unknown tokenizer profile, was given " + input);
+    }
+
     private SplitMode getMode(final String input) {
         if (input != null) {
             if (TokenizerMode.SEARCH.desc().equalsIgnoreCase(input)) {
@@ -110,6 +372,14 @@ public class SudachiTokenizerFactory extends TokenizerFactory implements Resourc
         throw new IllegalArgumentException("Tokenization input mode is null, was given " + input);
     }
 
+    private static long sizeOf(final Path dictionary) {
+        try {
+            return Files.size(dictionary);
+        } catch (final IOException ex) {
+            return 0L;
+        }
+    }
+
     private static Path getEnv(final String name, final String defaultValue) {
         final Path defaultValuePath = Paths.get(defaultValue);
         try {
@@ -0,0 +1,314 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.tokenizer;
+
+import static com.worksap.nlp.sudachi.Tokenizer.SplitMode;
+
+import com.worksap.nlp.sudachi.Tokenizer;
+import java.util.function.Supplier;
+
+/**
+ * Immutable options of a {@link SudachiTokenizer}, which the {@link SudachiTokenizerFactory} builds
+ * once and shares between the tokenizers it creates. Every limit defaults to 0, i.e.: disabled.
+ *
+ * @see Builder
+ */
+public final class SudachiTokenizerOptions {
+
+    private final boolean discardPunctuation;
+    private final boolean punctuationByPartOfSpeech;
+    private final SplitMode mode;
+    private final String metricsField;
+    private final TokenizerProfile profile;
+    private final int shortInputLength;
+    private final int maxSentenceLength;
+    private final int shrinkThreshold;
+    private final Supplier<Tokenizer> sudachiTokenizerSupplier;
+    private final long maxAnalysisMillis;
+    private final int maxTokens;
+    private final int maxChars;
+    private final int minLatinRunLength;
+    private final SentenceAnalysisPool sentenceAnalysisPool;
+    private final int parallelThreshold;
+
+    private SudachiTokenizerOptions(final Builder builder) {
+        this.discardPunctuation = builder.discardPunctuation;
+        this.punctuationByPartOfSpeech = builder.punctuationByPartOfSpeech;
+        this.mode = builder.mode;
+        this.metricsField = builder.metricsField;
+        this.profile = builder.profile;
+        this.shortInputLength = builder.shortInputLength;
+        this.maxSentenceLength = builder.maxSentenceLength;
+        this.shrinkThreshold = builder.shrinkThreshold;
+        this.sudachiTokenizerSupplier = builder.sudachiTokenizerSupplier;
+        this.maxAnalysisMillis = builder.maxAnalysisMillis;
+        this.maxTokens = builder.maxTokens;
+        this.maxChars = builder.maxChars;
+        this.minLatinRunLength = builder.minLatinRunLength;
+        this.sentenceAnalysisPool = builder.sentenceAnalysisPool;
+        this.parallelThreshold = builder.parallelThreshold;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public boolean isDiscardPunctuation() {
+        return discardPunctuation;
+    }
+
+    public boolean isPunctuationByPartOfSpeech() {
+        return punctuationByPartOfSpeech;
+    }
+
+    public SplitMode getMode() {
+        return mode;
+    }
+
+    public String getMetricsField() {
+        return metricsField;
+    }
+
+    public TokenizerProfile getProfile() {
+        return profile;
+    }
+
+    public int getShortInputLength() {
+        return shortInputLength;
+    }
+
+    public int getMaxSentenceLength() {
+        return maxSentenceLength;
+    }
+
+    public int getShrinkThreshold() {
+        return shrinkThreshold;
+    }
+
+    /** @return creates the Sudachi tokenizer, which replaces a shrunk one, or null to keep the current one */
+    public Supplier<Tokenizer> getSudachiTokenizerSupplier() {
+        return sudachiTokenizerSupplier;
+    }
+
+    public long getMaxAnalysisMillis() {
+        return maxAnalysisMillis;
+    }
+
+    public int getMaxTokens() {
+        return maxTokens;
+    }
+
+    public int getMaxChars() {
+        return maxChars;
+    }
+
+    public int getMinLatinRunLength() {
+        return minLatinRunLength;
+    }
+
+    /** @return the pool shared by the tokenizers of a field type, or null */
+    public SentenceAnalysisPool getSentenceAnalysisPool() {
+        return sentenceAnalysisPool;
+    }
+
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    public static final class Builder {
+
+        private boolean discardPunctuation = true;
+        private boolean punctuationByPartOfSpeech;
+        private SplitMode mode = SplitMode.A;
+        private String metricsField = SudachiTokenizer.DEFAULT_METRICS_FIELD;
+        private TokenizerProfile profile = TokenizerProfile.ANALYSIS;
+        private int shortInputLength;
+        private int maxSentenceLength;
+        private int shrinkThreshold;
+        private Supplier<Tokenizer> sudachiTokenizerSupplier;
+        private long maxAnalysisMillis;
+        private int maxTokens;
+        private int maxChars;
+        private int minLatinRunLength;
+        private SentenceAnalysisPool sentenceAnalysisPool;
+        private int parallelThreshold;
+
+        private Builder() {}
+
+        public Builder discardPunctuation(final boolean discardPunctuation) {
+            this.discardPunctuation = discardPunctuation;
+            return this;
+        }
+
+        /**
+         * Decides which morphemes are discarded as punctuation by their part-of-speech id and the chars of
+         * their surface, instead of the chars of their normalized form. The normalized form is then decoded
+         * only for the morphemes on which the two disagree, see {@link PunctuationClassifier}. The same
+         * tokens are discarded, unless a symbol has a normalized form other than punctuation while its
+         * surface is only punctuation, or a word the other way round.
+         *
+         * @param punctuationByPartOfSpeech true to decide by the part-of-speech id, has no effect unless
+         *     {@link #discardPunctuation(boolean)} is set
+         */
+        public Builder punctuationByPartOfSpeech(final boolean punctuationByPartOfSpeech) {
+            this.punctuationByPartOfSpeech = punctuationByPartOfSpeech;
+            return this;
+        }
+
+        public Builder mode(final SplitMode mode) {
+            if (mode == null) {
+                throw new IllegalArgumentException("mode must not be null");
+            }
+            this.mode = mode;
+            return this;
+        }
+
+        /** @param metricsField the name under which the analysis metrics are reported */
+        public Builder metricsField(final String metricsField) {
+            if (metricsField == null) {
+                throw new IllegalArgumentException("metricsField must not be null");
+            }
+            this.metricsField = metricsField;
+            return this;
+        }
+
+        public Builder profile(final TokenizerProfile profile) {
+            if (profile == null) {
+                throw new IllegalArgumentException("profile must not be null");
+            }
+            this.profile = profile;
+            return this;
+        }
+
+        /**
+         * @param shortInputLength inputs of at most this many chars are analyzed as a whole, skipping the
+         *     Sudachi sentence detection, or 0 to always detect the sentences
+         */
+        public Builder shortInputLength(final int shortInputLength) {
+            this.shortInputLength = requireNonNegative("shortInputLength", shortInputLength);
+            return this;
+        }
+
+        /**
+         * Caps the length of the sentences handed to Sudachi, so that input without sentence punctuation
+         * (logs, tables, long kanji or katakana runs) does not grow the Sudachi lattice to its size. Longer
+         * sentences are split at a safe boundary, see {@link BoundedSentences}.
+         *
+         * @param maxSentenceLength max sentence length in chars, or 0 to leave the sentences uncapped
+         */
+        public Builder maxSentenceLength(final int maxSentenceLength) {
+            this.maxSentenceLength = requireNonNegative("maxSentenceLength", maxSentenceLength);
+            return this;
+        }
+
+        /**
+         * Releases the buffers, which have grown for a document whose longest sentence is longer than the
+         * threshold, once the document has been analyzed. Otherwise one bad document keeps them at its size
+         * for as long as the thread, which holds on to the tokenizer, lives.
+         *
+         * @param shrinkThreshold sentence length in chars, or 0 to never release the buffers
+         * @param sudachiTokenizerSupplier creates a new Sudachi tokenizer in place of the current one, whose
+         *     lattice cannot be shrunk otherwise, or null to keep the current one
+         */
+        public Builder shrinkThreshold(final int shrinkThreshold, final Supplier<Tokenizer> sudachiTokenizerSupplier) {
+            this.shrinkThreshold = requireNonNegative("shrinkThreshold", shrinkThreshold);
+            this.sudachiTokenizerSupplier = sudachiTokenizerSupplier;
+            return this;
+        }
+
+        /**
+         * Sets a time budget for the analysis of a document, so that pathological input does not stall the
+         * indexing. Once the budget has run out, the rest of the document is segmented by a cheap {@link
+         * FallbackSegmenter}, and its tokens are flagged by the {@link
+         * io.github.azagniotov.lucene.analysis.ja.sudachi.attributes.SudachiFallbackAttribute}. The budget
+         * is checked between sentences, thus it should be combined with {@link #maxSentenceLength(int)}.
+         *
+         * @param maxAnalysisMillis time budget in milliseconds, or 0 to analyze every document to its end
+         */
+        public Builder maxAnalysisMillis(final long maxAnalysisMillis) {
+            if (maxAnalysisMillis < 0) {
+                throw new IllegalArgumentException("maxAnalysisMillis must not be negative: " + maxAnalysisMillis);
+            }
+            this.maxAnalysisMillis = maxAnalysisMillis;
+            return this;
+        }
+
+        /**
+         * Stops the analysis of a document after the given number of tokens, thus Sudachi does not read and
+         * analyze the rest of it, as it would under a {@code LimitTokenCountFilter}. When tokens remained,
+         * the final offset is then the end offset of the last token.
+         *
+         * @param maxTokens max number of tokens per document, or 0 to emit all of them
+         */
+        public Builder maxTokens(final int maxTokens) {
+            this.maxTokens = requireNonNegative("maxTokens", maxTokens);
+            return this;
+        }
+
+        /**
+         * Analyzes only the given number of chars at the beginning of a document, i.e.: of the text read
+         * after the char filters, and leaves the rest of it unread. The final offset is then the offset of
+         * the cut.
+         *
+         * @param maxChars max number of chars per document, or 0 to analyze all of them
+         */
+        public Builder maxChars(final int maxChars) {
+            this.maxChars = requireNonNegative("maxChars", maxChars);
+            return this;
+        }
+
+        /**
+         * Splits off the runs of Latin letters, digits, ASCII symbols and spaces of at least the given length, e.g.:
+         * English text, code or logs within a Japanese document, and segments them by a cheap letter/digit
+         * tokenizer, see {@link LatinRunSplitter}. Only the spans in between are analyzed by Sudachi, thus
+         * its lattice is not built for text it has no dictionary entries for. The inputs are then never
+         * analyzed as a whole, thus the short inputs are split the same way at query time.
+         *
+         * @param minLatinRunLength min length in chars of a Latin run, or 0 to analyze all of it by Sudachi
+         */
+        public Builder minLatinRunLength(final int minLatinRunLength) {
+            this.minLatinRunLength = requireNonNegative("minLatinRunLength", minLatinRunLength);
+            return this;
+        }
+
+        /**
+         * Analyzes the sentences of the documents longer than the threshold concurrently on the given pool,
+         * instead of one after another on the calling thread, while the tokens are still emitted in the
+         * document order, see {@link ParallelSentences}. Such a document is read into memory as a whole
+         * before its analysis starts. The documents, whose Latin runs bypass Sudachi, are never analyzed
+         * concurrently.
+         *
+         * @param pool the pool shared by the tokenizers of a field type, or null to never analyze concurrently
+         * @param parallelThreshold min document length in chars, or 0 to never analyze concurrently
+         */
+        public Builder parallelAnalysis(final SentenceAnalysisPool pool, final int parallelThreshold) {
+            this.parallelThreshold = requireNonNegative("parallelThreshold", parallelThreshold);
+            this.sentenceAnalysisPool = pool;
+            return this;
+        }
+
+        public SudachiTokenizerOptions build() {
+            return new SudachiTokenizerOptions(this);
+        }
+
+        private static int requireNonNegative(final String name, final int value) {
+            if (value < 0) {
+                throw new IllegalArgumentException(name + " must not be negative: " + value);
+            }
+            return value;
+        }
+    }
+}
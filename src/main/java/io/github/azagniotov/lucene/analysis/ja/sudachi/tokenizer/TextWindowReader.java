@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.tokenizer;
+
+import io.github.azagniotov.lucene.analysis.ja.sudachi.util.Strings;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.RamUsageEstimator;
+
+/**
+ * Reader which keeps a window of the chars that Sudachi has read from the wrapped reader, so that
+ * the terms can be copied straight from the window into the {@link CharTermAttribute} by their
+ * offsets, instead of building a new String per token through {@code Morpheme.surface()}.
+ *
+ * <p>The window buffer is reused across sentences and documents. The chars before the start of the
+ * sentence being emitted are discarded lazily, i.e.: only when the buffer runs out of space.
+ *
+ * <p>The beginning of the input can be {@link #prefetch(int) prefetched} to find out whether the
+ * whole input is short. The prefetched chars are then handed out again by the next reads.
+ */
+final class TextWindowReader extends Reader {
+
+    private static final int INITIAL_CAPACITY = 4096;
+
+    private Reader delegate;
+    private char[] window;
+    // Absolute (i.e.: document) offset of window[0]
+    private int windowStart;
+    private int windowLength;
+    // Chars of the window before this index have been handed out by read()
+    private int delivered;
+    // Absolute offset before which chars are no longer needed
+    private int keepFrom;
+    // Absolute offset at which the input is cut off, i.e.: the reader behaves as if the input ended there
+    private int cutOff = Integer.MAX_VALUE;
+
+    TextWindowReader() {
+        this.window = new char[INITIAL_CAPACITY];
+    }
+
+    TextWindowReader wrap(final Reader reader) {
+        this.delegate = reader;
+        this.windowStart = 0;
+        this.windowLength = 0;
+        this.delivered = 0;
+        this.keepFrom = 0;
+        return this;
+    }
+
+    /**
+     * Reads ahead at most {@code limit + 1} chars of the input, which must not have been read yet.
+     *
+     * @return true when the whole input, i.e.: at most {@code limit} chars, has been read
+     */
+    boolean prefetch(final int limit) throws IOException {
+        ensureCapacity(limit + 1);
+        while (this.windowLength <= limit) {
+            final int read = readDelegate(this.window, this.windowLength, limit + 1 - this.windowLength);
+            if (read == -1) {
+                return true;
+            }
+            this.windowLength += read;
+        }
+        return false;
+    }
+
+    /**
+     * Reads the rest of the input into the window, e.g.: to analyze a large document concurrently. The
+     * chars are handed out again by the next reads, and stay in the window until {@link #shrink()}.
+     */
+    void readFully() throws IOException {
+        while (true) {
+            ensureCapacity(Math.max(INITIAL_CAPACITY, this.windowLength));
+            final int read = readDelegate(this.window, this.windowLength, this.window.length - this.windowLength);
+            if (read == -1) {
+                return;
+            }
+            this.windowLength += read;
+        }
+    }
+
+    /** @return the window buffer, whose first char is the first char of the input after {@link #readFully()} */
+    char[] windowChars() {
+        return window;
+    }
+
+    int windowLength() {
+        return windowLength;
+    }
+
+    /**
+     * Hands out the chars from the given offset again, e.g.: the chars which Sudachi has read ahead,
+     * but not analyzed. The offset must not be before the one passed to {@link #keepFrom(int)}.
+     */
+    void rewind(final int absoluteOffset) {
+        final int index = absoluteOffset - this.windowStart;
+        if (index < 0 || index > this.windowLength) {
+            throw new IllegalStateException("Offset " + absoluteOffset + " is no longer in the text window");
+        }
+        this.delivered = index;
+    }
+
+    /** @return the prefetched chars, i.e.: the whole input when {@link #prefetch(int)} returned true */
+    String prefetched() {
+        return new String(this.window, 0, this.windowLength);
+    }
+
+    /** @param maxChars the number of chars after which the input is cut off, or 0 to read all of it */
+    void setMaxChars(final int maxChars) {
+        this.cutOff = maxChars == 0 ? Integer.MAX_VALUE : maxChars;
+    }
+
+    void keepFrom(final int absoluteOffset) {
+        this.keepFrom = absoluteOffset;
+    }
+
+    /**
+     * @return false when the given range is not in the window, in which case the caller has to fall
+     *     back to {@code Morpheme.surface()}
+     */
+    boolean copyTo(final CharTermAttribute termAtt, final int absoluteBegin, final int absoluteEnd) {
+        final int begin = absoluteBegin - this.windowStart;
+        final int length = absoluteEnd - absoluteBegin;
+        if (begin < 0 || length < 0 || begin + length > this.windowLength) {
+            return false;
+        }
+        termAtt.copyBuffer(this.window, begin, length);
+        return true;
+    }
+
+    /** @return whether the given range is in the window, i.e.: whether it can be read from the window */
+    boolean contains(final int absoluteBegin, final int absoluteEnd) {
+        final int begin = absoluteBegin - this.windowStart;
+        final int length = absoluteEnd - absoluteBegin;
+        return begin >= 0 && length >= 0 && begin + length <= this.windowLength;
+    }
+
+    /**
+     * @return whether every char of the given range, which must be {@link #contains(int, int) in the window},
+     *     is punctuation
+     */
+    boolean isPunctuation(final int absoluteBegin, final int absoluteEnd) {
+        return Strings.isPunctuation(this.window, absoluteBegin - this.windowStart, absoluteEnd - absoluteBegin);
+    }
+
+    @Override
+    public int read(final char[] buffer, final int offset, final int length) throws IOException {
+        if (this.delivered < this.windowLength) {
+            final int prefetched = Math.min(length, this.windowLength - this.delivered);
+            System.arraycopy(this.window, this.delivered, buffer, offset, prefetched);
+            this.delivered += prefetched;
+            return prefetched;
+        }
+        final int read = readDelegate(buffer, offset, length);
+        if (read > 0) {
+            ensureCapacity(read);
+            System.arraycopy(buffer, offset, this.window, this.windowLength, read);
+            this.windowLength += read;
+            this.delivered = this.windowLength;
+        }
+        return read;
+    }
+
+    private int readDelegate(final char[] buffer, final int offset, final int length) throws IOException {
+        final long remaining = (long) this.cutOff - this.windowStart - this.windowLength;
+        if (remaining <= 0) {
+            return -1;
+        }
+        return this.delegate.read(buffer, offset, (int) Math.min(length, remaining));
+    }
+
+    /** Sudachi reads through {@link Readable#read(CharBuffer)}, which allocates a char[] per call in Reader */
+    @Override
+    public int read(final CharBuffer target) throws IOException {
+        if (!target.hasArray()) {
+            return super.read(target);
+        }
+        final int read = read(target.array(), target.arrayOffset() + target.position(), target.remaining());
+        if (read > 0) {
+            target.position(target.position() + read);
+        }
+        return read;
+    }
+
+    private void ensureCapacity(final int additional) {
+        if (this.windowLength + additional <= this.window.length) {
+            return;
+        }
+        final int discard = Math.min(Math.max(0, this.keepFrom - this.windowStart), this.delivered);
+        if (discard > 0) {
+            System.arraycopy(this.window, discard, this.window, 0, this.windowLength - discard);
+            this.windowStart += discard;
+            this.windowLength -= discard;
+            this.delivered -= discard;
+        }
+        if (this.windowLength + additional > this.window.length) {
+            this.window = ArrayUtil.grow(this.window, this.windowLength + additional);
+        }
+    }
+
+    long ramBytesUsed() {
+        return RamUsageEstimator.sizeOf(this.window);
+    }
+
+    /** Releases the window buffer, when it has grown past its initial capacity */
+    void shrink() {
+        if (this.window.length > INITIAL_CAPACITY) {
+            this.window = new char[INITIAL_CAPACITY];
+            this.windowStart = 0;
+            this.windowLength = 0;
+            this.delivered = 0;
+            this.keepFrom = 0;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        // The wrapped reader is closed by the Lucene Tokenizer
+        this.delegate = null;
+    }
+}
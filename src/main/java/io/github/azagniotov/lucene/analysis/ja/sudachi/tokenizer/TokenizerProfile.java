@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2023-2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.tokenizer;
+package io.github.azagniotov.lucene.analysis.ja.sudachi.tokenizer;
+
+/**
+ * Which attributes the {@link SudachiTokenizer} fills for every token.
+ *
+ * <p>{@link #ANALYSIS} fills all the morphological attributes, which are shown by the Solr field
+ * analysis screen/API. {@link #INDEXING} fills them only when a downstream filter has registered
+ * them, or when the tokenizer runs under the Solr field analysis screen/API, which still shows them.
+ */
+public enum TokenizerProfile {
+    ANALYSIS("analysis"),
+    INDEXING("indexing");
+
+    private final String desc;
+
+    TokenizerProfile(final String desc) {
+        this.desc = desc;
+    }
+
+    public String desc() {
+        return this.desc;
+    }
+}
@@ -0,0 +1,403 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.update;
+
+import io.github.azagniotov.lucene.analysis.ja.sudachi.analyzer.SudachiBatchAnalyzer;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.analyzer.SudachiTokens;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.apache.lucene.analysis.tokenattributes.TypeAttribute;
+import org.apache.lucene.util.BytesRef;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.SolrInputField;
+import org.apache.solr.common.util.Base64;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.core.CloseHook;
+import org.apache.solr.core.SolrCore;
+import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.response.SolrQueryResponse;
+import org.apache.solr.schema.FieldType;
+import org.apache.solr.schema.IndexSchema;
+import org.apache.solr.schema.PreAnalyzedField;
+import org.apache.solr.schema.SchemaField;
+import org.apache.solr.update.AddUpdateCommand;
+import org.apache.solr.update.CommitUpdateCommand;
+import org.apache.solr.update.DeleteUpdateCommand;
+import org.apache.solr.update.MergeIndexesCommand;
+import org.apache.solr.update.RollbackUpdateCommand;
+import org.apache.solr.update.processor.UpdateRequestProcessor;
+import org.apache.solr.update.processor.UpdateRequestProcessorFactory;
+import org.apache.solr.util.plugin.SolrCoreAware;
+import org.noggit.CharArr;
+import org.noggit.JSONUtil;
+
+/**
+ * Analyzes the text fields of the added documents in batches, on a bounded pool shared by the update
+ * requests of the core, instead of one value at a time on the thread of the update request.
+ *
+ * <p>The processor buffers up to {@code batchSize} added documents, analyzes the values of the
+ * configured {@code fields} with the index analyzer of the {@code fieldType} by a {@link
+ * SudachiBatchAnalyzer}, and replaces each value with its tokens in the JSON format of the {@link
+ * PreAnalyzedField}. The configured fields must thus be of a {@code solr.PreAnalyzedField} type, whose
+ * query analyzer is the one of the {@code fieldType}, so that the indexing chain only parses the tokens.
+ * Since the values remain strings, the documents can still be forwarded to the replicas and written to
+ * the update log.
+ *
+ * <p>The buffered documents are passed on, in their order, once the batch is full, before any other
+ * update command and when the request finishes. None of the documents of a batch is passed on before
+ * the whole batch has been analyzed. If the analysis of the batch fails, its documents are analyzed and
+ * passed on one by one, up to the first document whose analysis fails, as the request would without the
+ * batches. The error is thrown with the id of that document, by the command that has flushed its batch,
+ * e.g.: by a later add, a commit or the end of the request, and the documents following it in the batch
+ * are not passed on.
+ *
+ * <pre>
+ * &lt;processor
+ *     class="io.github.azagniotov.lucene.analysis.ja.sudachi.update.SudachiPreAnalysisUpdateProcessorFactory"&gt;
+ *   &lt;str name="fieldType"&gt;text_ja&lt;/str&gt;
+ *   &lt;arr name="fields"&gt;&lt;str&gt;title&lt;/str&gt;&lt;str&gt;body&lt;/str&gt;&lt;/arr&gt;
+ *   &lt;int name="batchSize"&gt;100&lt;/int&gt;
+ *   &lt;int name="parallelism"&gt;4&lt;/int&gt;
+ * &lt;/processor&gt;
+ * </pre>
+ */
+public class SudachiPreAnalysisUpdateProcessorFactory extends UpdateRequestProcessorFactory implements SolrCoreAware {
+
+    static final int DEFAULT_BATCH_SIZE = 100;
+    // The tokenizer of a field type may use the shortInputLength fast path, which rules out micro-batching
+    static final int DEFAULT_MICRO_BATCH_CHARS = 0;
+
+    private String fieldTypeName;
+    private Collection<String> fieldNames;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private int microBatchChars = DEFAULT_MICRO_BATCH_CHARS;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private ForkJoinPool pool;
+
+    @Override
+    public void init(final NamedList<?> args) {
+        final Object fieldType = args.remove("fieldType");
+        if (fieldType == null) {
+            throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, "fieldType must be configured");
+        }
+        this.fieldTypeName = fieldType.toString();
+        this.fieldNames = args.removeConfigArgs("fields");
+        if (this.fieldNames.isEmpty()) {
+            throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, "fields must be configured");
+        }
+        this.batchSize = getInt(args, "batchSize", this.batchSize, 1);
+        this.microBatchChars = getInt(args, "microBatchChars", this.microBatchChars, 0);
+        this.parallelism = getInt(args, "parallelism", this.parallelism, 1);
+        if (args.size() > 0) {
+            throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, "Unknown parameters: " + args);
+        }
+        this.pool = SudachiBatchAnalyzer.newPool(this.parallelism);
+    }
+
+    private static int getInt(final NamedList<?> args, final String name, final int defaultValue, final int min) {
+        final Object value = args.remove(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        final int parsed;
+        try {
+            parsed = Integer.parseInt(value.toString());
+        } catch (final NumberFormatException e) {
+            throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, name + " must be an integer: " + value);
+        }
+        if (parsed < min) {
+            throw new SolrException(
+                    SolrException.ErrorCode.SERVER_ERROR, name + " must be at least " + min + ": " + parsed);
+        }
+        return parsed;
+    }
+
+    @Override
+    public void inform(final SolrCore core) {
+        core.addCloseHook(new CloseHook() {
+            @Override
+            public void preClose(final SolrCore core) {}
+
+            @Override
+            public void postClose(final SolrCore core) {
+                pool.shutdown();
+                try {
+                    pool.awaitTermination(1, TimeUnit.MINUTES);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+    }
+
+    @Override
+    public UpdateRequestProcessor getInstance(
+            final SolrQueryRequest req, final SolrQueryResponse rsp, final UpdateRequestProcessor next) {
+        return new SudachiPreAnalysisUpdateProcessor(req, next);
+    }
+
+    public String getFieldTypeName() {
+        return fieldTypeName;
+    }
+
+    public Collection<String> getFieldNames() {
+        return fieldNames;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getMicroBatchChars() {
+        return microBatchChars;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * @return the tokens in the JSON format of the {@link PreAnalyzedField}, with the value if it is
+     *     stored. The position length, type, flags and payload are written only when they differ from
+     *     their defaults, which the parser assumes for the missing keys.
+     */
+    static String toPreAnalyzedJson(final String value, final SudachiTokens tokens, final boolean stored) {
+        final CharArr json = new CharArr(32 + value.length() * 8);
+        json.write("{\"v\":\"1\"");
+        if (stored) {
+            json.write(",\"str\":");
+            JSONUtil.writeString(value, 0, value.length(), json);
+        }
+        json.write(",\"tokens\":[");
+        final CharSequence terms = tokens.terms();
+        for (int idx = 0; idx < tokens.size(); idx++) {
+            if (idx > 0) {
+                json.write(',');
+            }
+            final int termStart = tokens.termStart(idx);
+            json.write("{\"t\":");
+            JSONUtil.writeString(terms, termStart, termStart + tokens.termLength(idx), json);
+            json.write(",\"s\":");
+            json.write(Integer.toString(tokens.startOffset(idx)));
+            json.write(",\"e\":");
+            json.write(Integer.toString(tokens.endOffset(idx)));
+            json.write(",\"i\":");
+            json.write(Integer.toString(tokens.positionIncrement(idx)));
+            if (tokens.positionLength(idx) != 1) {
+                json.write(",\"l\":");
+                json.write(Integer.toString(tokens.positionLength(idx)));
+            }
+            final String type = tokens.type(idx);
+            if (type != null && !TypeAttribute.DEFAULT_TYPE.equals(type)) {
+                json.write(",\"y\":");
+                JSONUtil.writeString(type, 0, type.length(), json);
+            }
+            if (tokens.flags(idx) != 0) {
+                // The parser reads the flags as a hex number
+                json.write(",\"f\":\"");
+                json.write(Integer.toHexString(tokens.flags(idx)));
+                json.write('"');
+            }
+            final BytesRef payload = tokens.payload(idx);
+            if (payload != null && payload.length > 0) {
+                json.write(",\"p\":\"");
+                json.write(Base64.byteArrayToBase64(payload.bytes, payload.offset, payload.length));
+                json.write('"');
+            }
+            json.write('}');
+        }
+        json.write("]}");
+        return json.toString();
+    }
+
+    private final class SudachiPreAnalysisUpdateProcessor extends UpdateRequestProcessor {
+
+        private final SolrQueryRequest req;
+        private final List<AddUpdateCommand> buffered = new ArrayList<>();
+
+        SudachiPreAnalysisUpdateProcessor(final SolrQueryRequest req, final UpdateRequestProcessor next) {
+            super(next);
+            this.req = req;
+        }
+
+        @Override
+        public void processAdd(final AddUpdateCommand cmd) throws IOException {
+            // The request loaders reuse the command for the next document, but not the document itself
+            this.buffered.add((AddUpdateCommand) cmd.clone());
+            if (this.buffered.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        @Override
+        public void processDelete(final DeleteUpdateCommand cmd) throws IOException {
+            flush();
+            super.processDelete(cmd);
+        }
+
+        @Override
+        public void processMergeIndexes(final MergeIndexesCommand cmd) throws IOException {
+            flush();
+            super.processMergeIndexes(cmd);
+        }
+
+        @Override
+        public void processCommit(final CommitUpdateCommand cmd) throws IOException {
+            flush();
+            super.processCommit(cmd);
+        }
+
+        @Override
+        public void processRollback(final RollbackUpdateCommand cmd) throws IOException {
+            flush();
+            super.processRollback(cmd);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            flush();
+            super.finish();
+        }
+
+        private void flush() throws IOException {
+            if (this.buffered.isEmpty()) {
+                return;
+            }
+            final List<AddUpdateCommand> commands = new ArrayList<>(this.buffered);
+            this.buffered.clear();
+
+            try {
+                preAnalyze(commands);
+            } catch (final FieldAnalysisException e) {
+                passOnOneByOne(commands);
+                return;
+            }
+            for (final AddUpdateCommand cmd : commands) {
+                super.processAdd(cmd);
+            }
+        }
+
+        /** Analyzes and passes on the documents of a failed batch one by one, up to the first that fails */
+        private void passOnOneByOne(final List<AddUpdateCommand> commands) throws IOException {
+            for (final AddUpdateCommand cmd : commands) {
+                try {
+                    preAnalyze(Collections.singletonList(cmd));
+                } catch (final FieldAnalysisException e) {
+                    final String message =
+                            "ERROR: [doc=" + cmd.getPrintableId() + "] Error pre-analyzing field '" + e.fieldName + "'";
+                    throw new SolrException(SolrException.ErrorCode.BAD_REQUEST, message, e.getCause());
+                }
+                super.processAdd(cmd);
+            }
+        }
+
+        /**
+         * Replaces the values of the documents with their tokens only once all the fields of all the
+         * documents have been analyzed, thus leaves the documents as they are if the analysis fails
+         */
+        private void preAnalyze(final List<AddUpdateCommand> commands) {
+            final IndexSchema schema = this.req.getSchema();
+            final FieldType fieldType = schema.getFieldTypeByName(fieldTypeName);
+            if (fieldType == null) {
+                throw new SolrException(
+                        SolrException.ErrorCode.SERVER_ERROR, "Unknown fieldType: " + fieldTypeName);
+            }
+
+            final List<SolrInputField> analyzedFields = new ArrayList<>();
+            final List<List<Object>> analyzedValues = new ArrayList<>();
+            for (final String fieldName : fieldNames) {
+                final SchemaField schemaField = schema.getFieldOrNull(fieldName);
+                if (schemaField == null) {
+                    continue;
+                }
+                if (!(schemaField.getType() instanceof PreAnalyzedField)) {
+                    throw new SolrException(
+                            SolrException.ErrorCode.SERVER_ERROR,
+                            "Field " + fieldName + " must be of a solr.PreAnalyzedField type");
+                }
+
+                final List<SolrInputField> inputFields = new ArrayList<>();
+                final List<String> values = new ArrayList<>();
+                for (final AddUpdateCommand cmd : commands) {
+                    final SolrInputField inputField = cmd.getSolrInputDocument().getField(fieldName);
+                    // Atomic updates and binary values are left to the PreAnalyzedField, i.e.: are not supported
+                    if (inputField == null || !hasOnlyStrings(inputField)) {
+                        continue;
+                    }
+                    inputFields.add(inputField);
+                    values.addAll(stringsOf(inputField));
+                }
+                if (values.isEmpty()) {
+                    continue;
+                }
+
+                final SudachiBatchAnalyzer batchAnalyzer =
+                        new SudachiBatchAnalyzer(fieldType.getIndexAnalyzer(), fieldName, pool, microBatchChars);
+                final List<SudachiTokens> analyzed;
+                try {
+                    analyzed = batchAnalyzer.analyze(values);
+                } catch (final RuntimeException e) {
+                    throw new FieldAnalysisException(fieldName, e);
+                }
+                int next = 0;
+                for (final SolrInputField inputField : inputFields) {
+                    final List<Object> preAnalyzed = new ArrayList<>(inputField.getValueCount());
+                    for (int idx = 0; idx < inputField.getValueCount(); idx++) {
+                        preAnalyzed.add(toPreAnalyzedJson(values.get(next), analyzed.get(next), schemaField.stored()));
+                        next++;
+                    }
+                    analyzedFields.add(inputField);
+                    analyzedValues.add(preAnalyzed);
+                }
+            }
+            for (int idx = 0; idx < analyzedFields.size(); idx++) {
+                analyzedFields.get(idx).setValue(analyzedValues.get(idx));
+            }
+        }
+    }
+
+    private static final class FieldAnalysisException extends RuntimeException {
+
+        private final String fieldName;
+
+        FieldAnalysisException(final String fieldName, final RuntimeException cause) {
+            super(cause);
+            this.fieldName = fieldName;
+        }
+    }
+
+    private static List<String> stringsOf(final SolrInputField inputField) {
+        final List<String> strings = new ArrayList<>(inputField.getValueCount());
+        for (final Object value : inputField) {
+            strings.add((String) value);
+        }
+        return strings;
+    }
+
+    private static boolean hasOnlyStrings(final SolrInputField inputField) {
+        for (final Object value : inputField) {
+            if (!(value instanceof String)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -38,6 +38,9 @@ public class Strings {
             Character.INITIAL_QUOTE_PUNCTUATION,
             Character.FINAL_QUOTE_PUNCTUATION);
 
+    // Character.getType() of every BMP char is looked up once, thus checking a char costs a bit test
+    private static final long[] BMP_PUNCTUATION = bmpPunctuation();
+
     public static boolean isPunctuation(CharSequence str) {
         int length = str.length();
         if (length == 0) {
@@ -46,7 +49,7 @@ public class Strings {
 
         for (int idx = 0; idx < length; ) {
             int codePt = Character.codePointAt(str, idx);
-            if (!hasType(codePt, PUNCTUATION_MASK)) {
+            if (!isPunctuation(codePt)) {
                 return false;
             }
             idx += Character.charCount(codePt);
@@ -54,6 +57,30 @@ public class Strings {
         return true;
     }
 
+    /** Same as {@link #isPunctuation(CharSequence)}, for the given range of the chars */
+    public static boolean isPunctuation(char[] chars, int offset, int length) {
+        if (length == 0) {
+            return false;
+        }
+
+        final int limit = offset + length;
+        for (int idx = offset; idx < limit; ) {
+            int codePt = Character.codePointAt(chars, idx, limit);
+            if (!isPunctuation(codePt)) {
+                return false;
+            }
+            idx += Character.charCount(codePt);
+        }
+        return true;
+    }
+
+    public static boolean isPunctuation(int codePoint) {
+        if (codePoint <= Character.MAX_VALUE) {
+            return (BMP_PUNCTUATION[codePoint >>> 6] & (1L << codePoint)) != 0;
+        }
+        return hasType(codePoint, PUNCTUATION_MASK);
+    }
+
     public static boolean hasType(int codepoint, long typeMask) {
         int type = Character.getType(codepoint);
         long mask = 1L << type;
@@ -67,4 +94,14 @@ public class Strings {
         }
         return mask;
     }
+
+    private static long[] bmpPunctuation() {
+        final long[] bits = new long[(Character.MAX_VALUE + 1) >>> 6];
+        for (int codePoint = 0; codePoint <= Character.MAX_VALUE; codePoint++) {
+            if (hasType(codePoint, PUNCTUATION_MASK)) {
+                bits[codePoint >>> 6] |= 1L << codePoint;
+            }
+        }
+        return bits;
+    }
 }
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.worksap.nlp.sudachi.Morpheme;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.analyzer.SudachiAnalyzer;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.attributes.SudachiMorphemeAttribute;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.benchmark.SyntheticCorpus;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.tokenizer.SudachiTokenizerFactory;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.util.NoOpResourceLoader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.util.AttributeFactory;
+import org.junit.Test;
+
+/**
+ * Long-running soak tests, which push millions of synthetic documents through the {@link
+ * SudachiAnalyzer} and assert that the heap stays flat, i.e.: nothing (e.g.: Morpheme or
+ * MorphemeList objects) is kept alive across documents.
+ *
+ * <p>The number of documents is controlled with: ./gradlew soakTest -PsoakDocuments=5000000
+ */
+public class SudachiAnalyzerSoakTest {
+
+    private static final long DOCUMENTS = Long.getLong("tests.soak.documents", 2_000_000L);
+    private static final int CHECKPOINTS = 10;
+    // Allowed heap growth over the baseline: 10% plus a fixed slack for the GC/JIT noise
+    private static final double MAX_HEAP_GROWTH_RATIO = 0.10;
+    private static final long MAX_HEAP_GROWTH_SLACK_BYTES = 16L * 1024 * 1024;
+
+    @Test
+    public void heapStaysFlatWhileAnalyzingMillionsOfDocuments() throws Exception {
+        final SyntheticCorpus corpus = SyntheticCorpus.fromTestResources(42L);
+
+        try (final Analyzer analyzer = new SudachiAnalyzer()) {
+            // Warm-up, so that the JIT, the Sudachi lattice and the Lucene token stream components
+            // reach their steady state before the baseline is taken
+            final long warmupDocuments = DOCUMENTS / CHECKPOINTS;
+            for (long idx = 0; idx < warmupDocuments; idx++) {
+                consume(analyzer, corpus.nextDocument(1, 20));
+            }
+            final long baseline = usedHeapAfterGc();
+            final long limit = (long) (baseline * (1 + MAX_HEAP_GROWTH_RATIO)) + MAX_HEAP_GROWTH_SLACK_BYTES;
+
+            final List<Long> checkpoints = new ArrayList<>();
+            final long documentsPerCheckpoint = (DOCUMENTS - warmupDocuments) / CHECKPOINTS;
+            for (int checkpoint = 0; checkpoint < CHECKPOINTS; checkpoint++) {
+                for (long idx = 0; idx < documentsPerCheckpoint; idx++) {
+                    consume(analyzer, corpus.nextDocument(1, 20));
+                }
+                final long used = usedHeapAfterGc();
+                checkpoints.add(used);
+                System.out.printf(
+                        Locale.ROOT,
+                        "Soak checkpoint %d: %,d documents, used heap %,d bytes (baseline %,d)%n",
+                        checkpoint + 1,
+                        warmupDocuments + (checkpoint + 1) * documentsPerCheckpoint,
+                        used,
+                        baseline);
+            }
+
+            for (final long used : checkpoints) {
+                assertTrue(
+                        String.format(
+                                Locale.ROOT,
+                                "Used heap grew from %,d to %,d bytes, checkpoints: %s",
+                                baseline,
+                                used,
+                                checkpoints),
+                        used <= limit);
+            }
+        }
+    }
+
+    @Test
+    public void morphemesAreNotRetainedAfterTheDocument() throws Exception {
+        final SyntheticCorpus corpus = SyntheticCorpus.fromTestResources(7L);
+        final Tokenizer tokenizer = createTokenizer();
+        final SudachiMorphemeAttribute morphemeAtt = tokenizer.addAttribute(SudachiMorphemeAttribute.class);
+
+        // The consumer stops early, e.g.: as a LimitTokenCountFilter does, thus the rest of the
+        // current sentence is still buffered when end() is called
+        tokenizer.setReader(new StringReader(corpus.nextDocument(5, 10)));
+        tokenizer.reset();
+        assertTrue(tokenizer.incrementToken());
+        final WeakReference<Morpheme> firstMorpheme = new WeakReference<>(morphemeAtt.getValue().orElse(null));
+        assertNotNull(firstMorpheme.get());
+        tokenizer.end();
+        tokenizer.close();
+
+        // The tokenizer itself stays reachable, as it does when it is reused by an Analyzer
+        for (int round = 0; round < 10 && firstMorpheme.get() != null; round++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        assertNull("Morpheme is still reachable from the tokenizer after end() and close()", firstMorpheme.get());
+        Reference.reachabilityFence(tokenizer);
+    }
+
+    private static void consume(final Analyzer analyzer, final String document) throws IOException {
+        consume(analyzer.tokenStream("content", document));
+    }
+
+    private static void consume(final TokenStream tokenStream) throws IOException {
+        try (final TokenStream stream = tokenStream) {
+            stream.reset();
+            while (stream.incrementToken()) {
+                // Consuming the stream, the tokens are not needed
+            }
+            stream.end();
+        }
+    }
+
+    private static long usedHeapAfterGc() throws InterruptedException {
+        long used = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            System.gc();
+            Thread.sleep(100);
+            final Runtime runtime = Runtime.getRuntime();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+
+    private static Tokenizer createTokenizer() throws IOException {
+        final Map<String, String> args = new HashMap<>();
+        args.put("mode", "search");
+        args.put("discardPunctuation", "true");
+        final SudachiTokenizerFactory factory = new SudachiTokenizerFactory(args);
+        factory.inform(new NoOpResourceLoader());
+
+        return factory.create(AttributeFactory.DEFAULT_ATTRIBUTE_FACTORY);
+    }
+}
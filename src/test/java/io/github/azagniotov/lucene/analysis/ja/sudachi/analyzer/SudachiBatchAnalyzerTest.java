@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.analyzer;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+import org.testng.annotations.Test;
+
+public class SudachiBatchAnalyzerTest {
+
+    @Test
+    public void closedBracketsAreDetected() {
+        assertThat(SudachiBatchAnalyzer.closesItsBrackets("「東京」（とうきょう）")).isTrue();
+        assertThat(SudachiBatchAnalyzer.closesItsBrackets("東京」")).isTrue();
+        assertThat(SudachiBatchAnalyzer.closesItsBrackets("「東京")).isFalse();
+    }
+
+    @Test
+    public void shortDocumentsAreMicroBatchedUpToTheMaxLength() {
+        final List<String> documents = Arrays.asList("東京", "大阪", "京都", "「名古屋", "札幌", "福岡");
+        try (SudachiBatchAnalyzer batchAnalyzer = new SudachiBatchAnalyzer(new SudachiAnalyzer(), "title", 1, 8)) {
+            // 東京 + separator + 大阪 is 6 chars, with 京都 it would be 10
+            assertThat(batchAnalyzer.microBatchEnd(documents, 0)).isEqualTo(2);
+            // The brackets of 「名古屋 are not closed
+            assertThat(batchAnalyzer.microBatchEnd(documents, 2)).isEqualTo(3);
+            assertThat(batchAnalyzer.microBatchEnd(documents, 3)).isEqualTo(4);
+            assertThat(batchAnalyzer.microBatchEnd(documents, 4)).isEqualTo(6);
+        }
+    }
+
+    @Test
+    public void noMicroBatchesWhenDisabled() {
+        final List<String> documents = Arrays.asList("東京", "大阪");
+        try (SudachiBatchAnalyzer batchAnalyzer = new SudachiBatchAnalyzer(new SudachiAnalyzer(), "title", 1, 0)) {
+            assertThat(batchAnalyzer.microBatchEnd(documents, 0)).isEqualTo(1);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.events;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.apache.lucene.analysis.TokenStream.DEFAULT_TOKEN_ATTRIBUTE_FACTORY;
+
+import io.github.azagniotov.lucene.analysis.ja.sudachi.cache.DictionaryCache;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.tokenizer.SudachiTokenizerFactory;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.util.NoOpResourceLoader;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.apache.lucene.analysis.Tokenizer;
+import org.testng.annotations.Test;
+
+public class SudachiEventsTest {
+
+    @Test
+    public void dictionaryLoadAndDocumentAnalysisEventsAreRecorded() throws Exception {
+        final Path dump = Files.createTempFile("sudachi-events", ".jfr");
+        try (final Recording recording = new Recording()) {
+            recording.enable(DictionaryLoadEvent.class);
+            // Every document is slow enough with a zero threshold
+            recording.enable(DocumentAnalysisEvent.class).withThreshold(Duration.ZERO);
+            recording.start();
+
+            DictionaryCache.INSTANCE.invalidate();
+            final Map<String, String> args = new HashMap<String, String>() {
+                {
+                    put("mode", "search");
+                    put("metricsField", "title_ja");
+                }
+            };
+            final SudachiTokenizerFactory factory = new SudachiTokenizerFactory(args);
+            factory.inform(new NoOpResourceLoader());
+
+            final Tokenizer tokenizer = factory.create(DEFAULT_TOKEN_ATTRIBUTE_FACTORY);
+            tokenizer.setReader(new StringReader("東京都に行く。大阪府に行きました！"));
+            tokenizer.reset();
+            while (tokenizer.incrementToken()) {
+                // Consuming the stream, the tokens are not needed
+            }
+            tokenizer.end();
+            tokenizer.close();
+
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        final List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+        Files.deleteIfExists(dump);
+
+        final List<RecordedEvent> loadEvents = events.stream()
+                .filter(event -> event.getEventType().getName().equals("io.github.azagniotov.sudachi.DictionaryLoad"))
+                .collect(Collectors.toList());
+        assertThat(loadEvents).hasSize(1);
+        assertThat(loadEvents.get(0).getString("systemDictionary")).endsWith("system.dict");
+        assertThat(loadEvents.get(0).getLong("mappedBytes")).isGreaterThan(0L);
+
+        final List<RecordedEvent> analysisEvents = events.stream()
+                .filter(event -> event.getEventType().getName().equals("io.github.azagniotov.sudachi.DocumentAnalysis"))
+                .collect(Collectors.toList());
+        assertThat(analysisEvents).hasSize(1);
+        final RecordedEvent analysisEvent = analysisEvents.get(0);
+        assertThat(analysisEvent.getString("field")).isEqualTo("title_ja");
+        assertThat(analysisEvent.getString("mode")).isEqualTo("A");
+        assertThat(analysisEvent.getLong("charLength")).isEqualTo(17L);
+        assertThat(analysisEvent.getLong("sentenceCount")).isEqualTo(2L);
+        assertThat(analysisEvent.getLong("longestSentenceLength")).isEqualTo(10L);
+    }
+}
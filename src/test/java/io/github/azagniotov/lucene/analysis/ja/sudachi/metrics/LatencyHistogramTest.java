@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.metrics;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import org.testng.annotations.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void emptyHistogram() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        assertThat(histogram.getCount()).isEqualTo(0);
+        assertThat(histogram.getMeanNanos()).isEqualTo(0.0);
+        assertThat(histogram.getQuantileNanos(0.99)).isEqualTo(0);
+    }
+
+    @Test
+    public void quantilesAreUpperBoundsOfPowerOfTwoBuckets() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int idx = 0; idx < 99; idx++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(50));
+
+        assertThat(histogram.getCount()).isEqualTo(100);
+        assertThat(histogram.getMaxNanos()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+        // 100µs falls into the [64µs, 128µs) bucket
+        assertThat(histogram.getQuantileNanos(0.50)).isEqualTo(TimeUnit.MICROSECONDS.toNanos(128));
+        assertThat(histogram.getQuantileNanos(0.99)).isEqualTo(TimeUnit.MICROSECONDS.toNanos(128));
+        // The upper bound of the [32768µs, 65536µs) bucket is capped by the max recorded value
+        assertThat(histogram.getQuantileNanos(0.999)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void invalidQuantile() {
+        new LatencyHistogram().getQuantileNanos(1.5);
+    }
+}
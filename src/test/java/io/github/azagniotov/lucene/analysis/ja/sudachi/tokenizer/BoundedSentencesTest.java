@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.tokenizer;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.testng.annotations.Test;
+
+public class BoundedSentencesTest {
+
+    @Test
+    public void cutsAfterTheLastSentenceEnding() {
+        final char[] text = "東京都に行く大阪府に行く。京都".toCharArray();
+        assertThat(BoundedSentences.safeBoundary(text, text.length)).isEqualTo("東京都に行く大阪府に行く。".length());
+    }
+
+    @Test
+    public void cutsAfterPunctuationWithoutASentenceEnding() {
+        final char[] text = "東京都に行く大阪府 に行く京都府".toCharArray();
+        assertThat(BoundedSentences.safeBoundary(text, text.length)).isEqualTo("東京都に行く大阪府 ".length());
+    }
+
+    @Test
+    public void cutsBeforeAChangeOfScript() {
+        final char[] text = "東京都イーブイヒーローズboxシリーズ".toCharArray();
+        assertThat(BoundedSentences.safeBoundary(text, text.length)).isEqualTo("東京都イーブイヒーローズbox".length());
+    }
+
+    @Test
+    public void doesNotCutBeforeProlongedSoundMarks() {
+        final char[] text = "行くイーーーーーーー".toCharArray();
+        assertThat(BoundedSentences.safeBoundary(text, text.length)).isEqualTo(text.length);
+    }
+
+    @Test
+    public void doesNotCutASurrogatePair() {
+        final char[] text = "𠀋𠀋𠀋𠀋".toCharArray();
+        assertThat(BoundedSentences.safeBoundary(text, text.length - 1)).isEqualTo(text.length - 2);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.tokenizer;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import org.testng.annotations.Test;
+
+public class FallbackSegmenterTest {
+
+    @Test
+    public void segmentsByCharacterClassAndKanjiBigrams() throws Exception {
+        assertThat(segment("東京都にイーブイヒーローズbox123を。", 0, true))
+                .containsExactly("東京", "京都", "に", "イーブイヒーローズ", "box123", "を")
+                .inOrder();
+    }
+
+    @Test
+    public void singleKanjiIsAUnigram() throws Exception {
+        assertThat(segment("本を読む", 0, true)).containsExactly("本", "を", "読", "む").inOrder();
+    }
+
+    @Test
+    public void punctuationIsKeptWhenNotDiscarded() throws Exception {
+        assertThat(segment("行く。", 0, false)).containsExactly("行", "く", "。").inOrder();
+    }
+
+    @Test
+    public void offsetsStartAtTheGivenOffset() throws Exception {
+        final FallbackSegmenter segmenter = new FallbackSegmenter().reset(new StringReader("大阪府"), 100, true);
+        assertThat(segmenter.next()).isTrue();
+        assertThat(segmenter.begin()).isEqualTo(100);
+        assertThat(segmenter.end()).isEqualTo(102);
+        assertThat(segmenter.next()).isTrue();
+        assertThat(segmenter.begin()).isEqualTo(101);
+        assertThat(segmenter.end()).isEqualTo(103);
+        assertThat(segmenter.next()).isFalse();
+        assertThat(segmenter.offset()).isEqualTo(103);
+    }
+
+    @Test
+    public void readsPastTheBufferSize() throws Exception {
+        final StringBuilder text = new StringBuilder();
+        for (int idx = 0; idx < 1000; idx++) {
+            text.append("テスト、");
+        }
+        final List<String> tokens = segment(text.toString(), 0, true);
+        assertThat(tokens).hasSize(1000);
+        assertThat(tokens.get(999)).isEqualTo("テスト");
+    }
+
+    private static List<String> segment(final String text, final int startOffset, final boolean discardPunctuation)
+            throws Exception {
+        final FallbackSegmenter segmenter =
+                new FallbackSegmenter().reset(new StringReader(text), startOffset, discardPunctuation);
+        final List<String> tokens = new ArrayList<>();
+        while (segmenter.next()) {
+            tokens.add(text.substring(segmenter.begin() - startOffset, segmenter.end() - startOffset));
+        }
+        return tokens;
+    }
+}
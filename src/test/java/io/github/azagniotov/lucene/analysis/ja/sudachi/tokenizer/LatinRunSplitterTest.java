@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.tokenizer;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import org.testng.annotations.Test;
+
+public class LatinRunSplitterTest {
+
+    @Test
+    public void longLatinRunsAreSplitOffAndSegmentedByLettersAndDigits() throws Exception {
+        assertThat(split("東京都に行く。Hello, world 2024!大阪府", 10, true))
+                .containsExactly("J:東京都に行く。", "L:Hello", "L:world", "L:2024", "J:大阪府")
+                .inOrder();
+    }
+
+    @Test
+    public void shortLatinRunsStayInTheJapaneseSpan() throws Exception {
+        assertThat(split("私はiPhone 15を買った", 10, true)).containsExactly("J:私はiPhone 15を買った").inOrder();
+    }
+
+    @Test
+    public void separatorsAreKeptWhenNotDiscarded() throws Exception {
+        assertThat(split("a-b c", 5, false)).containsExactly("L:a", "L:-", "L:b", "L:c").inOrder();
+    }
+
+    @Test
+    public void spacesAreNeverEmitted() throws Exception {
+        assertThat(split("東京都 foo,  bar\t\r\nbaz\u00A0qux 行く", 10, false))
+                .containsExactly("J:東京都", "L:foo", "L:,", "L:bar", "L:baz", "L:qux", "J:行く")
+                .inOrder();
+    }
+
+    @Test
+    public void latinSupplementLettersArePartOfTheTokens() throws Exception {
+        assertThat(split("Crème brûlée", 5, true)).containsExactly("L:Crème", "L:brûlée").inOrder();
+    }
+
+    @Test
+    public void fullwidthLettersAreLeftToSudachi() throws Exception {
+        assertThat(split("ＡＢＣＤＥＦＧ", 5, true)).containsExactly("J:ＡＢＣＤＥＦＧ");
+    }
+
+    @Test
+    public void readsPastTheBufferSize() throws Exception {
+        final StringBuilder text = new StringBuilder();
+        for (int idx = 0; idx < 1000; idx++) {
+            text.append("テストtest1 test2 ");
+        }
+        final List<String> spans = split(text.toString(), 8, true);
+        assertThat(spans).hasSize(3000);
+        assertThat(spans.get(2997)).isEqualTo("J:テスト");
+        assertThat(spans.get(2999)).isEqualTo("L:test2");
+    }
+
+    private static List<String> split(final String text, final int minRunLength, final boolean discardPunctuation)
+            throws Exception {
+        final LatinRunSplitter splitter =
+                new LatinRunSplitter(minRunLength).reset(new StringReader(text), discardPunctuation);
+        final List<String> spans = new ArrayList<>();
+        int span;
+        while ((span = splitter.nextSpan()) != LatinRunSplitter.END) {
+            if (span == LatinRunSplitter.LATIN) {
+                while (splitter.nextLatinToken()) {
+                    assertThat(splitter.begin()).isAtLeast(splitter.spanStart());
+                    spans.add("L:" + text.substring(splitter.begin(), splitter.end()));
+                }
+            } else {
+                final int spanStart = splitter.spanStart();
+                final String japanese = readFully(splitter.japaneseSpan());
+                assertThat(text.substring(spanStart, spanStart + japanese.length())).isEqualTo(japanese);
+                spans.add("J:" + japanese);
+            }
+        }
+        assertThat(splitter.offset()).isEqualTo(text.length());
+        return spans;
+    }
+
+    private static String readFully(final Reader reader) throws Exception {
+        final StringBuilder text = new StringBuilder();
+        final char[] buffer = new char[7];
+        int read;
+        while ((read = reader.read(buffer, 0, buffer.length)) != -1) {
+            text.append(buffer, 0, read);
+        }
+        return text.toString();
+    }
+}
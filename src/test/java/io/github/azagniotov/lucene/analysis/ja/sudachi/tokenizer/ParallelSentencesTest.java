@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.tokenizer;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.testng.annotations.Test;
+
+public class ParallelSentencesTest {
+
+    @Test
+    public void shortDocumentIsOneChunk() {
+        final char[] text = "東京都に行く。\n大阪府に行く。\n".toCharArray();
+        assertThat(ParallelSentences.chunkEnd(text, 0, text.length)).isEqualTo(text.length);
+    }
+
+    @Test
+    public void chunkEndsAfterASentenceEndingFollowedByANewline() {
+        final String sentence = "あ".repeat(ParallelSentences.CHUNK_LENGTH) + "。";
+        final char[] text = (sentence + "いう。" + "\n" + "えお。\n").toCharArray();
+        assertThat(ParallelSentences.chunkEnd(text, 0, text.length)).isEqualTo(sentence.length() + 3);
+    }
+
+    @Test
+    public void chunkDoesNotEndWithinBrackets() {
+        final String opened = "「" + "あ".repeat(ParallelSentences.CHUNK_LENGTH) + "。\n";
+        final char[] text = (opened + "い」と言う。\n" + "えお。\n").toCharArray();
+        assertThat(ParallelSentences.chunkEnd(text, 0, text.length)).isEqualTo(opened.length() + 6);
+    }
+
+    @Test
+    public void chunkStartsAtTheGivenOffset() {
+        final String first = "あ".repeat(ParallelSentences.CHUNK_LENGTH) + "。\n";
+        final String second = "い".repeat(ParallelSentences.CHUNK_LENGTH) + "。\n";
+        final char[] text = (first + second + "う。\n").toCharArray();
+        assertThat(ParallelSentences.chunkEnd(text, 0, text.length)).isEqualTo(first.length() - 1);
+        assertThat(ParallelSentences.chunkEnd(text, first.length() - 1, text.length))
+                .isEqualTo(first.length() + second.length() - 1);
+    }
+
+    @Test
+    public void documentWithoutSentenceEndingsIsOneChunk() {
+        final char[] text = "あ".repeat(3 * ParallelSentences.CHUNK_LENGTH).toCharArray();
+        assertThat(ParallelSentences.chunkEnd(text, 0, text.length)).isEqualTo(text.length);
+    }
+}
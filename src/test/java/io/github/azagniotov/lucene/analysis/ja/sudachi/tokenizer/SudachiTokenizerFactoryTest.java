@@ -19,10 +19,34 @@ import static com.google.common.truth.Truth.assertThat;
 import static org.apache.lucene.analysis.TokenStream.DEFAULT_TOKEN_ATTRIBUTE_FACTORY;
 
 import com.worksap.nlp.sudachi.JapaneseDictionary;
+import com.worksap.nlp.sudachi.Tokenizer.SplitMode;
+import com.worksap.nlp.sudachi.Morpheme;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.attributes.SudachiBaseFormAttribute;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.attributes.SudachiFallbackAttribute;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.attributes.SudachiMorphemeAttribute;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.attributes.SudachiReadingFormAttribute;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.attributes.SudachiTokenAttributeImpl;
 import io.github.azagniotov.lucene.analysis.ja.sudachi.cache.DictionaryCache;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.metrics.AnalysisMetrics;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.metrics.SudachiMetrics;
 import io.github.azagniotov.lucene.analysis.ja.sudachi.util.NoOpResourceLoader;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.util.AttributeSource;
+import org.apache.solr.handler.AnalysisRequestHandlerBase;
 import org.testng.annotations.Test;
 
 public class SudachiTokenizerFactoryTest {
@@ -45,4 +69,494 @@ public class SudachiTokenizerFactoryTest {
         assertThat(DictionaryCache.INSTANCE.get()).isNotNull();
         assertThat(DictionaryCache.INSTANCE.get()).isInstanceOf(JapaneseDictionary.class);
     }
+
+    @Test
+    public void concurrentlyInformedFactoriesLoadTheDictionaryOnce() throws Exception {
+        DictionaryCache.INSTANCE.invalidate();
+        final long loads = DictionaryCache.INSTANCE.getLoads();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<?>> informed = new ArrayList<>();
+            for (int idx = 0; idx < 4; idx++) {
+                informed.add(executor.submit(() -> {
+                    new SudachiTokenizerFactory(new HashMap<>()).inform(new NoOpResourceLoader());
+                    return null;
+                }));
+            }
+            for (final Future<?> future : informed) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(DictionaryCache.INSTANCE.getLoads()).isEqualTo(loads + 1);
+        assertThat(DictionaryCache.INSTANCE.get()).isNotNull();
+    }
+
+    @Test
+    public void ramBytesUsedGrowsWithTheLongestAnalyzedSentence() throws Exception {
+        final SudachiTokenizerFactory sudachiTokenizerFactory = new SudachiTokenizerFactory(new HashMap<>());
+        sudachiTokenizerFactory.inform(new NoOpResourceLoader());
+        final SudachiTokenizer sudachiTokenizer =
+                (SudachiTokenizer) sudachiTokenizerFactory.create(DEFAULT_TOKEN_ATTRIBUTE_FACTORY);
+
+        final long idleBytes = sudachiTokenizer.ramBytesUsed();
+        assertThat(idleBytes).isGreaterThan(0L);
+        assertThat(sudachiTokenizerFactory.getChildResources()).hasSize(1);
+
+        final StringBuilder longSentence = new StringBuilder();
+        for (int idx = 0; idx < 200; idx++) {
+            longSentence.append("東京都に行く");
+        }
+        sudachiTokenizer.setReader(new StringReader(longSentence.toString()));
+        sudachiTokenizer.reset();
+        while (sudachiTokenizer.incrementToken()) {
+            // Consuming the stream, the tokens are not needed
+        }
+        sudachiTokenizer.end();
+        sudachiTokenizer.close();
+
+        assertThat(sudachiTokenizer.ramBytesUsed()).isGreaterThan(idleBytes);
+        assertThat(sudachiTokenizerFactory.ramBytesUsed()).isGreaterThan(sudachiTokenizer.ramBytesUsed());
+        assertThat(DictionaryCache.INSTANCE.ramBytesUsed()).isGreaterThan(0L);
+        assertThat(DictionaryCache.INSTANCE.getChildResources()).hasSize(2);
+    }
+
+    @Test
+    public void sentencesAreCappedAtMaxSentenceLength() throws Exception {
+        final Map<String, String> args = new HashMap<String, String>() {
+            {
+                put("maxSentenceLength", "64");
+            }
+        };
+        final SudachiTokenizerFactory cappedFactory = new SudachiTokenizerFactory(args);
+        cappedFactory.inform(new NoOpResourceLoader());
+        final SudachiTokenizer cappedTokenizer =
+                (SudachiTokenizer) cappedFactory.create(DEFAULT_TOKEN_ATTRIBUTE_FACTORY);
+        final SudachiTokenizerFactory uncappedFactory = new SudachiTokenizerFactory(new HashMap<>());
+        uncappedFactory.inform(new NoOpResourceLoader());
+        final SudachiTokenizer uncappedTokenizer =
+                (SudachiTokenizer) uncappedFactory.create(DEFAULT_TOKEN_ATTRIBUTE_FACTORY);
+
+        // No sentence punctuation at all
+        final StringBuilder longSentence = new StringBuilder();
+        for (int idx = 0; idx < 200; idx++) {
+            longSentence.append("東京都に行く");
+        }
+        final String text = longSentence.toString();
+
+        final CharTermAttribute termAtt = cappedTokenizer.getAttribute(CharTermAttribute.class);
+        final OffsetAttribute offsetAtt = cappedTokenizer.getAttribute(OffsetAttribute.class);
+        final StringBuilder terms = new StringBuilder();
+        cappedTokenizer.setReader(new StringReader(text));
+        cappedTokenizer.reset();
+        while (cappedTokenizer.incrementToken()) {
+            assertThat(termAtt.toString()).isEqualTo(text.substring(offsetAtt.startOffset(), offsetAtt.endOffset()));
+            terms.append(termAtt);
+        }
+        cappedTokenizer.end();
+        assertThat(offsetAtt.endOffset()).isEqualTo(text.length());
+        cappedTokenizer.close();
+        assertThat(terms.toString()).isEqualTo(text);
+
+        uncappedTokenizer.setReader(new StringReader(text));
+        uncappedTokenizer.reset();
+        while (uncappedTokenizer.incrementToken()) {
+            // Consuming the stream, the tokens are not needed
+        }
+        uncappedTokenizer.end();
+        uncappedTokenizer.close();
+
+        // The lattice has not grown past the max sentence length
+        assertThat(cappedTokenizer.ramBytesUsed()).isLessThan(uncappedTokenizer.ramBytesUsed());
+    }
+
+    @Test
+    public void buffersAreReleasedAfterADocumentOverTheShrinkThreshold() throws Exception {
+        final Map<String, String> args = new HashMap<String, String>() {
+            {
+                put("shrinkThreshold", "100");
+            }
+        };
+        final SudachiTokenizerFactory sudachiTokenizerFactory = new SudachiTokenizerFactory(args);
+        sudachiTokenizerFactory.inform(new NoOpResourceLoader());
+        final SudachiTokenizer sudachiTokenizer =
+                (SudachiTokenizer) sudachiTokenizerFactory.create(DEFAULT_TOKEN_ATTRIBUTE_FACTORY);
+        final long idleBytes = sudachiTokenizer.ramBytesUsed();
+
+        final StringBuilder longSentence = new StringBuilder();
+        for (int idx = 0; idx < 200; idx++) {
+            longSentence.append("東京都に行く");
+        }
+        sudachiTokenizer.setReader(new StringReader(longSentence.toString()));
+        sudachiTokenizer.reset();
+        int tokens = 0;
+        while (sudachiTokenizer.incrementToken()) {
+            tokens++;
+        }
+        sudachiTokenizer.end();
+        sudachiTokenizer.close();
+
+        assertThat(tokens).isGreaterThan(0);
+        assertThat(sudachiTokenizer.ramBytesUsed()).isEqualTo(idleBytes);
+
+        // The tokenizer keeps working with the new Sudachi tokenizer
+        sudachiTokenizer.setReader(new StringReader("東京都に行く"));
+        sudachiTokenizer.reset();
+        assertThat(sudachiTokenizer.incrementToken()).isTrue();
+        sudachiTokenizer.end();
+        sudachiTokenizer.close();
+    }
+
+    @Test
+    public void restOfTheDocumentFallsBackOnceTheTimeBudgetRunsOut() throws Exception {
+        final Map<String, String> args = new HashMap<String, String>() {
+            {
+                put("maxAnalysisMillis", "1");
+                put("metricsField", "restOfTheDocumentFallsBackOnceTheTimeBudgetRunsOut");
+            }
+        };
+        final SudachiTokenizerFactory sudachiTokenizerFactory = new SudachiTokenizerFactory(args);
+        sudachiTokenizerFactory.inform(new NoOpResourceLoader());
+        final SudachiTokenizer sudachiTokenizer =
+                (SudachiTokenizer) sudachiTokenizerFactory.create(DEFAULT_TOKEN_ATTRIBUTE_FACTORY);
+
+        // Thousands of sentences take Sudachi way longer than 1 ms
+        final StringBuilder document = new StringBuilder();
+        for (int idx = 0; idx < 2000; idx++) {
+            document.append("東京都に行く。ぼのぼのアニメ公式サイト！");
+        }
+        final String text = document.toString();
+
+        final CharTermAttribute termAtt = sudachiTokenizer.getAttribute(CharTermAttribute.class);
+        final OffsetAttribute offsetAtt = sudachiTokenizer.getAttribute(OffsetAttribute.class);
+        final SudachiFallbackAttribute fallbackAtt = sudachiTokenizer.getAttribute(SudachiFallbackAttribute.class);
+        int fallbackTokens = 0;
+        int lastStartOffset = 0;
+        sudachiTokenizer.setReader(new StringReader(text));
+        sudachiTokenizer.reset();
+        while (sudachiTokenizer.incrementToken()) {
+            assertThat(termAtt.toString()).isEqualTo(text.substring(offsetAtt.startOffset(), offsetAtt.endOffset()));
+            assertThat(offsetAtt.startOffset()).isAtLeast(lastStartOffset);
+            lastStartOffset = offsetAtt.startOffset();
+            if (fallbackAtt.isFallback()) {
+                fallbackTokens++;
+            } else {
+                // Sudachi tokens never follow the fallback ones
+                assertThat(fallbackTokens).isEqualTo(0);
+            }
+        }
+        sudachiTokenizer.end();
+        assertThat(offsetAtt.endOffset()).isEqualTo(text.length());
+        sudachiTokenizer.close();
+
+        final AnalysisMetrics metrics = SudachiMetrics.INSTANCE.forField(
+                "restOfTheDocumentFallsBackOnceTheTimeBudgetRunsOut", sudachiTokenizerFactory.getMode());
+        assertThat(fallbackTokens).isGreaterThan(0);
+        assertThat(metrics.getDeadlineExceeded()).isEqualTo(1);
+        assertThat(metrics.getFallbackTokens()).isEqualTo(fallbackTokens);
+    }
+
+    @Test
+    public void analysisStopsAfterMaxTokens() throws Exception {
+        final Map<String, String> args = new HashMap<String, String>() {
+            {
+                put("maxTokens", "3");
+            }
+        };
+        final SudachiTokenizerFactory sudachiTokenizerFactory = new SudachiTokenizerFactory(args);
+        sudachiTokenizerFactory.inform(new NoOpResourceLoader());
+        final SudachiTokenizer sudachiTokenizer =
+                (SudachiTokenizer) sudachiTokenizerFactory.create(DEFAULT_TOKEN_ATTRIBUTE_FACTORY);
+
+        final CharTermAttribute termAtt = sudachiTokenizer.getAttribute(CharTermAttribute.class);
+        final OffsetAttribute offsetAtt = sudachiTokenizer.getAttribute(OffsetAttribute.class);
+        final List<String> terms = new ArrayList<>();
+        int lastEndOffset = 0;
+        sudachiTokenizer.setReader(new StringReader("東京都に行く。大阪府に行く。"));
+        sudachiTokenizer.reset();
+        while (sudachiTokenizer.incrementToken()) {
+            terms.add(termAtt.toString());
+            lastEndOffset = offsetAtt.endOffset();
+        }
+        sudachiTokenizer.end();
+        final int finalOffset = offsetAtt.endOffset();
+        sudachiTokenizer.close();
+
+        assertThat(terms).hasSize(3);
+        assertThat(finalOffset).isEqualTo(lastEndOffset);
+    }
+
+    @Test
+    public void finalOffsetIsNotCutWhenTheDocumentHasExactlyMaxTokens() throws Exception {
+        final String text = "東京都に行く。";
+        final SudachiTokenizerFactory unlimitedFactory = new SudachiTokenizerFactory(new HashMap<>());
+        unlimitedFactory.inform(new NoOpResourceLoader());
+        final List<String> unlimitedTerms = new ArrayList<>();
+        final Tokenizer unlimitedTokenizer = unlimitedFactory.create(DEFAULT_TOKEN_ATTRIBUTE_FACTORY);
+        final CharTermAttribute unlimitedTermAtt = unlimitedTokenizer.getAttribute(CharTermAttribute.class);
+        unlimitedTokenizer.setReader(new StringReader(text));
+        unlimitedTokenizer.reset();
+        while (unlimitedTokenizer.incrementToken()) {
+            unlimitedTerms.add(unlimitedTermAtt.toString());
+        }
+        unlimitedTokenizer.end();
+        unlimitedTokenizer.close();
+
+        final Map<String, String> args = new HashMap<String, String>() {
+            {
+                put("maxTokens", String.valueOf(unlimitedTerms.size()));
+            }
+        };
+        final SudachiTokenizerFactory sudachiTokenizerFactory = new SudachiTokenizerFactory(args);
+        sudachiTokenizerFactory.inform(new NoOpResourceLoader());
+        final SudachiTokenizer sudachiTokenizer =
+                (SudachiTokenizer) sudachiTokenizerFactory.create(DEFAULT_TOKEN_ATTRIBUTE_FACTORY);
+
+        final CharTermAttribute termAtt = sudachiTokenizer.getAttribute(CharTermAttribute.class);
+        final OffsetAttribute offsetAtt = sudachiTokenizer.getAttribute(OffsetAttribute.class);
+        final List<String> terms = new ArrayList<>();
+        sudachiTokenizer.setReader(new StringReader(text));
+        sudachiTokenizer.reset();
+        while (sudachiTokenizer.incrementToken()) {
+            terms.add(termAtt.toString());
+        }
+        sudachiTokenizer.end();
+        final int finalOffset = offsetAtt.endOffset();
+        sudachiTokenizer.close();
+
+        assertThat(terms).containsExactlyElementsIn(unlimitedTerms).inOrder();
+        // The trailing punctuation is discarded, thus no token remained after the limit
+        assertThat(finalOffset).isEqualTo(text.length());
+    }
+
+    @Test
+    public void longLatinRunsBypassSudachi() throws Exception {
+        final Map<String, String> args = new HashMap<String, String>() {
+            {
+                put("minLatinRunLength", "10");
+                put("metricsField", "latinRuns");
+            }
+        };
+        final SudachiTokenizerFactory sudachiTokenizerFactory = new SudachiTokenizerFactory(args);
+        sudachiTokenizerFactory.inform(new NoOpResourceLoader());
+        final SudachiTokenizer sudachiTokenizer =
+                (SudachiTokenizer) sudachiTokenizerFactory.create(DEFAULT_TOKEN_ATTRIBUTE_FACTORY);
+
+        final String text = "東京都に行く。The quick brown fox, 2024.大阪府に行く。";
+        final CharTermAttribute termAtt = sudachiTokenizer.getAttribute(CharTermAttribute.class);
+        final OffsetAttribute offsetAtt = sudachiTokenizer.getAttribute(OffsetAttribute.class);
+        final SudachiMorphemeAttribute morphemeAtt = sudachiTokenizer.getAttribute(SudachiMorphemeAttribute.class);
+        final List<String> terms = new ArrayList<>();
+        final List<String> latinTerms = new ArrayList<>();
+        sudachiTokenizer.setReader(new StringReader(text));
+        sudachiTokenizer.reset();
+        while (sudachiTokenizer.incrementToken()) {
+            final String term = termAtt.toString();
+            assertThat(text.substring(offsetAtt.startOffset(), offsetAtt.endOffset())).isEqualTo(term);
+            terms.add(term);
+            if (!morphemeAtt.getValue().isPresent()) {
+                latinTerms.add(term);
+            }
+        }
+        sudachiTokenizer.end();
+        final int finalOffset = offsetAtt.endOffset();
+        sudachiTokenizer.close();
+
+        assertThat(latinTerms).containsExactly("The", "quick", "brown", "fox", "2024").inOrder();
+        assertThat(terms).containsAtLeast("行く", "The", "2024", "行く").inOrder();
+        assertThat(finalOffset).isEqualTo(text.length());
+        final AnalysisMetrics metrics =
+                SudachiMetrics.INSTANCE.forField("latinRuns", sudachiTokenizerFactory.getMode());
+        assertThat(metrics.getLatinTokens()).isEqualTo(5);
+    }
+
+    @Test
+    public void onlyMaxCharsAreRead() throws Exception {
+        final Map<String, String> args = new HashMap<String, String>() {
+            {
+                put("maxChars", "6");
+            }
+        };
+        final SudachiTokenizerFactory sudachiTokenizerFactory = new SudachiTokenizerFactory(args);
+        sudachiTokenizerFactory.inform(new NoOpResourceLoader());
+        final SudachiTokenizer sudachiTokenizer =
+                (SudachiTokenizer) sudachiTokenizerFactory.create(DEFAULT_TOKEN_ATTRIBUTE_FACTORY);
+
+        final AtomicInteger charsRead = new AtomicInteger();
+        final Reader reader = new FilterReader(new StringReader("東京都に行く。大阪府に行く。")) {
+            @Override
+            public int read(final char[] buffer, final int offset, final int length) throws IOException {
+                final int read = super.read(buffer, offset, length);
+                charsRead.addAndGet(Math.max(0, read));
+                return read;
+            }
+        };
+
+        final OffsetAttribute offsetAtt = sudachiTokenizer.getAttribute(OffsetAttribute.class);
+        sudachiTokenizer.setReader(reader);
+        sudachiTokenizer.reset();
+        while (sudachiTokenizer.incrementToken()) {
+            assertThat(offsetAtt.endOffset()).isAtMost(6);
+        }
+        sudachiTokenizer.end();
+        final int finalOffset = offsetAtt.endOffset();
+        sudachiTokenizer.close();
+
+        assertThat(charsRead.get()).isEqualTo(6);
+        assertThat(finalOffset).isEqualTo(6);
+    }
+
+    @Test
+    public void indexingProfileFillsOnlyRequestedAttributes() throws Exception {
+        final Map<String, String> args = new HashMap<String, String>() {
+            {
+                put("profile", "indexing");
+            }
+        };
+        final SudachiTokenizerFactory sudachiTokenizerFactory = new SudachiTokenizerFactory(args);
+        sudachiTokenizerFactory.inform(new NoOpResourceLoader());
+        final SudachiTokenizer sudachiTokenizer =
+                (SudachiTokenizer) sudachiTokenizerFactory.create(DEFAULT_TOKEN_ATTRIBUTE_FACTORY);
+
+        assertThat(sudachiTokenizerFactory.getProfile()).isEqualTo(TokenizerProfile.INDEXING);
+        assertThat(sudachiTokenizer.hasAttribute(SudachiBaseFormAttribute.class)).isFalse();
+        assertThat(sudachiTokenizer.hasAttribute(SudachiReadingFormAttribute.class)).isFalse();
+
+        // Registered by a downstream filter, e.g.: SudachiBaseFormFilter
+        final SudachiBaseFormAttribute baseFormAtt = sudachiTokenizer.addAttribute(SudachiBaseFormAttribute.class);
+        sudachiTokenizer.setReader(new StringReader("行きました"));
+        sudachiTokenizer.reset();
+        assertThat(sudachiTokenizer.incrementToken()).isTrue();
+        assertThat(baseFormAtt.getValue().orElse(null)).isEqualTo("行く");
+        sudachiTokenizer.end();
+        sudachiTokenizer.close();
+
+        assertThat(sudachiTokenizer.hasAttribute(SudachiReadingFormAttribute.class)).isFalse();
+    }
+
+    @Test
+    public void indexingProfileFillsAllAttributesUnderTheSolrFieldAnalysis() throws Exception {
+        final Map<String, String> args = new HashMap<String, String>() {
+            {
+                put("profile", "indexing");
+            }
+        };
+        final SudachiTokenizerFactory sudachiTokenizerFactory = new SudachiTokenizerFactory(args);
+        sudachiTokenizerFactory.inform(new NoOpResourceLoader());
+        final SudachiTokenizer sudachiTokenizer =
+                (SudachiTokenizer) sudachiTokenizerFactory.create(DEFAULT_TOKEN_ATTRIBUTE_FACTORY);
+
+        // Registered by the field analysis screen/API before it resets the tokenizer
+        sudachiTokenizer.addAttribute(AnalysisRequestHandlerBase.TokenTrackingAttribute.class);
+        sudachiTokenizer.setReader(new StringReader("行きました"));
+        sudachiTokenizer.reset();
+        assertThat(sudachiTokenizer.incrementToken()).isTrue();
+        final SudachiBaseFormAttribute baseFormAtt = sudachiTokenizer.getAttribute(SudachiBaseFormAttribute.class);
+        final SudachiReadingFormAttribute readingFormAtt =
+                sudachiTokenizer.getAttribute(SudachiReadingFormAttribute.class);
+        assertThat(baseFormAtt.getValue().orElse(null)).isEqualTo("行く");
+        assertThat(readingFormAtt.getValue().isPresent()).isTrue();
+        sudachiTokenizer.end();
+        sudachiTokenizer.close();
+    }
+
+    @Test
+    public void packedAttributesShareOneAttributeImpl() throws Exception {
+        final Map<String, String> args = new HashMap<String, String>() {
+            {
+                put("packedAttributes", "true");
+            }
+        };
+        final SudachiTokenizerFactory sudachiTokenizerFactory = new SudachiTokenizerFactory(args);
+        sudachiTokenizerFactory.inform(new NoOpResourceLoader());
+        final SudachiTokenizer sudachiTokenizer =
+                (SudachiTokenizer) sudachiTokenizerFactory.create(DEFAULT_TOKEN_ATTRIBUTE_FACTORY);
+
+        final CharTermAttribute termAtt = sudachiTokenizer.getAttribute(CharTermAttribute.class);
+        final OffsetAttribute offsetAtt = sudachiTokenizer.getAttribute(OffsetAttribute.class);
+        final SudachiMorphemeAttribute morphemeAtt = sudachiTokenizer.getAttribute(SudachiMorphemeAttribute.class);
+        assertThat(sudachiTokenizerFactory.isPackedAttributes()).isTrue();
+        assertThat(termAtt).isInstanceOf(SudachiTokenAttributeImpl.class);
+        assertThat(offsetAtt).isSameInstanceAs(termAtt);
+        assertThat(morphemeAtt).isSameInstanceAs(termAtt);
+
+        sudachiTokenizer.setReader(new StringReader("東京都に行く"));
+        sudachiTokenizer.reset();
+        assertThat(sudachiTokenizer.incrementToken()).isTrue();
+        final String firstTerm = termAtt.toString();
+        final Morpheme firstMorpheme = morphemeAtt.getValue().orElseThrow();
+        final AttributeSource.State firstState = sudachiTokenizer.captureState();
+        assertThat(sudachiTokenizer.incrementToken()).isTrue();
+        assertThat(termAtt.toString()).isNotEqualTo(firstTerm);
+
+        sudachiTokenizer.restoreState(firstState);
+        assertThat(termAtt.toString()).isEqualTo(firstTerm);
+        assertThat(offsetAtt.startOffset()).isEqualTo(0);
+        assertThat(morphemeAtt.getValue().orElseThrow()).isSameInstanceAs(firstMorpheme);
+        sudachiTokenizer.end();
+        sudachiTokenizer.close();
+    }
+
+    @Test
+    public void tokenizersShareTheOptionsOfTheFactory() throws Exception {
+        final Map<String, String> args = new HashMap<String, String>() {
+            {
+                put("mode", "normal");
+                put("maxTokens", "3");
+                put("maxChars", "100");
+            }
+        };
+        final SudachiTokenizerFactory sudachiTokenizerFactory = new SudachiTokenizerFactory(args);
+        sudachiTokenizerFactory.inform(new NoOpResourceLoader());
+
+        final SudachiTokenizerOptions options = sudachiTokenizerFactory.getOptions();
+        assertThat(options.getMode()).isEqualTo(SplitMode.B);
+        assertThat(options.isDiscardPunctuation()).isTrue();
+        assertThat(options.getMaxTokens()).isEqualTo(3);
+        assertThat(options.getMaxChars()).isEqualTo(100);
+        assertThat(options.getSentenceAnalysisPool()).isNull();
+        assertThat(sudachiTokenizerFactory.getMaxTokens()).isEqualTo(3);
+    }
+
+    @Test
+    public void eachFactoryClosesItsOwnSentenceAnalysisPool() throws Exception {
+        final Map<String, String> args = new HashMap<String, String>() {
+            {
+                put("parallelThreshold", "1000");
+                put("parallelism", "3");
+            }
+        };
+        final SudachiTokenizerFactory firstFactory = new SudachiTokenizerFactory(new HashMap<>(args));
+        final SudachiTokenizerFactory secondFactory = new SudachiTokenizerFactory(new HashMap<>(args));
+
+        final SentenceAnalysisPool firstPool = firstFactory.getOptions().getSentenceAnalysisPool();
+        final SentenceAnalysisPool secondPool = secondFactory.getOptions().getSentenceAnalysisPool();
+        assertThat(secondPool).isNotSameInstanceAs(firstPool);
+
+        firstFactory.close();
+        firstFactory.close();
+        assertThat(firstPool.isTerminated()).isTrue();
+        assertThat(secondPool.isTerminated()).isFalse();
+
+        secondFactory.close();
+        assertThat(secondPool.isTerminated()).isTrue();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void negativeOptionsAreRejected() {
+        SudachiTokenizerOptions.builder().maxTokens(-1);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void unknownProfileIsRejected() {
+        final Map<String, String> args = new HashMap<String, String>() {
+            {
+                put("profile", "fast");
+            }
+        };
+        new SudachiTokenizerFactory(args);
+    }
 }
@@ -20,7 +20,12 @@ import static org.apache.lucene.analysis.TokenStream.DEFAULT_TOKEN_ATTRIBUTE_FAC
 
 import com.worksap.nlp.sudachi.JapaneseDictionary;
 import com.worksap.nlp.sudachi.Morpheme;
+import com.worksap.nlp.sudachi.Tokenizer.SplitMode;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.attributes.SudachiMorphemeAttribute;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.attributes.SudachiMorphemeIdsAttribute;
 import io.github.azagniotov.lucene.analysis.ja.sudachi.cache.DictionaryCache;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.metrics.AnalysisMetrics;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.metrics.SudachiMetrics;
 import io.github.azagniotov.lucene.analysis.ja.sudachi.util.NoOpResourceLoader;
 import io.github.azagniotov.lucene.analysis.ja.sudachi.util.Strings;
 import java.io.Reader;
@@ -32,6 +37,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
@@ -253,6 +260,183 @@ public class SudachiTokenizerTest {
         assertThat(tokens).containsExactly("テスト", "テスト", "テスト", "テスト", "テスト");
     }
 
+    @Test
+    public void testAnalysisMetricsAreRecordedPerDocument() throws Exception {
+        final Map<String, String> args = new HashMap<String, String>() {
+            {
+                put("mode", TokenizerMode.SEARCH.desc());
+                put("discardPunctuation", "true");
+                put("metricsField", "testAnalysisMetricsAreRecordedPerDocument");
+            }
+        };
+        final SudachiTokenizerFactory sudachiTokenizerFactory = new SudachiTokenizerFactory(args);
+        sudachiTokenizerFactory.inform(new NoOpResourceLoader());
+        final SudachiTokenizer tokenizer =
+                (SudachiTokenizer) sudachiTokenizerFactory.create(DEFAULT_TOKEN_ATTRIBUTE_FACTORY);
+
+        final String text = "東京都に行く。大阪府に行く！";
+        int emitted = 0;
+        for (int document = 0; document < 2; document++) {
+            tokenizer.setReader(new StringReader(text));
+            tokenizer.reset();
+            while (tokenizer.incrementToken()) {
+                emitted++;
+            }
+            tokenizer.end();
+            tokenizer.close();
+        }
+
+        final AnalysisMetrics metrics =
+                SudachiMetrics.INSTANCE.forField("testAnalysisMetricsAreRecordedPerDocument", SplitMode.A);
+        assertThat(metrics.getDocuments()).isEqualTo(2);
+        assertThat(metrics.getChars()).isEqualTo(2 * text.length());
+        assertThat(metrics.getSentences()).isEqualTo(4);
+        assertThat(metrics.getMorphemes()).isEqualTo(emitted);
+        assertThat(metrics.getPunctuationDropped()).isEqualTo(4);
+        assertThat(metrics.getOovMorphemes()).isEqualTo(0);
+        assertThat(metrics.getLatency().getCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testTermsAreCopiedFromTheInputByOffsets() throws Exception {
+        final StringBuilder text = new StringBuilder();
+        // Longer than the initial text window, so that the window is compacted and grown
+        for (int idx = 0; idx < 500; idx++) {
+            text.append("東京都に行く。ぼのぼのアニメ公式サイト！イーブイヒーローズbox未開封シュリンク");
+        }
+        final List<String> expected = tokens(sudachiTokenizer.tokenize(new StringReader(text.toString())), false);
+
+        final CharTermAttribute termAtt = sudachiTokenizer.getAttribute(CharTermAttribute.class);
+        final List<String> actual = new ArrayList<>();
+        sudachiTokenizer.setReader(new StringReader(text.toString()));
+        sudachiTokenizer.reset();
+        while (sudachiTokenizer.incrementToken()) {
+            actual.add(termAtt.toString());
+        }
+        sudachiTokenizer.end();
+        sudachiTokenizer.close();
+
+        assertThat(actual).containsExactlyElementsIn(expected).inOrder();
+    }
+
+    @Test
+    public void testPunctuationIsDiscardedByTheNormalizedForm() throws Exception {
+        // Symbols, spaces and marks, which Sudachi tags with different parts of speech
+        final String text = "東京都に行く。　１００％ ＋α（笑）ーー！ ※注意… orz ＝＝＞ｗ　¥500・$3";
+        final List<String> expected = tokens(sudachiTokenizer.tokenize(new StringReader(text)), false);
+
+        final CharTermAttribute termAtt = sudachiTokenizer.getAttribute(CharTermAttribute.class);
+        final List<String> actual = new ArrayList<>();
+        sudachiTokenizer.setReader(new StringReader(text));
+        sudachiTokenizer.reset();
+        while (sudachiTokenizer.incrementToken()) {
+            actual.add(termAtt.toString());
+        }
+        sudachiTokenizer.end();
+        sudachiTokenizer.close();
+
+        assertThat(actual).containsExactlyElementsIn(expected).inOrder();
+    }
+
+    @Test
+    public void testPunctuationByPartOfSpeechIsDiscardedAsByTheNormalizedForm() throws Exception {
+        final String text = "東京都に行く。　１００％ ＋α（笑）ーー！ ※注意… orz ＝＝＞ｗ　¥500・$3";
+        final List<String> expected = tokens(sudachiTokenizer.tokenize(new StringReader(text)), false);
+
+        final Map<String, String> args = new HashMap<>();
+        args.put("mode", TokenizerMode.SEARCH.desc());
+        args.put("discardPunctuation", String.valueOf(DISCARD_PUNCTUATION));
+        args.put("punctuationByPartOfSpeech", "true");
+        final SudachiTokenizerFactory factory = new SudachiTokenizerFactory(args);
+        factory.inform(new NoOpResourceLoader());
+        assertThat(factory.isPunctuationByPartOfSpeech()).isTrue();
+
+        final SudachiTokenizer tokenizer = (SudachiTokenizer) factory.create(DEFAULT_TOKEN_ATTRIBUTE_FACTORY);
+        final CharTermAttribute termAtt = tokenizer.getAttribute(CharTermAttribute.class);
+        final List<String> actual = new ArrayList<>();
+        // Twice, thus the part-of-speech classes remembered by the tokenizer are used as well
+        for (int round = 0; round < 2; round++) {
+            actual.clear();
+            tokenizer.setReader(new StringReader(text));
+            tokenizer.reset();
+            while (tokenizer.incrementToken()) {
+                actual.add(termAtt.toString());
+            }
+            tokenizer.end();
+            tokenizer.close();
+        }
+
+        assertThat(actual).containsExactlyElementsIn(expected).inOrder();
+    }
+
+    @Test
+    public void testMorphemeIdsAreSetFromTheSentenceBuffer() throws Exception {
+        final SudachiMorphemeAttribute morphemeAtt = sudachiTokenizer.getAttribute(SudachiMorphemeAttribute.class);
+        // Registered by a downstream filter, e.g.: SudachiPartOfSpeechStopFilter
+        final SudachiMorphemeIdsAttribute morphemeIdsAtt =
+                sudachiTokenizer.addAttribute(SudachiMorphemeIdsAttribute.class);
+
+        final String text = "東京都に行く。ぼのぼのアニメ公式サイト！";
+        final int expected = tokens(sudachiTokenizer.tokenize(new StringReader(text)), false).size();
+
+        // The same tokenizer (and its reusable buffers) analyzes the documents one after another
+        for (int document = 0; document < 3; document++) {
+            int tokens = 0;
+            sudachiTokenizer.setReader(new StringReader(text));
+            sudachiTokenizer.reset();
+            while (sudachiTokenizer.incrementToken()) {
+                final Morpheme morpheme = morphemeAtt.getValue().orElseThrow();
+                assertThat(morphemeIdsAtt.getWordId()).isEqualTo(morpheme.getWordId());
+                assertThat(morphemeIdsAtt.getPartOfSpeechId()).isEqualTo((int) morpheme.partOfSpeechId());
+                assertThat(morphemeIdsAtt.isOOV()).isEqualTo(morpheme.isOOV());
+                tokens++;
+            }
+            sudachiTokenizer.end();
+            sudachiTokenizer.close();
+
+            assertThat(tokens).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void testShortInputsAreAnalyzedAsAWhole() throws Exception {
+        final Map<String, String> args = new HashMap<String, String>() {
+            {
+                put("mode", TokenizerMode.SEARCH.desc());
+                put("discardPunctuation", String.valueOf(DISCARD_PUNCTUATION));
+                put("shortInputLength", "16");
+            }
+        };
+        final SudachiTokenizerFactory sudachiTokenizerFactory = new SudachiTokenizerFactory(args);
+        sudachiTokenizerFactory.inform(new NoOpResourceLoader());
+        final SudachiTokenizer shortInputTokenizer =
+                (SudachiTokenizer) sudachiTokenizerFactory.create(DEFAULT_TOKEN_ATTRIBUTE_FACTORY);
+
+        // Shorter, exactly as long as, and longer than the short input length
+        final String[] texts = {"", "かつ丼", "ぼのぼのアニメ公式サイト", "東京都に行く。ぼのぼのアニメ公式", "東京都に行く。ぼのぼのアニメ公式サイト！"};
+        for (final String text : texts) {
+            assertThat(termsAndOffsets(shortInputTokenizer, text))
+                    .containsExactlyElementsIn(termsAndOffsets(sudachiTokenizer, text))
+                    .inOrder();
+        }
+    }
+
+    private static List<String> termsAndOffsets(final SudachiTokenizer tokenizer, final String text)
+            throws Exception {
+        final CharTermAttribute termAtt = tokenizer.getAttribute(CharTermAttribute.class);
+        final OffsetAttribute offsetAtt = tokenizer.getAttribute(OffsetAttribute.class);
+        final List<String> tokens = new ArrayList<>();
+        tokenizer.setReader(new StringReader(text));
+        tokenizer.reset();
+        while (tokenizer.incrementToken()) {
+            tokens.add(termAtt + "[" + offsetAtt.startOffset() + "," + offsetAtt.endOffset() + "]");
+        }
+        tokenizer.end();
+        tokens.add("end[" + offsetAtt.endOffset() + "]");
+        tokenizer.close();
+        return tokens;
+    }
+
     private List<String> tokens(final Iterator<List<Morpheme>> morphemeList, final boolean useNormalizedForm) {
         final List<Morpheme> result = new ArrayList<>();
 
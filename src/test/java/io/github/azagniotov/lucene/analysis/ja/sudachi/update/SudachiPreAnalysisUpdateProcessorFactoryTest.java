@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2024 Alexander Zagniotov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.azagniotov.lucene.analysis.ja.sudachi.update;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.testng.Assert.assertThrows;
+
+import io.github.azagniotov.lucene.analysis.ja.sudachi.analyzer.SudachiBatchAnalyzer;
+import io.github.azagniotov.lucene.analysis.ja.sudachi.analyzer.SudachiTokens;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenFilter;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.core.WhitespaceAnalyzer;
+import org.apache.lucene.analysis.core.WhitespaceTokenizer;
+import org.apache.lucene.analysis.tokenattributes.FlagsAttribute;
+import org.apache.lucene.analysis.tokenattributes.PayloadAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionLengthAttribute;
+import org.apache.lucene.analysis.tokenattributes.TypeAttribute;
+import org.apache.lucene.util.BytesRef;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.util.NamedList;
+import org.noggit.ObjectBuilder;
+import org.testng.annotations.Test;
+
+public class SudachiPreAnalysisUpdateProcessorFactoryTest {
+
+    @Test
+    public void factoryInitialized() {
+        final NamedList<Object> args = new NamedList<>();
+        args.add("fieldType", "text_ja");
+        args.add("fields", Arrays.asList("title", "body"));
+        args.add("batchSize", 50);
+        args.add("parallelism", 2);
+
+        final SudachiPreAnalysisUpdateProcessorFactory factory = new SudachiPreAnalysisUpdateProcessorFactory();
+        factory.init(args);
+
+        assertThat(factory.getFieldTypeName()).isEqualTo("text_ja");
+        assertThat(factory.getFieldNames()).containsExactly("title", "body").inOrder();
+        assertThat(factory.getBatchSize()).isEqualTo(50);
+        assertThat(factory.getMicroBatchChars()).isEqualTo(0);
+        assertThat(factory.getParallelism()).isEqualTo(2);
+    }
+
+    @Test
+    public void factoryRejectsInvalidArgs() {
+        final NamedList<Object> noFieldType = new NamedList<>();
+        noFieldType.add("fields", "title");
+        assertThrows(SolrException.class, () -> new SudachiPreAnalysisUpdateProcessorFactory().init(noFieldType));
+
+        final NamedList<Object> zeroBatchSize = new NamedList<>();
+        zeroBatchSize.add("fieldType", "text_ja");
+        zeroBatchSize.add("fields", "title");
+        zeroBatchSize.add("batchSize", 0);
+        assertThrows(SolrException.class, () -> new SudachiPreAnalysisUpdateProcessorFactory().init(zeroBatchSize));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void tokensAreWrittenInThePreAnalyzedJsonFormat() throws Exception {
+        final String value = "東京 \"大阪\"";
+        final SudachiTokens tokens;
+        try (SudachiBatchAnalyzer batchAnalyzer = new SudachiBatchAnalyzer(new WhitespaceAnalyzer(), "title", 1)) {
+            tokens = batchAnalyzer.analyze(Collections.singletonList(value)).get(0);
+        }
+
+        final Map<String, Object> stored = (Map<String, Object>)
+                ObjectBuilder.fromJSON(SudachiPreAnalysisUpdateProcessorFactory.toPreAnalyzedJson(value, tokens, true));
+        assertThat(stored.get("v")).isEqualTo("1");
+        assertThat(stored.get("str")).isEqualTo(value);
+
+        final List<Map<String, Object>> storedTokens = (List<Map<String, Object>>) stored.get("tokens");
+        assertThat(storedTokens).hasSize(2);
+        assertThat(storedTokens.get(1).get("t")).isEqualTo("\"大阪\"");
+        assertThat(storedTokens.get(1).get("s")).isEqualTo(3L);
+        assertThat(storedTokens.get(1).get("e")).isEqualTo(7L);
+        assertThat(storedTokens.get(1).get("i")).isEqualTo(1L);
+        assertThat(storedTokens.get(1)).doesNotContainKey("l");
+        assertThat(storedTokens.get(1)).doesNotContainKey("y");
+        assertThat(storedTokens.get(1)).doesNotContainKey("f");
+        assertThat(storedTokens.get(1)).doesNotContainKey("p");
+
+        final String notStoredJson = SudachiPreAnalysisUpdateProcessorFactory.toPreAnalyzedJson(value, tokens, false);
+        final Map<String, Object> notStored = (Map<String, Object>) ObjectBuilder.fromJSON(notStoredJson);
+        assertThat(notStored).doesNotContainKey("str");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void tokenAttributesAreWrittenInThePreAnalyzedJsonFormat() throws Exception {
+        final Analyzer analyzer = new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(final String fieldName) {
+                final Tokenizer tokenizer = new WhitespaceTokenizer();
+                return new TokenStreamComponents(tokenizer, new TokenFilter(tokenizer) {
+                    private final PositionLengthAttribute posLenAtt = addAttribute(PositionLengthAttribute.class);
+                    private final TypeAttribute typeAtt = addAttribute(TypeAttribute.class);
+                    private final FlagsAttribute flagsAtt = addAttribute(FlagsAttribute.class);
+                    private final PayloadAttribute payloadAtt = addAttribute(PayloadAttribute.class);
+
+                    @Override
+                    public boolean incrementToken() throws IOException {
+                        if (!input.incrementToken()) {
+                            return false;
+                        }
+                        posLenAtt.setPositionLength(2);
+                        typeAtt.setType("名詞");
+                        flagsAtt.setFlags(26);
+                        payloadAtt.setPayload(new BytesRef(new byte[] {1, 2, 3}));
+                        return true;
+                    }
+                });
+            }
+        };
+        final String value = "東京";
+        final SudachiTokens tokens;
+        try (SudachiBatchAnalyzer batchAnalyzer = new SudachiBatchAnalyzer(analyzer, "title", 1)) {
+            tokens = batchAnalyzer.analyze(Collections.singletonList(value)).get(0);
+        }
+
+        final String preAnalyzedJson = SudachiPreAnalysisUpdateProcessorFactory.toPreAnalyzedJson(value, tokens, false);
+        final Map<String, Object> json = (Map<String, Object>) ObjectBuilder.fromJSON(preAnalyzedJson);
+        final Map<String, Object> token = ((List<Map<String, Object>>) json.get("tokens")).get(0);
+        assertThat(token.get("l")).isEqualTo(2L);
+        assertThat(token.get("y")).isEqualTo("名詞");
+        assertThat(token.get("f")).isEqualTo("1a");
+        assertThat(token.get("p")).isEqualTo("AQID");
+    }
+}
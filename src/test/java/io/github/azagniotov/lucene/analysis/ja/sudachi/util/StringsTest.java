@@ -49,4 +49,25 @@ public class StringsTest {
             assertThat(Strings.isPunctuation(punt.trim())).isTrue();
         }
     }
+
+    @Test
+    public void precomputedBmpPunctuationMatchesCharacterTypes() throws Exception {
+        for (int codePoint = 0; codePoint <= Character.MAX_VALUE; codePoint++) {
+            final int type = Character.getType(codePoint);
+            final boolean expected = !Character.isLetterOrDigit(codePoint)
+                    && type != Character.PRIVATE_USE
+                    && type != Character.UNASSIGNED
+                    && type != Character.SURROGATE
+                    && type != Character.NON_SPACING_MARK
+                    && type != Character.ENCLOSING_MARK
+                    && type != Character.COMBINING_SPACING_MARK
+                    && type != Character.LETTER_NUMBER
+                    && type != Character.OTHER_NUMBER;
+            assertThat(Strings.isPunctuation(codePoint)).isEqualTo(expected);
+        }
+
+        // Supplementary code points are not in the precomputed table
+        assertThat(Strings.isPunctuation("\uD83D\uDE00")).isTrue(); // 😀
+        assertThat(Strings.isPunctuation("\uD840\uDC0B")).isFalse(); // 𠀋
+    }
 }